@@ -0,0 +1,50 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import server.MazeGenerator;
+import server.Mazes;
+
+import java.util.concurrent.TimeUnit;
+
+// Compare les générateurs de labyrinthe aux tailles du jeu (21, 41, 61) et au-delà.
+// - "loops" : pourcentage de murs retirés par Mazes.addLoops (0 = générateur seul).
+// - "cells" (compteur auxiliaire) donne directement le débit en cellules/seconde.
+// - Avec -prof gc, gc.alloc.rate.norm = octets alloués par labyrinthe : tout reste vivant
+//   jusqu'à la fin de la génération, c'est donc une bonne estimation du pic de mémoire.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MazeGeneratorBenchmark {
+
+    @Param({"backtracker", "wilson", "eller", "kruskal"})
+    public String algorithm;
+
+    @Param({"21", "41", "61", "501", "2001"})
+    public int size;
+
+    @Param({"0", "10"})
+    public int loops;
+
+    private MazeGenerator generator;
+    private long seed;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Cells {
+        public long cells;
+    }
+
+    @Setup
+    public void setup() {
+        generator = Mazes.byName(algorithm);
+    }
+
+    @Benchmark
+    public byte[] generate(Cells counter) {
+        counter.cells += (long) size * size;
+        return Mazes.generateCells(generator, size, seed++, loops);
+    }
+}
@@ -0,0 +1,66 @@
+package bench;
+
+import common.EncodedMaze;
+import common.MazeCodec;
+import common.MazeState;
+import org.openjdk.jmh.annotations.*;
+import server.Mazes;
+
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+
+// Coût du transfert du labyrinthe : sérialisation Java de MazeState (ce que fait RMI pour
+// getMazeState) contre l'encodage compact de MazeCodec (getEncodedMaze). Les tailles des
+// deux formats sont affichées au démarrage de chaque essai.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MazeTransferBenchmark {
+
+    @Param({"21", "41", "61", "501"})
+    public int size;
+
+    private int[][] grid;
+    private MazeState state;
+    private byte[] serializedState;
+    private EncodedMaze encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        grid = Mazes.generate(Mazes.byName("backtracker"), size, 42, 10);
+        state = new MazeState(grid, size, "bench");
+        serializedState = serializeState();
+        encoded = MazeCodec.encode(grid);
+        System.out.println("\n[bench] " + size + "x" + size + " : MazeState sérialisé = " + serializedState.length
+                + " octets, MazeCodec = " + encoded.getData().length + " octets");
+    }
+
+    @Benchmark
+    public byte[] serializeState() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(state);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public Object deserializeState() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serializedState))) {
+            return in.readObject();
+        }
+    }
+
+    @Benchmark
+    public EncodedMaze encodeCompact() {
+        return MazeCodec.encode(grid);
+    }
+
+    @Benchmark
+    public int[][] decodeCompact() {
+        return MazeCodec.decode(encoded);
+    }
+}
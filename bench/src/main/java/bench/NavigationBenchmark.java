@@ -0,0 +1,76 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import server.Mazes;
+import server.Navigation;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Latence des requêtes de navigation (server.Navigation) selon la taille du labyrinthe.
+// - build : BFS complet depuis la sortie (une fois par manche)
+// - nextDirToExit : ce que coûte un indice UDP
+// - pathToExit / findPath : requêtes RMI findPath vers la sortie et entre deux cases quelconques (A*)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NavigationBenchmark {
+
+    @Param({"61", "501", "1001", "2001"})
+    public int size;
+
+    private static final int PAIRS = 1024; // puissance de 2
+
+    private int[][] grid;
+    private Navigation navigation;
+    private final int[] from = new int[2 * PAIRS];
+    private final int[] to = new int[2 * PAIRS];
+    private int next;
+
+    @Setup
+    public void setup() {
+        grid = Mazes.generate(Mazes.byName("backtracker"), size, 42, 10);
+        navigation = new Navigation(grid);
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < PAIRS; i++) {
+            randomFloor(random, from, i);
+            randomFloor(random, to, i);
+        }
+    }
+
+    private void randomFloor(SplittableRandom random, int[] out, int i) {
+        int x, y;
+        do {
+            x = random.nextInt(size);
+            y = random.nextInt(size);
+        } while (grid[x][y] == 1);
+        out[2 * i] = x;
+        out[2 * i + 1] = y;
+    }
+
+    @Benchmark
+    public Navigation build() {
+        return new Navigation(grid);
+    }
+
+    @Benchmark
+    public int nextDirToExit() {
+        int i = next++ & (PAIRS - 1);
+        return navigation.nextDirToExit(from[2 * i], from[2 * i + 1]);
+    }
+
+    @Benchmark
+    public int[] pathToExit() {
+        int i = next++ & (PAIRS - 1);
+        return navigation.pathToExit(from[2 * i], from[2 * i + 1]);
+    }
+
+    @Benchmark
+    public int[] findPath() {
+        int i = next++ & (PAIRS - 1);
+        return navigation.findPath(from[2 * i], from[2 * i + 1], to[2 * i], to[2 * i + 1]);
+    }
+}
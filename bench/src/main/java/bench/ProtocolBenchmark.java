@@ -0,0 +1,69 @@
+package bench;
+
+import common.Protocol;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Décodage/encodage des paquets UDP, exécuté pour chaque paquet reçu ou envoyé.
+// Tout doit rester à 0 octet alloué par opération (gc.alloc.rate.norm avec -prof gc).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProtocolBenchmark {
+
+    private final ByteBuffer binaryMove = ByteBuffer.allocate(Protocol.MOVE_SIZE);
+    private final ByteBuffer legacyMove = ByteBuffer.wrap("MOVE;777;RIGHT\n".getBytes(StandardCharsets.US_ASCII));
+    private final ByteBuffer snapshot = ByteBuffer.allocate(Protocol.MAX_PACKET_SIZE);
+    private final ByteBuffer out = ByteBuffer.allocate(Protocol.MAX_PACKET_SIZE);
+    private final Protocol.Move move = new Protocol.Move();
+    private final Protocol.Pos pos = new Protocol.Pos();
+
+    @Setup
+    public void setup() {
+        Protocol.writeMove(binaryMove, 3, 1234, 0x5EC2E7, Protocol.DIR_LEFT, 42);
+        binaryMove.flip();
+
+        Protocol.writeSnapshotHeader(snapshot, 0, 1, 0, Protocol.MAX_SNAPSHOT_ENTRIES);
+        for (int i = 0; i < Protocol.MAX_SNAPSHOT_ENTRIES; i++) {
+            Protocol.writeSnapshotEntry(snapshot, i + 1, i % 61, i / 61, i);
+        }
+        snapshot.flip();
+    }
+
+    @Benchmark
+    public int readBinaryMove() {
+        Protocol.readMove(binaryMove, move);
+        return move.dir;
+    }
+
+    @Benchmark
+    public int readLegacyMove() {
+        Protocol.readLegacyMove(legacyMove, move);
+        return move.dir;
+    }
+
+    @Benchmark
+    public int writeMove() {
+        out.clear();
+        Protocol.writeMove(out, 3, 1234, 0x5EC2E7, Protocol.DIR_LEFT, 42);
+        return out.position();
+    }
+
+    // Lecture d'un snapshot plein (174 entrées), comme le client à chaque paquet
+    @Benchmark
+    public int readFullSnapshot() {
+        int count = Protocol.readSnapshot(snapshot);
+        int sum = 0;
+        for (int i = 0; i < count; i++) {
+            Protocol.readSnapshotEntry(snapshot, i, pos);
+            sum += pos.x + pos.y;
+        }
+        return sum;
+    }
+}
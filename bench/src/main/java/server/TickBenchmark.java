@@ -0,0 +1,130 @@
+package server;
+
+import common.Protocol;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Chemin critique du serveur, paquet par paquet puis tick par tick.
+// Dans le package server (et non bench) pour atteindre Room, SnapshotWriter... qui sont package-private.
+//
+// - tick : décodage de "players" MOVE (comme processUdpMessage), mise en file (Room.onMove),
+//   puis un Room.tick() complet : collisions, encodage des snapshots, AOI et mise en file d'envoi.
+//   Les joueurs font des allers-retours autour du départ (déplacements réussis et chocs contre
+//   les murs) : personne n'atteint la sortie, donc pas de nouvelle manche pendant la mesure.
+//   Tous sont proches les uns des autres : c'est le pire cas pour l'AOI (début de manche).
+//   replay=true : la salle enregistre aussi la manche (ReplayRecorder) dans un dossier temporaire.
+// - encodeSnapshot : l'encodage seul d'un snapshot de "players" entrées (ancien broadcastPosition).
+//
+// Les paquets partent réellement (thread udp-send) vers un socket local jamais lu.
+// Les ticks s'enchaînent bien plus vite qu'en jeu : la limite de débit par joueur (InputLimiter)
+// est relevée pour que chaque MOVE arrive jusqu'au tick, comme à 30 Hz.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dmaze.inputsPerTick=100000")
+@State(Scope.Benchmark)
+public class TickBenchmark {
+
+    @Param({"16", "128", "1024"})
+    public int players;
+
+    @Param({"61"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean replay;
+
+    private UdpPipeline udp;
+    private DatagramChannel sink;
+    private InetSocketAddress from;
+    private Room room;
+    private ReplayWriter replays;
+    private Path replayDir;
+    private int[] ids;
+    private int[] tokens;
+    private int step;
+
+    private final ByteBuffer packet = ByteBuffer.allocate(Protocol.MOVE_SIZE);
+    private final Protocol.Move move = new Protocol.Move();
+    private final SnapshotWriter writer = new SnapshotWriter();
+
+    @Setup
+    public void setup() throws IOException {
+        sink = DatagramChannel.open();
+        sink.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        from = (InetSocketAddress) sink.getLocalAddress();
+
+        udp = new UdpPipeline(0, 1);
+        udp.start(() -> (in, sender) -> { });
+        ServerMetrics metrics = new ServerMetrics();
+        if (replay) {
+            replayDir = Files.createTempDirectory("maze-replay");
+            replays = new ReplayWriter(replayDir, metrics);
+        }
+        room = new Room(0, "bench", size, udp, metrics, replays);
+        ids = new int[players];
+        tokens = new int[players];
+        for (int p = 0; p < players; p++) {
+            ids[p] = room.join("bench-" + p);
+            tokens[p] = room.sessionToken(ids[p]);
+            send(p, Protocol.DIR_NONE, 1); // adresse connue : le JOIN et le snapshot complet sont faits ici
+        }
+        room.tick();
+        step = 1;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        room.stop();
+        udp.close();
+        if (replays != null) {
+            replays.close();
+            try (Stream<Path> files = Files.list(replayDir)) {
+                for (Path file : (Iterable<Path>) files::iterator) Files.delete(file);
+            }
+            Files.delete(replayDir);
+        }
+        sink.close();
+        System.out.println("\n[bench] envois abandonnés (file pleine) : " + udp.droppedSends());
+    }
+
+    private void send(int p, int dir, int seq) {
+        packet.clear();
+        Protocol.writeMove(packet, 0, ids[p], tokens[p], dir, seq);
+        packet.flip();
+        if (Protocol.readMove(packet, move)) room.onMove(move, from);
+    }
+
+    @Benchmark
+    public void tick() {
+        step++;
+        boolean forward = (step & 1) == 0;
+        for (int p = 0; p < players; p++) {
+            // Moitié des joueurs en horizontal, moitié en vertical, un pas aller puis un pas retour
+            int dir = (p & 1) == 0
+                    ? (forward ? Protocol.DIR_RIGHT : Protocol.DIR_LEFT)
+                    : (forward ? Protocol.DIR_DOWN : Protocol.DIR_UP);
+            send(p, dir, step & 0xFFFF);
+        }
+        room.tick();
+    }
+
+    @Benchmark
+    public int encodeSnapshot() {
+        writer.begin(0, step++, 0);
+        for (int p = 0; p < players; p++) {
+            writer.add(ids[p], p & 63, p >> 6, step & 0xFFFF);
+        }
+        return writer.finish();
+    }
+}
@@ -42,6 +42,27 @@ def send(direction):
     sock.sendto(msg.encode("utf-8"), (SERVER_IP, UDP_PORT))
 
 
+def ask_hint(timeout=0.05):
+    """Ask the server which way the exit is. Returns a direction, or None if no answer."""
+    sock.sendto(f"HINT;{BOT_ID}".encode("utf-8"), (SERVER_IP, UDP_PORT))
+    deadline = time.time() + timeout
+    while True:
+        remaining = deadline - time.time()
+        if remaining <= 0:
+            return None
+        sock.settimeout(remaining)
+        try:
+            data, _ = sock.recvfrom(2048)
+        except socket.timeout:
+            return None
+        # The server also sends us binary snapshots: only keep the text answer "HINT;<DIR>;<distance>"
+        if data.startswith(b"HINT;"):
+            parts = data.decode("utf-8").strip().split(";")
+            if len(parts) == 3 and parts[1] in MOVE_VECTORS:
+                return parts[1]
+            return None
+
+
 def get_next_position(pos, move):
     dx, dy = MOVE_VECTORS[move]
     return (pos[0] + dx, pos[1] + dy)
@@ -52,6 +73,16 @@ try:
 
         visited.add(current_pos)
 
+        # The server knows the shortest path: ask first, explore blindly only without an answer
+        hinted = ask_hint()
+        if hinted:
+            send(hinted)
+            print(f"[BOT] {hinted} (hint)")
+            current_pos = get_next_position(current_pos, hinted)
+            last_move = hinted
+            time.sleep(0.03)
+            continue
+
         # Build list of good moves (unvisited directions)
         good_moves = []
         for m in MOVE_VECTORS:
@@ -0,0 +1,93 @@
+package client;
+
+import common.Constants;
+import javax.swing.JTextArea;
+import javax.swing.text.BadLocationException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Zone de chat : les lignes arrivent de n'importe quel thread (JMS, UDP) et ne touchent jamais
+// la JTextArea directement. post() les met dans une file bornée ; flushTo(), appelé par le timer
+// d'affichage sur l'EDT, les ajoute en une seule fois par frame. Le texte affiché est le contenu
+// d'un anneau de CHAT_SCROLLBACK lignes : les plus anciennes sont retirées du document au fil de
+// l'eau, il ne grandit donc plus sans limite. Sous une avalanche (plus de lignes dans la frame
+// que l'anneau n'en contient) seules les dernières sont affichées, et la file pleine jette les
+// suivantes en les comptant.
+final class ChatLog {
+
+    private static final int QUEUE = 1024;
+
+    private final ArrayBlockingQueue<String> incoming = new ArrayBlockingQueue<>(QUEUE);
+    private final AtomicInteger dropped = new AtomicInteger();
+
+    // --- EDT ---
+    private final String[] lines;
+    private int head;  // plus ancienne ligne
+    private int count;
+    private int shown; // lignes actuellement dans le document
+    private final StringBuilder batch = new StringBuilder();
+
+    ChatLog() {
+        this(Constants.CHAT_SCROLLBACK);
+    }
+
+    ChatLog(int scrollback) {
+        lines = new String[Math.max(1, scrollback)];
+    }
+
+    // N'importe quel thread, ne bloque jamais
+    void post(String line) {
+        if (!incoming.offer(line)) dropped.incrementAndGet();
+    }
+
+    // EDT, une fois par frame : rien à faire (ni mise en page) sans nouvelle ligne
+    void flushTo(JTextArea area) {
+        int added = 0;
+        String line;
+        while ((line = incoming.poll()) != null) {
+            push(line);
+            added++;
+        }
+        int lost = dropped.getAndSet(0); // jetés file pleine, donc après ceux de la file
+        if (lost > 0) {
+            push("(" + lost + " messages ignorés)");
+            added++;
+        }
+        if (added == 0) return;
+        if (added >= lines.length) {
+            rebuild(area); // tout l'anneau a été remplacé pendant la frame
+        } else {
+            batch.setLength(0);
+            for (int i = count - added; i < count; i++) batch.append(lines[(head + i) % lines.length]).append('\n');
+            area.append(batch.toString());
+            int evicted = shown + added - count; // lignes sorties de l'anneau : encore au début du document
+            if (evicted > 0) {
+                try {
+                    area.replaceRange("", 0, area.getLineStartOffset(evicted));
+                } catch (BadLocationException e) {
+                    rebuild(area); // document modifié ailleurs : on repart de l'anneau
+                }
+            }
+        }
+        shown = count;
+        area.setCaretPosition(area.getDocument().getLength()); // défilement automatique
+    }
+
+    // Un seul setText, tout le contenu de l'anneau
+    private void rebuild(JTextArea area) {
+        batch.setLength(0);
+        for (int i = 0; i < count; i++) batch.append(lines[(head + i) % lines.length]).append('\n');
+        area.setText(batch.toString());
+    }
+
+    // Une entrée = une ligne du document (sinon le décompte des lignes à retirer serait faux)
+    private void push(String line) {
+        if (line.indexOf('\n') >= 0 || line.indexOf('\r') >= 0) line = line.replace('\n', ' ').replace('\r', ' ');
+        if (count < lines.length) {
+            lines[(head + count++) % lines.length] = line;
+        } else {
+            lines[head] = line;
+            head = (head + 1) % lines.length;
+        }
+    }
+}
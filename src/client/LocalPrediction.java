@@ -0,0 +1,86 @@
+package client;
+
+import common.Protocol;
+
+// Prédiction côté client du joueur local.
+// Chaque entrée est appliquée tout de suite sur la copie locale du labyrinthe et gardée
+// (numéro de séquence + direction) jusqu'à ce que le serveur l'acquitte dans un snapshot.
+// À chaque position serveur : on repart de la position acquittée et on rejoue les entrées
+// non acquittées. Si le résultat diffère de la prédiction, c'est une correction.
+// Entre l'annonce d'une nouvelle manche et l'arrivée de son labyrinthe, la prédiction est suspendue :
+// on ne joue ni ne rejoue rien sur les murs de la manche précédente.
+class LocalPrediction {
+
+    private static final int CAPACITY = 128; // puissance de 2
+
+    private final int[] pendingSeq = new int[CAPACITY];
+    private final int[] pendingDir = new int[CAPACITY];
+    private int head;  // plus ancienne entrée non acquittée
+    private int count;
+
+    private int x = 1;
+    private int y = 1;
+
+    private boolean suspended;
+    private int round; // manche annoncée par le dernier suspend()
+
+    // EDT : nouvelle entrée du joueur ; false (entrée refusée, à ne pas envoyer) si la prédiction est suspendue
+    synchronized boolean apply(int seq, int dir, int[][] maze) {
+        if (suspended) return false;
+        if (count == CAPACITY) { // le serveur ne répond plus : on oublie la plus ancienne
+            head = (head + 1) & (CAPACITY - 1);
+            count--;
+        }
+        int i = (head + count) & (CAPACITY - 1);
+        pendingSeq[i] = seq;
+        pendingDir[i] = dir;
+        count++;
+        step(dir, maze);
+        return true;
+    }
+
+    // Thread réseau : position autoritaire du serveur après l'entrée ackSeq.
+    // Renvoie true si la prédiction a dû être corrigée.
+    synchronized boolean reconcile(int serverX, int serverY, int ackSeq, int[][] maze) {
+        if (suspended) return false; // on reste au départ jusqu'au nouveau labyrinthe
+        while (count > 0 && !Protocol.isNewer(pendingSeq[head], ackSeq)) {
+            head = (head + 1) & (CAPACITY - 1);
+            count--;
+        }
+        int predictedX = x, predictedY = y;
+        x = serverX;
+        y = serverY;
+        for (int k = 0; k < count; k++) {
+            step(pendingDir[(head + k) & (CAPACITY - 1)], maze);
+        }
+        return x != predictedX || y != predictedY;
+    }
+
+    // Nouvelle manche : retour au départ, les anciennes entrées n'ont plus de sens, et plus rien
+    // n'est prédit avant resume() de cette même manche
+    synchronized void suspend(int newRound, int startX, int startY) {
+        x = startX;
+        y = startY;
+        count = 0;
+        suspended = true;
+        round = newRound;
+    }
+
+    // Labyrinthe de la manche installé ; sans effet si une manche plus récente a été annoncée entre-temps
+    synchronized void resume(int loadedRound) {
+        if (loadedRound == round) suspended = false;
+    }
+
+    synchronized int x() { return x; }
+    synchronized int y() { return y; }
+
+    // Mêmes règles de collision que le serveur (Room.applyMove)
+    private void step(int dir, int[][] maze) {
+        int newX = x + Protocol.dx(dir);
+        int newY = y + Protocol.dy(dir);
+        if (newX >= 0 && newX < maze.length && newY >= 0 && newY < maze.length && maze[newX][newY] != 1) {
+            x = newX;
+            y = newY;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package client;
+
+import common.EncodedMaze;
+import common.MazeCodec;
+import common.MazeInfo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+// Cache disque des labyrinthes déjà téléchargés, indexé par hash de contenu (~/.maze-cache/<hash>.maze).
+// Si le serveur annonce un hash connu, le client ne télécharge rien.
+class MazeCache {
+
+    private final File dir;
+
+    MazeCache() {
+        this(new File(System.getProperty("user.home"), ".maze-cache"));
+    }
+
+    MazeCache(File dir) {
+        this.dir = dir;
+    }
+
+    // Renvoie la grille en cache, ou null si absente/corrompue (ou hash invalide)
+    int[][] load(MazeInfo info) {
+        File file = fileFor(info.getHash());
+        if (file == null || !file.isFile()) return null;
+        try {
+            byte[] data = Files.readAllBytes(file.toPath());
+            return new EncodedMaze(info.getSize(), info.getEncoding(), info.getHash(), data).toGrid();
+        } catch (IOException | IllegalArgumentException e) {
+            file.delete(); // Le hash ne correspond plus : on retéléchargera
+            return null;
+        }
+    }
+
+    void store(EncodedMaze maze) {
+        File file = fileFor(maze.getHash());
+        if (file == null) return; // rien n'est écrit avant la vérification du hash
+        try {
+            if (!dir.isDirectory() && !dir.mkdirs()) return;
+            File tmp = new File(dir, file.getName() + ".tmp");
+            Files.write(tmp.toPath(), maze.getData());
+            if (!tmp.renameTo(file)) tmp.delete();
+        } catch (IOException e) {
+            System.out.println("[CACHE] Impossible d'enregistrer le labyrinthe : " + e.getMessage());
+        }
+    }
+
+    // null si le hash est invalide. Il vient du serveur : uniquement de l'hexadécimal (SHA-256, voir
+    // MazeCodec.hash), pour que le fichier et son .tmp restent dans le dossier du cache
+    private File fileFor(String hash) {
+        if (hash == null || !hash.matches("[0-9a-f]{64}")) return null;
+        return new File(dir, hash + "." + MazeCodec.ENCODING);
+    }
+}
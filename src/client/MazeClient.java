@@ -8,93 +8,160 @@ import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.*;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import javax.jms.*;
 
 public class MazeClient extends JFrame {
 
     private IGameService server;
     private int myId;
-    private int[][] maze;
-    private Map<Integer, Point> otherPlayers = new HashMap<>();
+    private int roomId;
+    private String roomName;
+    private int sessionToken; // à joindre à chaque paquet UDP (LoginTicket)
+    private volatile int mazeRound = 0; // manche courante de la salle (voir en-tête des snapshots)
+    private volatile int[][] maze;
+    private final WorldBuffer otherPlayers = new WorldBuffer(); // écrit par le thread UDP, lu par l'EDT
+    private final LocalPrediction me = new LocalPrediction(); // notre joueur, affiché sans attendre le serveur
+    // Rechargement du labyrinthe à chaque manche, un seul thread pour toute la partie
+    private final ScheduledExecutorService mazeLoader = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "maze-loader");
+        t.setDaemon(true);
+        return t;
+    });
     private int currentMazeSize;
     private DatagramSocket udpSocket;
     private InetAddress serverAddress;
+    private int udpPort; // celui du nœud qui héberge la salle
 
     private Session jmsSession;
     private MessageProducer chatProducer;
 
-    private JPanel gamePanel;
+    private MazePanel gamePanel;
     private JTextArea chatArea;
+    private final ChatLog chatLog = new ChatLog(); // tous les threads y écrivent, l'EDT l'affiche
     private JTextField chatInput;
 
-    // --- COULEURS DU DESIGN ---
-    private final Color WALL_COLOR = new Color(44, 62, 80);    // Bleu nuit foncé
-    private final Color FLOOR_COLOR = new Color(236, 240, 241); // Blanc cassé
-    private final Color MY_PLAYER_COLOR = new Color(52, 152, 219); // Bleu clair
-    private final Color OTHER_PLAYER_COLOR = new Color(231, 76, 60); // Rouge
-    private final Color EXIT_COLOR = new Color(46, 204, 113); // Vert émeraude
-
-    public MazeClient(String username) {
-        super("Labyrinthe Distribué - " + username);
+    public MazeClient(String username, String roomName) {
+        super("Labyrinthe Distribué - " + username + " (salle " + roomName + ")");
         try {
             Registry registry = LocateRegistry.getRegistry(Constants.SERVER_IP, Constants.RMI_PORT);
             server = (IGameService) registry.lookup(Constants.RMI_ID);
 
-            // 1. D'abord, on demande la taille du labyrinthe
-            // Dans le constructeur, remplacez les appels getMaze/getMazeSize par :
-            MazeState state = server.getMazeState();
-            this.currentMazeSize = state.getSize();
-            this.maze = state.getGrid();
-            System.out.println("Mode de jeu : " + state.getDifficultyName()); // Preuve d'objet complexe
+            // 1. D'abord, on rejoint la salle (créée par le serveur si besoin)
+            LoginTicket ticket = server.login(username, roomName);
+            myId = ticket.getPlayerId();
+            roomId = ticket.getRoomId();
+            this.roomName = ticket.getRoomName();
+            sessionToken = ticket.getSessionToken();
+            // Derrière un lobby : UDP et appels RMI de la salle directement au nœud qui l'héberge
+            String nodeHost = ticket.nodeHostOr(Constants.SERVER_IP);
+            udpPort = ticket.getNodeUdpPort();
+            if (!nodeHost.equals(Constants.SERVER_IP) || ticket.getNodeRmiPort() != Constants.RMI_PORT) {
+                try {
+                    server = (IGameService) LocateRegistry.getRegistry(nodeHost, ticket.getNodeRmiPort()).lookup(Constants.RMI_ID);
+                } catch (Exception e) {
+                    System.out.println("Nœud " + nodeHost + ":" + ticket.getNodeRmiPort() + " injoignable en RMI, passage par le lobby");
+                }
+            }
 
-            // 2. Ensuite on se connecte et on récupère le labyrinthe
-            myId = server.login(username);
+            // 2. Ensuite on récupère son labyrinthe (depuis le cache local si le hash est connu)
+            loadMaze();
 
 
             // ... reste du code (UDP, JMS) ...
-            otherPlayers.put(myId, new Point(1, 1));
             udpSocket = new DatagramSocket();
-            serverAddress = InetAddress.getByName(Constants.SERVER_IP);
+            serverAddress = InetAddress.getByName(nodeHost);
             startUdpListener();
             setupJMS(username);
 
             initGUI(); // initGUI utilisera currentMazeSize maintenant
-            sendMove("NONE");
+            // Premier paquet (le serveur apprend notre adresse) : sendMove touche à la prédiction et
+            // appelle gamePanel.frame(), donc sur l'EDT comme les coups clavier
+            SwingUtilities.invokeLater(() -> sendMove(Protocol.DIR_NONE));
 
         } catch (Exception e) { /* ... */ }
     }
 
+    private void loadMaze() throws java.rmi.RemoteException {
+        MazeInfo info;
+        try {
+            info = server.getMazeInfo(roomId);
+        } catch (java.rmi.RemoteException e) {
+            // Ancien serveur sans getMazeInfo : transfert complet de l'objet MazeState
+            MazeState state = server.getMazeState();
+            this.currentMazeSize = state.getSize();
+            this.maze = state.getGrid();
+            System.out.println("Mode de jeu : " + state.getDifficultyName()); // Preuve d'objet complexe
+            return;
+        }
+        this.currentMazeSize = info.getSize();
+        System.out.println("Mode de jeu : " + info.getDifficultyName());
+
+        MazeCache cache = new MazeCache();
+        int[][] cached = cache.load(info); // variable locale : maze n'est jamais null pour l'affichage
+        if (cached != null) {
+            this.maze = cached;
+            System.out.println("[CACHE] Labyrinthe " + info.getHash().substring(0, 12) + " déjà connu, pas de téléchargement.");
+            return;
+        }
+        EncodedMaze encoded = server.getEncodedMaze(roomId);
+        this.maze = encoded.toGrid();
+        cache.store(encoded);
+        System.out.println("[CACHE] Labyrinthe téléchargé (" + encoded.getData().length + " octets).");
+    }
+
+    private void reloadMaze(int round) {
+        if (round != mazeRound) return; // une manche plus récente a déjà sa propre demande
+        try {
+            loadMaze(); // MazePanel voit la nouvelle grille à la frame suivante et refait son fond
+        } catch (java.rmi.RemoteException e) {
+            e.printStackTrace();
+            mazeLoader.schedule(() -> reloadMaze(round), 1, TimeUnit.SECONDS); // prédiction toujours suspendue
+            return;
+        }
+        me.resume(round);
+    }
+
     private void initGUI() {
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLayout(new BorderLayout());
 
         // --- ZONE DE JEU AMÉLIORÉE ---
-        gamePanel = new JPanel() {
+        // Fond pré-rendu + joueurs, dans un JScrollPane pour les labyrinthes plus grands que l'écran
+        gamePanel = new MazePanel(new MazePanel.Scene() {
+            @Override
+            public int[][] maze() { return maze; }
+
             @Override
-            protected void paintComponent(Graphics g) {
-                super.paintComponent(g);
-                drawBeautifulMaze((Graphics2D) g); // Utilisation de Graphics2D
+            public void sprites(long now, MazePanel.SpriteSink out) {
+                // Les autres à leur position interpolée, nous-mêmes à la position prédite
+                otherPlayers.sprites(now, out);
+                out.sprite(myId, me.x(), me.y(), true);
             }
-        };
-        // Calculer la taille idéale de la fenêtre
-        int dim = currentMazeSize * Constants.CELL_SIZE;
-        gamePanel.setPreferredSize(new Dimension(dim, dim));
-        gamePanel.setFocusable(true);
-        gamePanel.setBackground(WALL_COLOR); // Fond par défaut
+        });
 
         gamePanel.addKeyListener(new KeyAdapter() {
             @Override
             public void keyPressed(KeyEvent e) {
-                if (e.getKeyCode() == KeyEvent.VK_UP) sendMove("UP");
-                if (e.getKeyCode() == KeyEvent.VK_DOWN) sendMove("DOWN");
-                if (e.getKeyCode() == KeyEvent.VK_LEFT) sendMove("LEFT");
-                if (e.getKeyCode() == KeyEvent.VK_RIGHT) sendMove("RIGHT");
+                if (e.getKeyCode() == KeyEvent.VK_UP) sendMove(Protocol.DIR_UP);
+                if (e.getKeyCode() == KeyEvent.VK_DOWN) sendMove(Protocol.DIR_DOWN);
+                if (e.getKeyCode() == KeyEvent.VK_LEFT) sendMove(Protocol.DIR_LEFT);
+                if (e.getKeyCode() == KeyEvent.VK_RIGHT) sendMove(Protocol.DIR_RIGHT);
+                if (e.getKeyCode() == KeyEvent.VK_H) requestHint(); // Indice : direction de la sortie
+                if (e.getKeyCode() >= KeyEvent.VK_LEFT && e.getKeyCode() <= KeyEvent.VK_DOWN) {
+                    e.consume(); // Les flèches déplacent le joueur, pas le JScrollPane
+                }
             }
         });
+        JScrollPane gameScroll = new JScrollPane(gamePanel);
+        gameScroll.setBorder(null);
+        gameScroll.getViewport().setBackground(MazePanel.WALL_COLOR);
 
         // --- ZONE DE CHAT STYLISÉE ---
         JPanel chatPanel = new JPanel(new BorderLayout());
@@ -115,93 +182,191 @@ public class MazeClient extends JFrame {
         chatPanel.add(scroll, BorderLayout.CENTER);
         chatPanel.add(chatInput, BorderLayout.SOUTH);
 
-        add(gamePanel, BorderLayout.CENTER);
+        add(gameScroll, BorderLayout.CENTER);
         add(chatPanel, BorderLayout.SOUTH);
 
         pack();
+        // Jamais plus grand que l'écran : au-delà, on fait défiler
+        Rectangle screen = GraphicsEnvironment.getLocalGraphicsEnvironment().getMaximumWindowBounds();
+        setSize(Math.min(getWidth(), screen.width), Math.min(getHeight(), screen.height));
         setLocationRelativeTo(null); // Centrer à l'écran
         setVisible(true);
         gamePanel.requestFocus();
-    }
 
-    private void drawBeautifulMaze(Graphics2D g2) {
-        // Activer l'antialiasing pour des cercles lisses
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        // Dessiner le sol et les murs
-        for (int i = 0; i < currentMazeSize; i++) {
-            for (int j = 0; j < currentMazeSize; j++) {
-                int x = i * Constants.CELL_SIZE;
-                int y = j * Constants.CELL_SIZE;
-
-                if (maze[i][j] == 0) {
-                    // Sol (Chemin)
-                    g2.setColor(FLOOR_COLOR);
-                    g2.fillRect(x, y, Constants.CELL_SIZE, Constants.CELL_SIZE);
-                } else if (maze[i][j] == 9) {
-                    // Sortie (Exit) - Effet brillant
-                    g2.setColor(EXIT_COLOR);
-                    g2.fillRect(x, y, Constants.CELL_SIZE, Constants.CELL_SIZE);
-                    g2.setColor(Color.WHITE);
-                    g2.setStroke(new BasicStroke(2));
-                    g2.drawRect(x+2, y+2, Constants.CELL_SIZE-4, Constants.CELL_SIZE-4);
-                }
-                // Les murs (1) sont déjà la couleur de fond (WALL_COLOR) pour optimiser
+        // Présence : sans paquet pendant IDLE_TIMEOUT_SECONDS le serveur nous retire, donc un joueur
+        // immobile envoie un HEARTBEAT ; à la fermeture, la place est rendue tout de suite (leave)
+        new javax.swing.Timer(Constants.HEARTBEAT_SECONDS * 1000, e -> sendHeartbeatIfIdle()).start();
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                try {
+                    server.leave(roomId, myId, sessionToken);
+                } catch (java.rmi.RemoteException ignored) {} // serveur parti : il nous oubliera de lui-même
             }
-        }
+        });
+
+        // Boucle d'affichage à la cadence de l'écran : les paquets UDP ne déclenchent plus de repaint,
+        // chaque frame ne redessine que les cases où un joueur a bougé
+        new javax.swing.Timer(1000 / MazePanel.refreshRate(), e -> {
+            gamePanel.frame();
+            chatLog.flushTo(chatArea); // chat et annonces : une seule mise à jour par frame
+        }).start();
+    }
 
-        // Dessiner les joueurs (Ronds avec bordures blanches)
-        for (Map.Entry<Integer, Point> entry : otherPlayers.entrySet()) {
-            Point p = entry.getValue();
-            int px = p.x * Constants.CELL_SIZE;
-            int py = p.y * Constants.CELL_SIZE;
+    // Paquet MOVE binaire réutilisé (appelé uniquement depuis l'EDT)
+    private final byte[] moveBuffer = new byte[Protocol.MOVE_SIZE];
+    private final ByteBuffer moveOut = ByteBuffer.wrap(moveBuffer);
+    private DatagramPacket movePacket;
+    private int moveSeq = 0;
 
-            if (entry.getKey() == myId) {
-                g2.setColor(MY_PLAYER_COLOR);
-            } else {
-                g2.setColor(OTHER_PLAYER_COLOR);
+    private void sendMove(int dir) {
+        try {
+            if (movePacket == null) {
+                movePacket = new DatagramPacket(moveBuffer, moveBuffer.length, serverAddress, udpPort);
             }
+            int seq = (moveSeq + 1) & 0xFFFF;
+            if (seq == 0) seq = 1; // 0 = coup non numéroté (client texte) pour le serveur
+            // Prédiction : le coup est joué tout de suite, le serveur confirmera (ou corrigera).
+            // Labyrinthe de la nouvelle manche pas encore arrivé : le coup est ignoré
+            if (!me.apply(seq, dir, maze)) return;
+            moveSeq = seq;
+            gamePanel.frame(); // Affiché immédiatement, sans attendre la frame suivante
+            moveOut.clear();
+            Protocol.writeMove(moveOut, roomId, myId, sessionToken, dir, moveSeq);
+            udpSocket.send(movePacket);
+            lastSent = System.nanoTime();
+        } catch (Exception e) { e.printStackTrace(); }
+    }
 
-            // Cercle du joueur
-            g2.fillOval(px + 2, py + 2, Constants.CELL_SIZE - 4, Constants.CELL_SIZE - 4);
+    // Demande d'indice : le serveur répond par un paquet OP_HINT (direction + distance de la sortie)
+    private final ByteBuffer hintRequestOut = ByteBuffer.allocate(Protocol.HINT_REQUEST_SIZE);
 
-            // Bordure blanche pour le contraste
-            g2.setColor(Color.WHITE);
-            g2.setStroke(new BasicStroke(1));
-            g2.drawOval(px + 2, py + 2, Constants.CELL_SIZE - 4, Constants.CELL_SIZE - 4);
-        }
+    private void requestHint() {
+        try {
+            hintRequestOut.clear();
+            Protocol.writeHintRequest(hintRequestOut, roomId, myId, sessionToken);
+            udpSocket.send(new DatagramPacket(hintRequestOut.array(), hintRequestOut.position(), serverAddress, udpPort));
+            lastSent = System.nanoTime();
+        } catch (Exception e) { e.printStackTrace(); }
     }
 
-    private void sendMove(String dir) {
+    // HEARTBEAT seulement si rien n'est parti depuis un intervalle (EDT, timer)
+    private final ByteBuffer heartbeatOut = ByteBuffer.allocate(Protocol.HEARTBEAT_SIZE);
+    private volatile long lastSent = System.nanoTime();
+
+    private void sendHeartbeatIfIdle() {
+        if (System.nanoTime() - lastSent < (Constants.HEARTBEAT_SECONDS * 1_000_000_000L) * 9 / 10) return;
         try {
-            String msg = "MOVE;" + myId + ";" + dir;
-            byte[] data = msg.getBytes();
-            DatagramPacket packet = new DatagramPacket(data, data.length, serverAddress, Constants.UDP_PORT);
-            udpSocket.send(packet);
+            heartbeatOut.clear();
+            Protocol.writeHeartbeat(heartbeatOut, roomId, myId, sessionToken);
+            udpSocket.send(new DatagramPacket(heartbeatOut.array(), heartbeatOut.position(), serverAddress, udpPort));
+            lastSent = System.nanoTime();
         } catch (Exception e) { e.printStackTrace(); }
     }
 
+    private static final String[] DIR_NAMES = {"aucune", "haut", "bas", "gauche", "droite"};
+
+    private void showHint(Protocol.Hint hint) {
+        if (hint.round != mazeRound) return; // Indice d'une manche précédente
+        String text = hint.distance < 0 ? "pas de chemin vers la sortie"
+                : hint.distance == 0 ? "vous êtes sur la sortie !"
+                : DIR_NAMES[hint.dir] + " (sortie à " + hint.distance + " cases)";
+        chatLog.post("[INDICE] " + text);
+    }
+
     private void startUdpListener() {
         new Thread(() -> {
             try {
-                byte[] buffer = new byte[1024];
+                byte[] buffer = new byte[Protocol.MAX_PACKET_SIZE];
+                ByteBuffer in = ByteBuffer.wrap(buffer);
+                DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                Protocol.Pos pos = new Protocol.Pos();
+                Protocol.Hint hint = new Protocol.Hint();
+                Protocol.Reliable message = new Protocol.Reliable();
+                boolean anySnapshot = false;
+                int lastTick = 0;
                 while (true) {
-                    DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                    packet.setLength(buffer.length);
                     udpSocket.receive(packet);
-                    String msg = new String(packet.getData(), 0, packet.getLength());
-                    String[] parts = msg.split(";");
-                    if (parts[0].equals("POS")) {
-                        int id = Integer.parseInt(parts[1]);
-                        int x = Integer.parseInt(parts[2]);
-                        int y = Integer.parseInt(parts[3]);
-                        otherPlayers.put(id, new Point(x, y));
-                        gamePanel.repaint(); // Redessiner fluidement
+                    in.limit(packet.getLength()).position(0);
+                    if (Protocol.readReliable(in, message)) {
+                        if (Protocol.roomId(in) == roomId && message.playerId == myId) onReliable(message, buffer);
+                        continue;
                     }
+                    if (Protocol.readHint(in, hint)) {
+                        if (Protocol.roomId(in) == roomId) showHint(hint);
+                        continue;
+                    }
+                    // Un snapshot par tick serveur : tous les joueurs qui ont bougé
+                    int count = Protocol.readSnapshot(in);
+                    if (count < 0 || Protocol.roomId(in) != roomId) continue;
+                    // Positions non fiables, la plus récente gagne : un snapshot doublé en route est ignoré
+                    // (plusieurs paquets peuvent porter le même tick, d'où le "<")
+                    int tick = Protocol.snapshotTick(in);
+                    if (anySnapshot && tick - lastTick < 0) continue;
+                    anySnapshot = true;
+                    lastTick = tick;
+                    onRound(Protocol.snapshotRound(in));
+                    long now = System.nanoTime();
+                    for (int i = 0; i < count; i++) {
+                        Protocol.readSnapshotEntry(in, i, pos);
+                        if (pos.playerId == myId) {
+                            // Réconciliation : position serveur + rejeu des coups pas encore acquittés
+                            if (me.reconcile(pos.x, pos.y, pos.seq, maze)) {
+                                System.out.println("[PREDICTION] Correction serveur -> (" + me.x() + "," + me.y() + ")");
+                            }
+                            continue;
+                        }
+                        otherPlayers.moveTo(pos.playerId, pos.x, pos.y, now);
+                    }
+                    otherPlayers.publish(); // un seul échange par snapshot
                 }
             } catch (Exception e) { e.printStackTrace(); }
         }).start();
     }
 
+    // --- CANAL FIABLE (victoire, nouvelle manche, entrée dans la salle) ---
+    private final ReliableReceiver reliable = new ReliableReceiver();
+    private final ByteBuffer ackOut = ByteBuffer.allocate(Protocol.ACK_SIZE);
+
+    // Thread d'écoute UDP : remise dans l'ordre puis acquittement (même pour un doublon)
+    private void onReliable(Protocol.Reliable message, byte[] buffer) throws java.io.IOException {
+        reliable.receive(message.seq, message.kind, buffer, message.payloadOffset, message.payloadLength,
+                this::deliverReliable);
+        ackOut.clear();
+        Protocol.writeAck(ackOut, roomId, myId, sessionToken, reliable.ack(), reliable.ackBits());
+        udpSocket.send(new DatagramPacket(ackOut.array(), ackOut.position(), serverAddress, udpPort));
+    }
+
+    private void deliverReliable(int kind, byte[] data, int offset, int length) {
+        ByteBuffer payload = ByteBuffer.wrap(data, offset, length);
+        int round = length >= 2 ? payload.getShort() & 0xFFFF : mazeRound;
+        if (kind == Protocol.KIND_WIN && length >= 3) {
+            int seconds = payload.get() & 0xFF;
+            String winner = new String(data, offset + 3, length - 3, StandardCharsets.UTF_8);
+            chatLog.post(">>> VICTOIRE ! Le joueur " + winner + " a trouvé la sortie ! (nouvelle manche dans "
+                    + seconds + " s)");
+        } else if (kind == Protocol.KIND_ROUND) {
+            onRound(round);
+            chatLog.post(">>> Nouvelle manche !");
+        } else if (kind == Protocol.KIND_JOINED) {
+            onRound(round);
+        } else if (kind == Protocol.KIND_LEFT) {
+            for (int i = 0; i + Protocol.LEFT_ENTRY_SIZE <= length; i += Protocol.LEFT_ENTRY_SIZE) { // liste d'identifiants (pas de manche ici)
+                otherPlayers.remove(((data[offset + i] & 0xFF) << 8) | (data[offset + i + 1] & 0xFF));
+            }
+            otherPlayers.publish();
+        }
+    }
+
+    // Manche annoncée par le canal fiable ou par l'en-tête d'un snapshot (le premier arrivé gagne)
+    private void onRound(int round) {
+        if (round == mazeRound) return;
+        mazeRound = round;
+        me.suspend(round, 1, 1); // Tout le monde repart du départ, sans prédiction jusqu'au nouveau labyrinthe
+        mazeLoader.execute(() -> reloadMaze(round)); // Nouvelle manche : nouveau labyrinthe
+    }
+
     private void setupJMS(String username) throws JMSException {
         ConnectionFactory factory = new ActiveMQConnectionFactory(Constants.BROKER_URL);
 
@@ -211,16 +376,16 @@ public class MazeClient extends JFrame {
 
         jmsSession = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
 
-        Topic chatTopic = jmsSession.createTopic(Constants.CHAT_TOPIC);
-        chatProducer = jmsSession.createProducer(chatTopic);
+        // On écrit au serveur (vérification + limite de débit), qui republie sur le canal global et
+        // sur celui de la salle ; -Dmaze.chatScope=room pour n'écouter que la salle
+        chatProducer = jmsSession.createProducer(jmsSession.createTopic(Constants.CHAT_INBOX_TOPIC));
+        Topic chatTopic = jmsSession.createTopic(Constants.CHAT_SCOPE.equals("room")
+                ? Constants.chatRoomTopic(roomName) : Constants.CHAT_TOPIC);
 
         MessageConsumer chatConsumer = jmsSession.createConsumer(chatTopic);
         chatConsumer.setMessageListener(message -> {
             try {
-                if (message instanceof TextMessage) {
-                    chatArea.append(((TextMessage) message).getText() + "\n");
-                    chatArea.setCaretPosition(chatArea.getDocument().getLength()); // Auto-scroll
-                }
+                if (message instanceof TextMessage) chatLog.post(((TextMessage) message).getText());
             } catch (JMSException e) { e.printStackTrace(); }
         });
 
@@ -228,10 +393,7 @@ public class MazeClient extends JFrame {
         MessageConsumer eventConsumer = jmsSession.createConsumer(eventTopic);
         eventConsumer.setMessageListener(message -> {
             try {
-                if (message instanceof TextMessage) {
-                    chatArea.append(">>> " + ((TextMessage) message).getText() + "\n");
-                    chatArea.setCaretPosition(chatArea.getDocument().getLength());
-                }
+                if (message instanceof TextMessage) chatLog.post(">>> " + ((TextMessage) message).getText());
             } catch (JMSException e) { e.printStackTrace(); }
         });
     }
@@ -239,7 +401,8 @@ public class MazeClient extends JFrame {
     private void sendChatMessage(String text) {
         try {
             if(!text.trim().isEmpty()){
-                TextMessage msg = jmsSession.createTextMessage("[" + myId + "]: " + text);
+                // "salle joueur jeton texte" (voir server.ChatRelay)
+                TextMessage msg = jmsSession.createTextMessage(roomId + " " + myId + " " + sessionToken + " " + text);
                 chatProducer.send(msg);
                 chatInput.setText("");
             }
@@ -247,11 +410,23 @@ public class MazeClient extends JFrame {
     }
 
     public static void main(String[] args) {
+        // Relecture d'une manche enregistrée : --replay <fichier.mzr> [vitesse]
+        if (args.length >= 2 && args[0].equals("--replay")) {
+            ReplayViewer.open(args[1], args.length >= 3 ? Double.parseDouble(args[2]) : 1);
+            return;
+        }
+        // Spectateur d'une salle existante : --spectate <salle> [relais hôte:port]
+        if (args.length >= 2 && args[0].equals("--spectate")) {
+            SpectatorViewer.open(args[1], args.length >= 3 ? args[2] : null);
+            return;
+        }
         String name = JOptionPane.showInputDialog("Entrez votre pseudo:");
         if (name != null && !name.isEmpty()) {
+            String room = JOptionPane.showInputDialog("Salle à rejoindre (créée si elle n'existe pas) :", "main");
+            if (room == null || room.trim().isEmpty()) room = "main";
             // Activer l'accélération matérielle pour la fluidité
             System.setProperty("sun.java2d.opengl", "true");
-            new MazeClient(name);
+            new MazeClient(name, room.trim());
         } else {
             System.exit(0);
         }
@@ -0,0 +1,274 @@
+package client;
+
+import common.Constants;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+// Zone de jeu : le labyrinthe (statique pendant une manche) est dessiné une seule fois dans une
+// image compatible avec l'écran, puis chaque frame ne fait que la recopier et dessiner les joueurs.
+// Le timer d'affichage (cadence de l'écran) appelle frame() : seules les cases quittées/atteintes
+// par un joueur sont redessinées, via repaint(x, y, w, h) que Swing fusionne en un seul paint.
+// Molette + Ctrl ou touches +/- : zoom ; la vue suit notre joueur dans le JScrollPane.
+class MazePanel extends JPanel {
+
+    // Ce que l'on affiche, fourni par MazeClient
+    interface Scene {
+        int[][] maze();
+        void sprites(long now, SpriteSink out); // appelle out.sprite(...) pour chaque joueur visible
+    }
+
+    interface SpriteSink {
+        void sprite(int id, double cellX, double cellY, boolean mine);
+    }
+
+    // --- COULEURS DU DESIGN ---
+    static final Color WALL_COLOR = new Color(44, 62, 80);    // Bleu nuit foncé
+    static final Color FLOOR_COLOR = new Color(236, 240, 241); // Blanc cassé
+    static final Color MY_PLAYER_COLOR = new Color(52, 152, 219); // Bleu clair
+    static final Color OTHER_PLAYER_COLOR = new Color(231, 76, 60); // Rouge
+    static final Color EXIT_COLOR = new Color(46, 204, 113); // Vert émeraude
+
+    // Créés une fois pour toutes (avant : un new BasicStroke par case et par joueur)
+    private static final BasicStroke EXIT_STROKE = new BasicStroke(2);
+    private static final BasicStroke PLAYER_STROKE = new BasicStroke(1);
+
+    private static final double MIN_ZOOM = 0.25;
+    private static final double MAX_ZOOM = 4.0;
+
+    private final Scene scene;
+    private double zoom = 1.0;
+    private int cell = Constants.CELL_SIZE; // taille d'une case à l'écran (zoom compris)
+
+    private int[][] renderedMaze;    // grille correspondant à l'image de fond
+    private BufferedImage background;
+
+    // Case (en pixels) où chaque joueur a été placé lors de la dernière frame, en colonnes comme
+    // WorldBuffer : identifiant -> index, le dernier prend la place d'un partant. Pas d'objet ni de
+    // boxing par joueur et par frame ; les tableaux ne grandissent qu'au-delà du maximum déjà vu.
+    private static final int MAX_IDS = 0x10000; // identifiants UDP sur 16 bits
+    private final int[] indexOfId = new int[MAX_IDS];
+    private int[] ids = new int[256];
+    private int[] spriteX = new int[256];
+    private int[] spriteY = new int[256];
+    private int[] spriteSize = new int[256]; // -1 : à recalculer (zoom)
+    private boolean[] mine = new boolean[256];
+    private int[] seenFrame = new int[256];   // dernière frame où la scène l'a fourni
+    private int spriteCount;
+    private int frameNumber;
+    private final Rectangle myBounds = new Rectangle();
+    private final Rectangle followArea = new Rectangle();
+    private final SpriteSink tracker = this::track; // une seule instance, pas une par frame
+
+    MazePanel(Scene scene) {
+        this.scene = scene;
+        setBackground(WALL_COLOR); // Fond par défaut
+        setOpaque(true);
+        setFocusable(true);
+        Arrays.fill(indexOfId, -1);
+        updatePreferredSize();
+
+        addMouseWheelListener(e -> {
+            if (e.isControlDown()) setZoom(zoom * (e.getWheelRotation() < 0 ? 1.25 : 0.8));
+            else getParent().dispatchEvent(SwingUtilities.convertMouseEvent(this, e, getParent())); // défilement normal
+        });
+        addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (e.getKeyChar() == '+') setZoom(zoom * 1.25);
+                if (e.getKeyChar() == '-') setZoom(zoom * 0.8);
+            }
+        });
+    }
+
+    // --- FRAME (EDT, appelé par le timer d'affichage) ---
+    void frame() {
+        if (scene.maze() != renderedMaze) { // Nouvelle manche : nouvelle image de fond
+            background = null;
+            updatePreferredSize();
+            repaint();
+        }
+        frameNumber++;
+        scene.sprites(System.nanoTime(), tracker);
+        for (int i = spriteCount - 1; i >= 0; i--) {
+            if (seenFrame[i] != frameNumber) { // Joueur disparu : on efface sa dernière position
+                if (spriteSize[i] > 0) repaint(spriteX[i], spriteY[i], spriteSize[i], spriteSize[i]);
+                removeSprite(i);
+            }
+        }
+    }
+
+    private void track(int id, double cellX, double cellY, boolean isMine) {
+        int px = (int) Math.round(cellX * cell);
+        int py = (int) Math.round(cellY * cell);
+        int i = indexOfId[id];
+        if (i < 0) {
+            i = addSprite(id);
+            setSprite(i, px, py);
+            repaint(px, py, cell, cell);
+        } else if (spriteX[i] != px || spriteY[i] != py || spriteSize[i] != cell) {
+            if (spriteSize[i] > 0) repaint(spriteX[i], spriteY[i], spriteSize[i], spriteSize[i]); // ancienne case
+            setSprite(i, px, py);
+            repaint(px, py, cell, cell); // nouvelle case
+        }
+        seenFrame[i] = frameNumber;
+        mine[i] = isMine;
+        if (isMine && (myBounds.x != px || myBounds.y != py || myBounds.width != cell)) {
+            myBounds.setBounds(px, py, cell, cell);
+            followMe();
+        }
+    }
+
+    private void setSprite(int i, int px, int py) {
+        spriteX[i] = px;
+        spriteY[i] = py;
+        spriteSize[i] = cell;
+    }
+
+    private int addSprite(int id) {
+        if (spriteCount == ids.length) {
+            int n = ids.length * 2;
+            ids = Arrays.copyOf(ids, n);
+            spriteX = Arrays.copyOf(spriteX, n);
+            spriteY = Arrays.copyOf(spriteY, n);
+            spriteSize = Arrays.copyOf(spriteSize, n);
+            mine = Arrays.copyOf(mine, n);
+            seenFrame = Arrays.copyOf(seenFrame, n);
+        }
+        int i = spriteCount++;
+        ids[i] = id;
+        indexOfId[id] = i;
+        return i;
+    }
+
+    private void removeSprite(int i) {
+        int last = --spriteCount;
+        indexOfId[ids[i]] = -1;
+        if (i != last) {
+            ids[i] = ids[last];
+            spriteX[i] = spriteX[last];
+            spriteY[i] = spriteY[last];
+            spriteSize[i] = spriteSize[last];
+            mine[i] = mine[last];
+            seenFrame[i] = seenFrame[last];
+            indexOfId[ids[i]] = i;
+        }
+    }
+
+    // Garde notre joueur visible avec quelques cases de marge
+    private void followMe() {
+        if (!(getParent() instanceof JViewport)) return;
+        int margin = 4 * cell;
+        followArea.setBounds(myBounds.x - margin, myBounds.y - margin,
+                myBounds.width + 2 * margin, myBounds.height + 2 * margin);
+        scrollRectToVisible(followArea);
+    }
+
+    // --- DESSIN ---
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        Graphics2D g2 = (Graphics2D) g;
+        if (background == null) renderBackground();
+        if (background != null) g2.drawImage(background, 0, 0, null); // Recopie limitée à la zone à repeindre
+
+        // Dessiner les joueurs (Ronds avec bordures blanches), les autres puis nous par-dessus
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        Rectangle clip = g2.getClipBounds();
+        for (int i = 0; i < spriteCount; i++) {
+            if (!mine[i] && visible(clip, i)) drawPlayer(g2, i, OTHER_PLAYER_COLOR);
+        }
+        for (int i = 0; i < spriteCount; i++) {
+            if (mine[i] && visible(clip, i)) drawPlayer(g2, i, MY_PLAYER_COLOR);
+        }
+    }
+
+    private boolean visible(Rectangle clip, int i) {
+        int size = spriteSize[i];
+        return size > 0 && (clip == null || clip.intersects(spriteX[i], spriteY[i], size, size));
+    }
+
+    private void drawPlayer(Graphics2D g2, int i, Color color) {
+        int x = spriteX[i] + 2, y = spriteY[i] + 2, d = spriteSize[i] - 4;
+        // Cercle du joueur
+        g2.setColor(color);
+        g2.fillOval(x, y, d, d);
+
+        // Bordure blanche pour le contraste
+        g2.setColor(Color.WHITE);
+        g2.setStroke(PLAYER_STROKE);
+        g2.drawOval(x, y, d, d);
+    }
+
+    // Labyrinthe complet, une seule fois par manche et par niveau de zoom
+    private void renderBackground() {
+        int[][] maze = scene.maze();
+        if (maze == null) return;
+        int size = maze.length;
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        background = gc != null
+                ? gc.createCompatibleImage(size * cell, size * cell, Transparency.OPAQUE) // même format que l'écran
+                : new BufferedImage(size * cell, size * cell, BufferedImage.TYPE_INT_RGB);
+        renderedMaze = maze;
+
+        Graphics2D g2 = background.createGraphics();
+        g2.setColor(WALL_COLOR);
+        g2.fillRect(0, 0, size * cell, size * cell);
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int x = i * cell;
+                int y = j * cell;
+
+                if (maze[i][j] == 0) {
+                    // Sol (Chemin)
+                    g2.setColor(FLOOR_COLOR);
+                    g2.fillRect(x, y, cell, cell);
+                } else if (maze[i][j] == 9) {
+                    // Sortie (Exit) - Effet brillant
+                    g2.setColor(EXIT_COLOR);
+                    g2.fillRect(x, y, cell, cell);
+                    g2.setColor(Color.WHITE);
+                    g2.setStroke(EXIT_STROKE);
+                    g2.drawRect(x + 2, y + 2, cell - 4, cell - 4);
+                }
+                // Les murs (1) sont déjà la couleur de fond (WALL_COLOR)
+            }
+        }
+        g2.dispose();
+    }
+
+    // --- ZOOM ---
+    private void setZoom(double newZoom) {
+        zoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, newZoom));
+        int newCell = Math.max(2, (int) Math.round(Constants.CELL_SIZE * zoom));
+        if (newCell == cell) return;
+        cell = newCell;
+        background = null; // Refaite à la nouvelle taille au prochain paint
+        updatePreferredSize();
+        Arrays.fill(spriteSize, 0, spriteCount, -1); // force le recalcul à la prochaine frame
+        myBounds.width = -1;
+        repaint();
+    }
+
+    private void updatePreferredSize() {
+        int[][] maze = scene.maze();
+        int dim = (maze == null ? Constants.MAZE_SIZE : maze.length) * cell;
+        setPreferredSize(new Dimension(dim, dim));
+        revalidate();
+    }
+
+    // Cadence de l'écran principal (60 Hz si inconnue) : inutile de redessiner plus souvent
+    static int refreshRate() {
+        try {
+            int hz = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                    .getDisplayMode().getRefreshRate();
+            return hz > 0 ? hz : 60;
+        } catch (HeadlessException e) {
+            return 60;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package client;
+
+import common.Protocol;
+
+import java.util.Arrays;
+
+// Côté client du canal fiable (voir server.ReliableChannel) :
+// - chaque message RELIABLE reçu est acquitté, même en double (notre ACK précédent a pu se perdre) ;
+// - les messages sont remis dans l'ordre des numéros de séquence : un message arrivé avant
+//   son prédécesseur attend dans un petit tampon (WINDOW messages au plus, au-delà il n'est pas
+//   acquitté et le serveur le renverra) ;
+// - les doublons et les messages déjà remis sont ignorés.
+// Utilisé par le thread d'écoute UDP uniquement.
+final class ReliableReceiver {
+
+    static final int WINDOW = 16; // = fenêtre d'envoi du serveur et nombre de bits de ackBits
+
+    interface Handler {
+        void deliver(int kind, byte[] data, int offset, int length);
+    }
+
+    private int nextExpected = 1; // le serveur commence à 1
+    private int highest = 0;
+    private int receivedBits;     // bit i = seq (highest - 1 - i) reçu
+
+    // Messages reçus en avance, indexés par seq % WINDOW
+    private final int[] heldSeq = new int[WINDOW];
+    private final int[] heldKind = new int[WINDOW];
+    private final byte[][] heldData = new byte[WINDOW][];
+
+    ReliableReceiver() {
+        Arrays.fill(heldSeq, -1);
+    }
+
+    // Renvoie true si le message était nouveau ; dans tous les cas, renvoyer ack()/ackBits()
+    boolean receive(int seq, int kind, byte[] data, int offset, int length, Handler handler) {
+        // Trop loin devant pour être gardé : ni gardé ni acquitté, le serveur le renverra
+        if (Protocol.isNewer(seq, nextExpected) && ((seq - nextExpected) & 0xFFFF) >= WINDOW) return false;
+        boolean fresh = markReceived(seq);
+        if (!fresh) return false;
+        if (seq == nextExpected) {
+            handler.deliver(kind, data, offset, length);
+            nextExpected = (nextExpected + 1) & 0xFFFF;
+            // Les suivants déjà arrivés sont remis à la suite
+            int i;
+            while (heldSeq[i = nextExpected % WINDOW] == nextExpected) {
+                heldSeq[i] = -1;
+                handler.deliver(heldKind[i], heldData[i], 0, heldData[i].length);
+                heldData[i] = null;
+                nextExpected = (nextExpected + 1) & 0xFFFF;
+            }
+        } else if (Protocol.isNewer(seq, nextExpected)) {
+            int i = seq % WINDOW;
+            heldSeq[i] = seq;
+            heldKind[i] = kind;
+            heldData[i] = Arrays.copyOfRange(data, offset, offset + length);
+        }
+        return true;
+    }
+
+    int ack() { return highest; }
+    int ackBits() { return receivedBits & 0xFFFF; }
+
+    // Met à jour [highest][receivedBits] ; false si seq était déjà reçu ou déjà remis
+    private boolean markReceived(int seq) {
+        if (Protocol.isNewer(seq, highest)) {
+            int shift = (seq - highest) & 0xFFFF;
+            receivedBits = shift > WINDOW ? 0 : ((receivedBits << shift) | (1 << (shift - 1))) & 0xFFFF;
+            highest = seq;
+            return true;
+        }
+        int behind = (highest - seq) & 0xFFFF;
+        if (behind == 0) return false;
+        if (behind > WINDOW) return false; // trop ancien : forcément déjà remis
+        int bit = 1 << (behind - 1);
+        if ((receivedBits & bit) != 0) return false;
+        receivedBits |= bit;
+        return !Protocol.isNewer(nextExpected, seq); // déjà remis si nextExpected l'a dépassé
+    }
+}
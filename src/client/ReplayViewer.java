@@ -0,0 +1,121 @@
+package client;
+
+import common.ReplayEngine;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+// Relecture d'une manche enregistrée par le serveur (-Dmaze.replayDir), dans la même zone de jeu
+// que MazeClient. Lancement : java client.MazeClient --replay <fichier.mzr> [vitesse]
+// Espace : pause, flèches haut/bas : vitesse x2 / ÷2, gauche/droite : -5 s / +5 s, Début : revenir au départ.
+// La vue suit le vainqueur (affiché en bleu), ou le premier joueur si la manche a été interrompue.
+final class ReplayViewer extends JFrame {
+
+    private static final int SEEK_SECONDS = 5;
+
+    private final ReplayEngine engine;
+    private final int[][] maze;
+    private final MazePanel panel;
+    private final JLabel status = new JLabel();
+    private final int followId;
+
+    // Horloge de relecture (EDT uniquement)
+    private double position; // en ticks, avec la fraction
+    private double speed;
+    private boolean paused;
+    private long lastFrame = System.nanoTime();
+
+    ReplayViewer(ReplayEngine engine, double speed) {
+        super("Replay - salle " + engine.log().roomId() + ", manche " + engine.log().round());
+        this.engine = engine;
+        this.maze = engine.log().maze().toGrid();
+        this.speed = speed;
+        this.position = engine.startTick();
+        this.followId = engine.winnerId() >= 0 ? engine.winnerId()
+                : engine.playerCount() > 0 ? engine.playerId(0) : -1;
+
+        panel = new MazePanel(new MazePanel.Scene() {
+            @Override
+            public int[][] maze() { return maze; }
+
+            @Override
+            public void sprites(long now, MazePanel.SpriteSink out) {
+                for (int i = 0; i < engine.playerCount(); i++) {
+                    int id = engine.playerId(i);
+                    out.sprite(id, engine.x(i), engine.y(i), id == followId);
+                }
+            }
+        });
+        panel.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_SPACE: paused = !paused; break;
+                    case KeyEvent.VK_UP: ReplayViewer.this.speed = Math.min(1024, ReplayViewer.this.speed * 2); break;
+                    case KeyEvent.VK_DOWN: ReplayViewer.this.speed = Math.max(0.125, ReplayViewer.this.speed / 2); break;
+                    case KeyEvent.VK_LEFT: jump(-SEEK_SECONDS); break;
+                    case KeyEvent.VK_RIGHT: jump(SEEK_SECONDS); break;
+                    case KeyEvent.VK_HOME: position = engine.startTick(); engine.seek(engine.startTick()); break;
+                    default: return;
+                }
+                e.consume(); // pas de défilement du JScrollPane
+            }
+        });
+
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setLayout(new BorderLayout());
+        JScrollPane scroll = new JScrollPane(panel);
+        scroll.setBorder(null);
+        scroll.getViewport().setBackground(MazePanel.WALL_COLOR);
+        status.setFont(new Font("Consolas", Font.PLAIN, 12));
+        status.setBorder(BorderFactory.createEmptyBorder(4, 6, 4, 6));
+        add(scroll, BorderLayout.CENTER);
+        add(status, BorderLayout.SOUTH);
+        pack();
+        Rectangle screen = GraphicsEnvironment.getLocalGraphicsEnvironment().getMaximumWindowBounds();
+        setSize(Math.min(getWidth(), screen.width), Math.min(getHeight(), screen.height));
+        setLocationRelativeTo(null);
+        setVisible(true);
+        panel.requestFocus();
+
+        new Timer(1000 / MazePanel.refreshRate(), e -> frame()).start();
+    }
+
+    private void jump(int seconds) {
+        position = Math.max(engine.startTick(), Math.min(engine.endTick(),
+                position + seconds * engine.log().tickRate()));
+        engine.seek((int) position);
+    }
+
+    private void frame() {
+        long now = System.nanoTime();
+        if (!paused) {
+            position = Math.min(engine.endTick(), position + (now - lastFrame) / 1e9 * engine.log().tickRate() * speed);
+        }
+        lastFrame = now;
+        engine.advanceTo((int) position);
+        panel.frame();
+
+        int t = engine.tick();
+        String winner = engine.winnerId() >= 0 && t >= engine.winTick()
+                ? "   Victoire de " + engine.name(engine.winnerId()) : "";
+        status.setText(String.format("%6.1f / %.1f s   x%s%s   %d joueurs%s",
+                engine.seconds(t), engine.seconds(engine.endTick()),
+                speed >= 1 ? String.valueOf((int) speed) : String.valueOf(speed),
+                paused ? " (pause)" : "", engine.playerCount(), winner));
+    }
+
+    static void open(String file, double speed) {
+        try {
+            ReplayEngine engine = ReplayEngine.open(Paths.get(file));
+            SwingUtilities.invokeLater(() -> new ReplayViewer(engine, speed));
+        } catch (IOException e) {
+            System.out.println("Replay illisible : " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package client;
+
+import common.Constants;
+import common.IGameService;
+import common.LoginTicket;
+import common.Protocol;
+
+import javax.swing.*;
+import java.awt.*;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.nio.ByteBuffer;
+import java.rmi.registry.LocateRegistry;
+import java.util.Arrays;
+
+// Spectateur : regarde une salle sans y jouer, à partir du flux SPECTATE (voir server.SpectatorFeed).
+// Source, au choix : un relais (--spectate salle hôte:port), le groupe multicast -Dmaze.spectatorGroup,
+// ou à défaut le nœud de la salle lui-même (une des SPECTATOR_SLOTS places directes).
+// L'affichage attend la première image complète, puis applique les deltas.
+final class SpectatorViewer extends JFrame {
+
+    // État de la salle tel que reconstruit depuis le flux. Écrit par le thread de réception,
+    // lu par l'EDT : les deux passent par le verrou de l'objet (un paquet ou une frame à la fois).
+    static final class State {
+        private static final int MAX_IDS = 0x10000;
+
+        final int roomId;
+        private final int[] indexOfId = new int[MAX_IDS];
+        private final int[] keyframeMark = new int[MAX_IDS]; // tick de la dernière image complète qui l'a vu
+        private final int[] ids = new int[MAX_IDS];
+        private final int[] xs = new int[MAX_IDS];
+        private final int[] ys = new int[MAX_IDS];
+        private int count;
+        private final Protocol.Pos pos = new Protocol.Pos();
+
+        private boolean synced; // une image complète entière a été reçue pour la manche en cours
+        private int round = -1;
+        private int tick;
+        private int pendingKeyframe = -1;
+        private int pendingParts;
+
+        State(int roomId) {
+            this.roomId = roomId;
+            Arrays.fill(indexOfId, -1);
+        }
+
+        // Applique un paquet ; renvoie false s'il n'est pas pour cette salle ou illisible
+        synchronized boolean apply(ByteBuffer in) {
+            int n = Protocol.readSpectate(in);
+            if (n < 0 || Protocol.roomId(in) != roomId) return false;
+            int packetTick = Protocol.spectateTick(in);
+            int packetRound = Protocol.spectateRound(in);
+            if (packetRound != round) { // nouvelle manche : rien n'est valable avant son image complète
+                round = packetRound;
+                synced = false;
+                clear();
+            }
+            switch (Protocol.spectateKind(in)) {
+                case Protocol.SPECTATE_KEYFRAME:
+                    if (packetTick != pendingKeyframe) {
+                        pendingKeyframe = packetTick;
+                        pendingParts = 0;
+                    }
+                    for (int i = 0; i < n; i++) {
+                        Protocol.readSpectateEntry(in, i, pos);
+                        put(pos.playerId, pos.x, pos.y);
+                        keyframeMark[pos.playerId] = packetTick;
+                    }
+                    if (++pendingParts == Protocol.spectateParts(in)) { // image complète : les absents sont partis
+                        for (int i = count - 1; i >= 0; i--) {
+                            if (keyframeMark[ids[i]] != packetTick) remove(ids[i]);
+                        }
+                        synced = true;
+                    }
+                    break;
+                case Protocol.SPECTATE_DELTA:
+                    if (!synced) break;
+                    for (int i = 0; i < n; i++) {
+                        Protocol.readSpectateEntry(in, i, pos);
+                        put(pos.playerId, pos.x, pos.y);
+                    }
+                    break;
+                default: // SPECTATE_LEFT
+                    if (!synced) break;
+                    for (int i = 0; i < n; i++) remove(Protocol.readSpectateLeft(in, i));
+                    break;
+            }
+            tick = packetTick;
+            return true;
+        }
+
+        private void put(int id, int x, int y) {
+            int index = indexOfId[id];
+            if (index < 0) {
+                index = count++;
+                indexOfId[id] = index;
+                ids[index] = id;
+            }
+            xs[index] = x;
+            ys[index] = y;
+        }
+
+        // Le dernier joueur prend la place du partant (comme ReplayEngine)
+        private void remove(int id) {
+            int index = indexOfId[id];
+            if (index < 0) return;
+            int last = --count;
+            indexOfId[id] = -1;
+            if (index != last) {
+                ids[index] = ids[last];
+                xs[index] = xs[last];
+                ys[index] = ys[last];
+                indexOfId[ids[index]] = index;
+            }
+        }
+
+        private void clear() {
+            for (int i = 0; i < count; i++) indexOfId[ids[i]] = -1;
+            count = 0;
+        }
+
+        synchronized void sprites(MazePanel.SpriteSink out) {
+            if (!synced) return;
+            for (int i = 0; i < count; i++) out.sprite(ids[i], xs[i], ys[i], false);
+        }
+
+        synchronized boolean synced() { return synced; }
+        synchronized int round() { return round; }
+        synchronized int tick() { return tick; }
+        synchronized int playerCount() { return synced ? count : 0; }
+    }
+
+    private final IGameService server;
+    private final LoginTicket ticket;
+    private final State state;
+    private final DatagramSocket socket;
+    private final InetSocketAddress source; // null : multicast, pas d'abonnement à entretenir
+    private final String sourceName;
+    private final JLabel status = new JLabel();
+    private volatile int[][] maze;
+    private int mazeRound = -1; // thread de réception
+
+    private SpectatorViewer(IGameService server, LoginTicket ticket, int[][] maze, DatagramSocket socket,
+                            InetSocketAddress source, String sourceName) {
+        super("Spectateur - salle " + ticket.getRoomName());
+        this.server = server;
+        this.ticket = ticket;
+        this.state = new State(ticket.getRoomId());
+        this.socket = socket;
+        this.source = source;
+        this.sourceName = sourceName;
+        this.maze = maze;
+
+        MazePanel panel = new MazePanel(new MazePanel.Scene() {
+            @Override
+            public int[][] maze() { return maze; }
+
+            @Override
+            public void sprites(long now, MazePanel.SpriteSink out) { state.sprites(out); }
+        });
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setLayout(new BorderLayout());
+        JScrollPane scroll = new JScrollPane(panel);
+        scroll.setBorder(null);
+        scroll.getViewport().setBackground(MazePanel.WALL_COLOR);
+        status.setFont(new Font("Consolas", Font.PLAIN, 12));
+        status.setBorder(BorderFactory.createEmptyBorder(4, 6, 4, 6));
+        add(scroll, BorderLayout.CENTER);
+        add(status, BorderLayout.SOUTH);
+        pack();
+        Rectangle screen = GraphicsEnvironment.getLocalGraphicsEnvironment().getMaximumWindowBounds();
+        setSize(Math.min(getWidth(), screen.width), Math.min(getHeight(), screen.height));
+        setLocationRelativeTo(null);
+        setVisible(true);
+
+        Thread receiver = new Thread(this::receive, "spectator-udp");
+        receiver.setDaemon(true);
+        receiver.start();
+        if (source != null) {
+            subscribe();
+            new Timer(Constants.HEARTBEAT_SECONDS * 1000, e -> subscribe()).start();
+        }
+        new Timer(1000 / MazePanel.refreshRate(), e -> {
+            panel.frame();
+            status.setText(state.synced()
+                    ? String.format("Manche %d   tick %d   %d joueurs   (%s)", state.round(), state.tick(), state.playerCount(), sourceName)
+                    : "En attente d'une image complète (" + sourceName + ")...");
+        }).start();
+    }
+
+    private void subscribe() {
+        ByteBuffer out = ByteBuffer.allocate(Protocol.SPECTATE_JOIN_SIZE);
+        Protocol.writeSpectateJoin(out, ticket.getRoomId());
+        try {
+            socket.send(new DatagramPacket(out.array(), out.position(), source));
+        } catch (IOException e) {
+            System.out.println("[SPECTATEUR] Abonnement impossible : " + e.getMessage());
+        }
+    }
+
+    private void receive() {
+        byte[] data = new byte[64 * 1024];
+        DatagramPacket packet = new DatagramPacket(data, data.length);
+        ByteBuffer in = ByteBuffer.wrap(data);
+        while (!socket.isClosed()) {
+            try {
+                socket.receive(packet);
+                in.limit(packet.getLength()).position(0);
+                if (state.apply(in) && state.round() != mazeRound) reloadMaze(state.round());
+            } catch (IOException e) {
+                if (!socket.isClosed()) System.out.println("[SPECTATEUR] Réception : " + e.getMessage());
+            }
+        }
+    }
+
+    // Nouvelle manche : labyrinthe rechargé par RMI (la première fois, déjà chargé à l'ouverture)
+    private void reloadMaze(int round) {
+        if (mazeRound >= 0) {
+            try {
+                maze = server.getEncodedMaze(ticket.getRoomId()).toGrid();
+            } catch (IOException e) {
+                System.out.println("[SPECTATEUR] Labyrinthe indisponible : " + e.getMessage());
+            }
+        }
+        mazeRound = round;
+    }
+
+    // --spectate <salle> [relais hôte:port]
+    static void open(String roomName, String relay) {
+        try {
+            IGameService server = (IGameService) LocateRegistry.getRegistry(Constants.SERVER_IP, Constants.RMI_PORT).lookup(Constants.RMI_ID);
+            LoginTicket ticket = server.spectate(roomName);
+            int[][] maze = server.getEncodedMaze(ticket.getRoomId()).toGrid();
+            DatagramSocket socket;
+            InetSocketAddress source;
+            String sourceName;
+            if (relay != null) {
+                int colon = relay.lastIndexOf(':');
+                source = new InetSocketAddress(relay.substring(0, colon), Integer.parseInt(relay.substring(colon + 1)));
+                socket = new DatagramSocket();
+                sourceName = "relais " + relay;
+            } else if (Constants.SPECTATOR_GROUP != null) {
+                int colon = Constants.SPECTATOR_GROUP.lastIndexOf(':');
+                int port = Integer.parseInt(Constants.SPECTATOR_GROUP.substring(colon + 1));
+                MulticastSocket multicast = new MulticastSocket(port);
+                // Interface null : celle choisie par le système (joinGroup(InetAddress) est déprécié depuis Java 14)
+                multicast.joinGroup(new InetSocketAddress(Constants.SPECTATOR_GROUP.substring(0, colon), port), null);
+                socket = multicast;
+                source = null;
+                sourceName = "multicast " + Constants.SPECTATOR_GROUP;
+            } else {
+                source = new InetSocketAddress(ticket.nodeHostOr(Constants.SERVER_IP), ticket.getNodeUdpPort());
+                socket = new DatagramSocket();
+                sourceName = "serveur " + source.getHostString() + ":" + source.getPort();
+            }
+            SwingUtilities.invokeLater(() -> new SpectatorViewer(server, ticket, maze, socket, source, sourceName));
+        } catch (Exception e) {
+            System.out.println("Impossible de regarder la salle " + roomName + " : " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
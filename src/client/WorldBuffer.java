@@ -0,0 +1,140 @@
+package client;
+
+import common.Constants;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Joueurs distants, partagés entre le thread réseau (seul écrivain) et l'EDT (seul lecteur) sans verrou.
+// Le thread réseau tient l'état à jour dans ses propres tableaux, puis à chaque snapshot le recopie
+// dans un tampon libre et l'échange d'un seul getAndSet ; l'EDT affiche le dernier tampon publié.
+// Trois tampons (triple buffering) : un à l'écrivain, un au lecteur, un en transit. Aucun des deux
+// ne touche jamais au tampon de l'autre, et aucune allocation par paquet ni par frame (les tableaux
+// ne grandissent que si le nombre de joueurs dépasse tout ce qu'on a vu jusque-là).
+// Interpolation comme avant : on glisse de l'ancienne position vers la dernière reçue en un tick.
+final class WorldBuffer {
+
+    private static final long INTERPOLATION_NANOS = 1_000_000_000L / Constants.TICK_RATE;
+    private static final int MAX_IDS = 0x10000;
+
+    // Un état complet, en colonnes (le dernier joueur prend la place du partant, comme ReplayEngine)
+    private static final class Frame {
+        int count;
+        int[] ids;
+        double[] fromX, fromY;
+        int[] toX, toY;
+        long[] updatedAt;
+        boolean fresh; // publié par l'écrivain, pas encore pris par le lecteur
+
+        Frame(int capacity) {
+            ids = new int[capacity];
+            fromX = new double[capacity];
+            fromY = new double[capacity];
+            toX = new int[capacity];
+            toY = new int[capacity];
+            updatedAt = new long[capacity];
+        }
+
+        void ensureCapacity(int capacity) {
+            if (capacity <= ids.length) return;
+            int size = Math.max(capacity, ids.length * 2);
+            ids = Arrays.copyOf(ids, size);
+            fromX = Arrays.copyOf(fromX, size);
+            fromY = Arrays.copyOf(fromY, size);
+            toX = Arrays.copyOf(toX, size);
+            toY = Arrays.copyOf(toY, size);
+            updatedAt = Arrays.copyOf(updatedAt, size);
+        }
+
+        void copyFrom(Frame source) {
+            ensureCapacity(source.count);
+            count = source.count;
+            System.arraycopy(source.ids, 0, ids, 0, count);
+            System.arraycopy(source.fromX, 0, fromX, 0, count);
+            System.arraycopy(source.fromY, 0, fromY, 0, count);
+            System.arraycopy(source.toX, 0, toX, 0, count);
+            System.arraycopy(source.toY, 0, toY, 0, count);
+            System.arraycopy(source.updatedAt, 0, updatedAt, 0, count);
+        }
+    }
+
+    // --- THREAD RÉSEAU ---
+    private final Frame state = new Frame(256);
+    private final int[] indexOfId = new int[MAX_IDS];
+    private Frame back = new Frame(256);
+
+    private final AtomicReference<Frame> middle = new AtomicReference<>(new Frame(256));
+
+    // --- EDT ---
+    private Frame front = new Frame(256);
+
+    WorldBuffer() {
+        Arrays.fill(indexOfId, -1);
+    }
+
+    // Nouvelle position reçue : on part de la position actuellement affichée
+    void moveTo(int id, int x, int y, long now) {
+        int index = indexOfId[id];
+        Frame s = state;
+        if (index < 0) {
+            s.ensureCapacity(s.count + 1);
+            index = s.count++;
+            indexOfId[id] = index;
+            s.ids[index] = id;
+            s.fromX[index] = s.toX[index] = x;
+            s.fromY[index] = s.toY[index] = y;
+            s.updatedAt[index] = now;
+            return;
+        }
+        if (x == s.toX[index] && y == s.toY[index]) return;
+        double alpha = alpha(s.updatedAt[index], now);
+        s.fromX[index] += (s.toX[index] - s.fromX[index]) * alpha;
+        s.fromY[index] += (s.toY[index] - s.fromY[index]) * alpha;
+        s.toX[index] = x;
+        s.toY[index] = y;
+        s.updatedAt[index] = now;
+    }
+
+    void remove(int id) {
+        int index = indexOfId[id];
+        if (index < 0) return;
+        Frame s = state;
+        int last = --s.count;
+        indexOfId[id] = -1;
+        if (index != last) {
+            s.ids[index] = s.ids[last];
+            s.fromX[index] = s.fromX[last];
+            s.fromY[index] = s.fromY[last];
+            s.toX[index] = s.toX[last];
+            s.toY[index] = s.toY[last];
+            s.updatedAt[index] = s.updatedAt[last];
+            indexOfId[s.ids[index]] = index;
+        }
+    }
+
+    // Un échange par snapshot : le tampon récupéré est soit celui que l'EDT vient de rendre,
+    // soit une publication qu'il n'a jamais prise (dépassée, on l'écrase)
+    void publish() {
+        back.copyFrom(state);
+        back.fresh = true;
+        back = middle.getAndSet(back);
+    }
+
+    // --- EDT ---
+
+    void sprites(long now, MazePanel.SpriteSink out) {
+        if (middle.get().fresh) {
+            front.fresh = false;
+            front = middle.getAndSet(front); // seul l'écrivain y dépose, et toujours un tampon frais
+        }
+        Frame f = front;
+        for (int i = 0; i < f.count; i++) {
+            double alpha = alpha(f.updatedAt[i], now);
+            out.sprite(f.ids[i], f.fromX[i] + (f.toX[i] - f.fromX[i]) * alpha,
+                    f.fromY[i] + (f.toY[i] - f.fromY[i]) * alpha, false);
+        }
+    }
+
+    private static double alpha(long updatedAt, long now) {
+        return Math.min(1.0, (now - updatedAt) / (double) INTERPOLATION_NANOS);
+    }
+}
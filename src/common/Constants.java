@@ -1,15 +1,100 @@
 package common;
 
 public class Constants {
-    public static final int RMI_PORT = 1099;
+    // Ports par défaut ; côté serveur, --rmiPort=... --udpPort=... (voir server.ServerConfig) pour
+    // lancer plusieurs nœuds sur la même machine. Côté client : le lobby (ou le serveur autonome).
+    public static final int RMI_PORT = Integer.getInteger("maze.rmiPort", 1099);
     public static final int UDP_PORT = 9876;
     public static final String RMI_ID = "MazeService";
-    public static final String SERVER_IP = "192.168.1.100";
-    public static final String BROKER_URL = "tcp://" + SERVER_IP + ":61616";
+    public static final String LOBBY_ID = "MazeLobby"; // inscription et charge des nœuds de jeu
+    // Adresse du serveur et du broker JMS, modifiables sans recompiler :
+    // -Dmaze.serverIp=127.0.0.1, -Dmaze.brokerUrl=vm://local?broker.persistent=false (broker ActiveMQ embarqué)
+    public static final String SERVER_IP = System.getProperty("maze.serverIp", "192.168.1.100");
+    public static final String BROKER_URL = System.getProperty("maze.brokerUrl", "tcp://" + SERVER_IP + ":61616");
     public static final String CHAT_TOPIC = "maze.chat";
     public static final String EVENT_TOPIC = "maze.events";
+    // Chat : les clients publient "salle joueur jeton texte" sur CHAT_INBOX_TOPIC ; le serveur qui
+    // héberge la salle (server.ChatRelay) vérifie le jeton, limite le débit de chaque joueur
+    // (CHAT_PER_SECOND, rafale CHAT_BURST) puis republie sur CHAT_TOPIC et sur chatRoomTopic(salle).
+    // -Dmaze.chatScope=room : le client n'écoute que sa salle. Affichage borné à CHAT_SCROLLBACK lignes
+    public static final String CHAT_INBOX_TOPIC = "maze.chat.inbox";
+    public static final String CHAT_SCOPE = System.getProperty("maze.chatScope", "global");
+    public static final int CHAT_PER_SECOND = Integer.getInteger("maze.chatPerSecond", 1);
+    public static final int CHAT_BURST = Integer.getInteger("maze.chatBurst", 5);
+    public static final int CHAT_MAX_LENGTH = 200;
+    public static final int CHAT_SCROLLBACK = Integer.getInteger("maze.chatScrollback", 500);
+    // Bus d'événements du serveur : jms (broker ActiveMQ) ou memory (dans le processus, sans broker)
+    public static final String EVENT_BUS = System.getProperty("maze.eventBus", "jms");
+
+    // Fréquence de la boucle serveur (ticks/seconde), modifiable avec -Dmaze.tickRate=60
+    public static final int TICK_RATE = Integer.getInteger("maze.tickRate", 30);
+    // Nombre de threads de réception UDP sur le même port (SO_REUSEPORT, Java 9+ / Linux)
+    public static final int UDP_SHARDS = Integer.getInteger("maze.udpShards", 1);
+    // Capacité de la table des joueurs d'une salle (les identifiants UDP sont sur 16 bits, max 65535)
+    public static final int MAX_PLAYERS = Integer.getInteger("maze.maxPlayers", 4096);
+    // Area of interest : rayon (en cases) des mises à jour par tick, 0 = tout le monde reçoit tout
+    public static final int AOI_RADIUS = Integer.getInteger("maze.aoiRadius", 15);
+    // Les joueurs hors rayon sont quand même envoyés à tous une fois tous les N ticks (~1 s par défaut)
+    public static final int AOI_GLOBAL_INTERVAL = Math.max(1, Integer.getInteger("maze.aoiGlobalInterval", TICK_RATE));
 
     // IMPORTANT : Doit être un nombre IMPAIR pour l'algorithme de génération !
     public static final int MAZE_SIZE = 41;
     public static final int CELL_SIZE = 15; // Plus petit pour afficher plus de détails
+
+    // Génération : backtracker, wilson, eller ou kruskal ; graine fixe avec -Dmaze.seed=123
+    public static final String MAZE_GENERATOR = System.getProperty("maze.generator", "backtracker");
+    public static final Long MAZE_SEED = Long.getLong("maze.seed");
+    // Labyrinthes préparés d'avance par taille (file de MAZE_POOL_SIZE, MAZE_POOL_THREADS threads de
+    // fond) et gardés sur disque dans -Dmaze.mazeCacheDir (désactivé sans), au plus MAZE_CACHE_MAX
+    // par taille : voir server.MazePool
+    public static final int MAZE_POOL_SIZE = Integer.getInteger("maze.poolSize", 2);
+    public static final int MAZE_POOL_THREADS = Integer.getInteger("maze.poolThreads", 1);
+    public static final String MAZE_CACHE_DIR = System.getProperty("maze.mazeCacheDir");
+    public static final int MAZE_CACHE_MAX = Integer.getInteger("maze.mazeCacheMax", 64);
+    // Jeux de tableaux de travail de A* partagés par tous les labyrinthes (server.Navigation) : au
+    // plus NAV_SEARCHES recherches simultanées, les suivantes attendent qu'un jeu se libère
+    public static final int NAV_SEARCHES = Integer.getInteger("maze.navSearches", 4);
+
+    // Salles : nombre max, threads partagés par les ticks, buffers d'envoi par salle, pause entre manches
+    public static final int MAX_ROOMS = Integer.getInteger("maze.maxRooms", 256);
+    public static final int ROOM_WORKERS = Integer.getInteger("maze.roomWorkers", Runtime.getRuntime().availableProcessors());
+    public static final int ROOM_SEND_BUFFERS = Integer.getInteger("maze.roomSendBuffers", 4096);
+    public static final int ROUND_RESTART_SECONDS = Integer.getInteger("maze.roundRestartSeconds", 5);
+    // Salle vide depuis ROOM_IDLE_SECONDS (sauf "main") : fermée, son identifiant est réattribué
+    public static final int ROOM_IDLE_SECONDS = Integer.getInteger("maze.roomIdleSeconds", 60);
+
+    // Admission UDP : débit par joueur (paquets par tick, rafale tolérée) et ancien format texte
+    // (bot_player.py, sans jeton de session) : -Dmaze.textBot=false le refuse avant toute analyse
+    public static final int INPUTS_PER_TICK = Integer.getInteger("maze.inputsPerTick", 2);
+    public static final int INPUT_BURST = Integer.getInteger("maze.inputBurst", 8);
+    public static final boolean TEXT_BOT = !"false".equals(System.getProperty("maze.textBot"));
+
+    // Sessions : un joueur sans aucun paquet pendant IDLE_TIMEOUT_SECONDS est retiré de sa salle ;
+    // un client immobile envoie donc un HEARTBEAT toutes les HEARTBEAT_SECONDS
+    public static final int IDLE_TIMEOUT_SECONDS = Integer.getInteger("maze.idleTimeoutSeconds", 30);
+    public static final int HEARTBEAT_SECONDS = Integer.getInteger("maze.heartbeatSeconds", 5);
+
+    // Spectateurs : flux unique par salle et par tick, envoyé au groupe multicast -Dmaze.spectatorGroup
+    // (ex. 239.255.77.1:9950) et à au plus SPECTATOR_SLOTS abonnés directs (des relais, voir
+    // server.SpectatorRelay) : le coût d'envoi du serveur ne dépend pas du nombre de spectateurs.
+    // Un spectateur qui arrive attend la prochaine image complète (toutes les SPECTATOR_KEYFRAME_TICKS)
+    public static final String SPECTATOR_GROUP = System.getProperty("maze.spectatorGroup");
+    public static final int SPECTATOR_SLOTS = Integer.getInteger("maze.spectatorSlots", 8);
+    public static final int SPECTATOR_KEYFRAME_TICKS = Math.max(1, Integer.getInteger("maze.spectatorKeyframeTicks", TICK_RATE));
+
+    // Enregistrement des manches pour la relecture (voir ReplayEngine) : désactivé sans -Dmaze.replayDir
+    public static final String REPLAY_DIR = System.getProperty("maze.replayDir");
+
+    // Lobby : rapport de charge de chaque nœud toutes les NODE_REPORT_SECONDS ; un nœud muet depuis
+    // NODE_TIMEOUT_SECONDS ne reçoit plus de nouvelles salles (les siennes sont recréées ailleurs)
+    public static final int NODE_REPORT_SECONDS = Integer.getInteger("maze.nodeReportSeconds", 1);
+    public static final int NODE_TIMEOUT_SECONDS = Integer.getInteger("maze.nodeTimeoutSeconds", 5);
+
+    // Métriques en texte brut sur http://127.0.0.1:<port>/metrics (0 = désactivé), aussi visibles en JMX
+    public static final int METRICS_PORT = Integer.getInteger("maze.metricsPort", 9100);
+
+    // Canal de chat d'une seule salle (les noms de salle sont [\w-], sans point)
+    public static String chatRoomTopic(String roomName) {
+        return CHAT_TOPIC + ".room." + roomName;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package common;
+
+import java.io.Serializable;
+
+// Labyrinthe compressé (voir MazeCodec) : c'est ce qui transite par RMI au lieu de int[][]
+public class EncodedMaze implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int size;
+    private final String encoding;
+    private final String hash;
+    private final byte[] data;
+
+    public EncodedMaze(int size, String encoding, String hash, byte[] data) {
+        this.size = size;
+        this.encoding = encoding;
+        this.hash = hash;
+        this.data = data;
+    }
+
+    public int getSize() { return size; }
+    public String getEncoding() { return encoding; }
+    public String getHash() { return hash; }
+    public byte[] getData() { return data; }
+
+    public int[][] toGrid() { return MazeCodec.decode(this); }
+}
@@ -3,10 +3,33 @@ import java.rmi.Remote;
 import java.rmi.RemoteException;
 
 public interface IGameService extends Remote {
+    // Rejoint la salle par défaut (anciens clients)
     int login(String username) throws RemoteException;
+    // Rejoint la salle roomName, en la créant si elle n'existe pas encore
+    LoginTicket login(String username, String roomName) throws RemoteException;
+    // Quitte la salle (fermeture du client) : la place est libérée tout de suite, sans attendre
+    // le délai d'inactivité ; false si le joueur n'est pas (ou plus) dans cette salle
+    boolean leave(int roomId, int playerId, int sessionToken) throws RemoteException;
+    // Regarder une salle existante sans y jouer : ticket sans joueur (playerId -1) qui donne
+    // l'identifiant de la salle et son nœud, à qui envoyer SPECTATE_JOIN (ou à un relais)
+    LoginTicket spectate(String roomName) throws RemoteException;
     // Utilisation d'un objet complexe au lieu d'un type primitif
     MazeState getMazeState() throws RemoteException;
 
     // NOUVELLE MÉTHODE : Pour savoir si on joue en 21x21 ou 61x61
     int getMazeSize() throws RemoteException;
+
+    // Transfert compact : le client lit d'abord le hash et ne télécharge la grille
+    // (2 bits/case + deflate) que s'il ne l'a pas déjà en cache.
+    // getMazeState() reste disponible pour les anciens clients.
+    MazeInfo getMazeInfo() throws RemoteException;
+    EncodedMaze getEncodedMaze() throws RemoteException;
+
+    // Même chose pour une salle donnée (chaque salle a son propre labyrinthe)
+    MazeInfo getMazeInfo(int roomId) throws RemoteException;
+    EncodedMaze getEncodedMaze(int roomId) throws RemoteException;
+
+    // Plus court chemin dans le labyrinthe courant de la salle : [x0, y0, x1, y1, ...],
+    // tableau vide s'il n'y en a pas (vers la sortie, la réponse vient du champ de distances)
+    int[] findPath(int roomId, int fromX, int fromY, int toX, int toY) throws RemoteException;
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package common;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+// Côté lobby, appelé par les nœuds de jeu (les clients, eux, ne voient que IGameService)
+public interface ILobbyService extends Remote {
+    // Inscription d'un nœud (node : son propre IGameService) ; renvoie son numéro, dont dérivent
+    // les identifiants de ses salles (numéro * MAX_ROOMS + i). previous : numéro à retrouver
+    // (réinscription après un redémarrage du lobby, ou --nodeIndex), -1 pour le premier libre
+    int register(IGameService node, String host, int rmiPort, int udpPort, int capacity, int previous)
+            throws RemoteException;
+
+    // Charge du nœud toutes les NODE_REPORT_SECONDS, avec le nom de ses salles (le lobby n'a
+    // rien d'autre à garder). false : nœud inconnu (lobby redémarré), il doit se réinscrire
+    boolean report(int node, int players, String[] rooms) throws RemoteException;
+}
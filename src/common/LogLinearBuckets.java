@@ -0,0 +1,56 @@
+package common;
+
+// Découpage log-linéaire des histogrammes (façon HdrHistogram), partagé par server.ConcurrentHistogram
+// et loadtest.LatencyHistogram : une case par valeur jusqu'à 2 * 2^subBits, puis 2^subBits sous-cases
+// par puissance de 2 (erreur relative < 1 / 2^subBits). Seul le calcul des cases est ici ; chaque
+// histogramme garde ses propres compteurs (LongAdder ou long[]).
+public final class LogLinearBuckets {
+
+    private final int subBits;
+    private final int subCount;
+    private final int linearLimit;
+    private final int count;
+
+    public LogLinearBuckets(int subBits) {
+        this.subBits = subBits;
+        subCount = 1 << subBits;
+        linearLimit = 2 * subCount;
+        count = linearLimit + (62 - subBits) * subCount; // jusqu'à Long.MAX_VALUE
+    }
+
+    public int count() { return count; }
+
+    // value >= 0
+    public int indexOf(long value) {
+        if (value < linearLimit) return (int) value;
+        int shift = 64 - Long.numberOfLeadingZeros(value) - (subBits + 1); // value >>> shift dans [subCount, 2 * subCount)
+        return linearLimit + (shift - 1) * subCount + (int) (value >>> shift) - subCount;
+    }
+
+    // Plus grande valeur rangée dans la même case (comme highestEquivalentValue de HdrHistogram)
+    public long highestValueAt(int index) {
+        if (index < linearLimit) return index;
+        int shift = (index - linearLimit) / subCount + 1;
+        long sub = (index - linearLimit) % subCount + subCount;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    // Dernière case de chaque puissance de 2 (bornes "le" du format texte Prometheus)
+    public boolean isOctaveEnd(int index) {
+        return index >= linearLimit - 1 && (index - linearLimit + 1) % subCount == 0;
+    }
+
+    // p entre 0 et 100, sur des compteurs par case ; jamais au-delà de max (plus grande valeur vue)
+    public long percentile(long[] counts, double p, long max) {
+        long total = 0;
+        for (long c : counts) total += c;
+        if (total == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(p / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) return Math.min(highestValueAt(i), max);
+        }
+        return max;
+    }
+}
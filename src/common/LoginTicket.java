@@ -0,0 +1,42 @@
+package common;
+
+import java.io.Serializable;
+
+// Réponse de login(username, roomName) : identifiant du joueur dans sa salle + salle à mettre
+// dans l'en-tête de chaque paquet UDP + jeton de session à joindre à chaque paquet (le serveur
+// ignore tout paquet dont le jeton ne correspond pas à l'identifiant).
+// Avec un lobby, la salle vit sur un nœud de jeu : c'est à lui qu'il faut envoyer l'UDP
+// (et les appels RMI de la salle). nodeHost null = même machine que le service qui a répondu.
+public class LoginTicket implements Serializable {
+    private static final long serialVersionUID = 3L;
+
+    private final int playerId;
+    private final int roomId;
+    private final String roomName;
+    private final int sessionToken;
+    private final String nodeHost;
+    private final int nodeRmiPort;
+    private final int nodeUdpPort;
+
+    public LoginTicket(int playerId, int roomId, String roomName, int sessionToken,
+                       String nodeHost, int nodeRmiPort, int nodeUdpPort) {
+        this.playerId = playerId;
+        this.roomId = roomId;
+        this.roomName = roomName;
+        this.sessionToken = sessionToken;
+        this.nodeHost = nodeHost;
+        this.nodeRmiPort = nodeRmiPort;
+        this.nodeUdpPort = nodeUdpPort;
+    }
+
+    public int getPlayerId() { return playerId; }
+    public int getRoomId() { return roomId; }
+    public String getRoomName() { return roomName; }
+    public int getSessionToken() { return sessionToken; }
+    public String getNodeHost() { return nodeHost; }
+    public int getNodeRmiPort() { return nodeRmiPort; }
+    public int getNodeUdpPort() { return nodeUdpPort; }
+
+    // Adresse du nœud, "fallback" (hôte du lobby) si le nœud n'en a pas annoncé
+    public String nodeHostOr(String fallback) { return nodeHost != null ? nodeHost : fallback; }
+}
@@ -0,0 +1,129 @@
+package common;
+
+import java.io.ByteArrayOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Encodage compact de la grille : 2 bits par case (sol / mur / sortie) puis compression deflate.
+// Un labyrinthe 61x61 passe d'environ 15 Ko (int[][] sérialisé) à quelques centaines d'octets.
+public final class MazeCodec {
+
+    public static final String ENCODING = "2bit-deflate";
+
+    // Codes sur 2 bits
+    private static final int CODE_FLOOR = 0;
+    private static final int CODE_WALL = 1;
+    private static final int CODE_EXIT = 2;
+
+    private MazeCodec() {}
+
+    public static EncodedMaze encode(int[][] grid) {
+        int size = grid.length;
+        byte[] packed = pack(grid);
+        return new EncodedMaze(size, ENCODING, hash(packed, size), deflate(packed));
+    }
+
+    public static int[][] decode(EncodedMaze encoded) {
+        if (!ENCODING.equals(encoded.getEncoding())) {
+            throw new IllegalArgumentException("Encodage inconnu : " + encoded.getEncoding());
+        }
+        int size = encoded.getSize();
+        byte[] packed = inflate(encoded.getData(), packedLength(size));
+        if (!hash(packed, size).equals(encoded.getHash())) {
+            throw new IllegalArgumentException("Labyrinthe corrompu (hash différent)");
+        }
+        return unpack(packed, size);
+    }
+
+    // --- 2 BITS PAR CASE ---
+
+    public static int packedLength(int size) {
+        return (size * size * 2 + 7) / 8;
+    }
+
+    public static byte[] pack(int[][] grid) {
+        int size = grid.length;
+        byte[] packed = new byte[packedLength(size)];
+        int bit = 0;
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int v = grid[i][j];
+                int code = v == 0 ? CODE_FLOOR : v == 9 ? CODE_EXIT : CODE_WALL;
+                packed[bit >> 3] |= code << (bit & 7);
+                bit += 2;
+            }
+        }
+        return packed;
+    }
+
+    public static int[][] unpack(byte[] packed, int size) {
+        int[][] grid = new int[size][size];
+        int bit = 0;
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int code = (packed[bit >> 3] >> (bit & 7)) & 3;
+                grid[i][j] = code == CODE_FLOOR ? 0 : code == CODE_EXIT ? 9 : 1;
+                bit += 2;
+            }
+        }
+        return grid;
+    }
+
+    // --- COMPRESSION ---
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        byte[] chunk = new byte[4096];
+        while (!deflater.finished()) {
+            out.write(chunk, 0, deflater.deflate(chunk));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] data, int expectedLength) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            byte[] out = new byte[expectedLength];
+            int n = 0;
+            while (n < expectedLength && !inflater.finished()) {
+                int read = inflater.inflate(out, n, expectedLength - n);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                n += read;
+            }
+            if (n != expectedLength) throw new IllegalArgumentException("Labyrinthe tronqué");
+            return out;
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Labyrinthe corrompu", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // --- HASH DE CONTENU (SHA-256 de la taille + grille compacte) ---
+
+    public static String hash(byte[] packed, int size) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update((byte) (size >>> 24));
+            sha.update((byte) (size >>> 16));
+            sha.update((byte) (size >>> 8));
+            sha.update((byte) size);
+            byte[] digest = sha.digest(packed);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // SHA-256 est toujours disponible
+        }
+    }
+}
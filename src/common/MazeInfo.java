@@ -0,0 +1,37 @@
+package common;
+
+import java.io.Serializable;
+
+// Métadonnées du labyrinthe courant : le client compare le hash avec son cache
+// avant de décider s'il doit télécharger la grille.
+public class MazeInfo implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int size;
+    private final String difficultyName;
+    private final String hash;
+    private final String encoding;
+    private final int encodedLength;
+    // Algorithme + graine : suffisent pour régénérer exactement la même grille
+    private final String generator;
+    private final long seed;
+
+    public MazeInfo(int size, String difficultyName, String hash, String encoding, int encodedLength,
+                    String generator, long seed) {
+        this.size = size;
+        this.difficultyName = difficultyName;
+        this.hash = hash;
+        this.encoding = encoding;
+        this.encodedLength = encodedLength;
+        this.generator = generator;
+        this.seed = seed;
+    }
+
+    public int getSize() { return size; }
+    public String getDifficultyName() { return difficultyName; }
+    public String getHash() { return hash; }
+    public String getEncoding() { return encoding; }
+    public int getEncodedLength() { return encodedLength; }
+    public String getGenerator() { return generator; }
+    public long getSeed() { return seed; }
+}
@@ -0,0 +1,480 @@
+package common;
+
+import java.nio.ByteBuffer;
+
+// Protocole UDP binaire à taille fixe (remplace "MOVE;id;dir" et "POS;id;x;y").
+// Tout est lu/écrit directement dans un ByteBuffer réutilisé : aucune allocation par paquet.
+//
+//   En-tête  : [version:1][opcode:1][roomId:u16]
+//   MOVE     : en-tête + [playerId:u16][token:u32][dir:4 bits][seq:u16] = 13 octets
+//   SNAPSHOT : en-tête + [tick:u32][round:u16][count:u16]          = 12 octets
+//              puis count x [playerId:u16][x:u16][y:u16][seq acquittée:u16]
+//   HINT_REQUEST : en-tête + [playerId:u16][token:u32]           = 10 octets
+//   HINT     : en-tête + [round:u16][x:u16][y:u16][dir:u8][distance:u32] = 15 octets
+//              (direction vers la sortie depuis la position du joueur, voir server.Navigation)
+//   RELIABLE : en-tête + [playerId:u16][seq:u16][kind:u8][len:u8] + len octets (serveur -> client)
+//   ACK      : en-tête + [playerId:u16][token:u32][ack:u16][ackBits:u16] = 14 octets (client -> serveur)
+//              ack = plus grand seq RELIABLE reçu, bit i de ackBits = seq (ack - 1 - i) reçu aussi
+//   HEARTBEAT : en-tête + [playerId:u16][token:u32]              = 10 octets (client inactif, voir
+//              Constants.HEARTBEAT_SECONDS : sans aucun paquet pendant IDLE_TIMEOUT_SECONDS, le joueur est retiré)
+//   SPECTATE : en-tête + [tick:u32][round:u16][kind:u8][part:u16][parts:u16][count:u16] = 17 octets
+//              puis count x [playerId:u16][x:u16][y:u16] (KEYFRAME, DELTA) ou count x [playerId:u16] (LEFT)
+//              (serveur ou relais -> spectateurs : un seul flux par salle et par tick, voir server.SpectatorFeed)
+//   SPECTATE_JOIN : en-tête seul = 4 octets (spectateur ou relais -> serveur/relais, à renouveler
+//              toutes les HEARTBEAT_SECONDS ; pas de jeton, la lecture est publique)
+//
+// Les positions (MOVE/SNAPSHOT) restent non fiables, la plus récente gagne. RELIABLE est réservé
+// aux rares messages qui doivent arriver, dans l'ordre : renvoyés jusqu'à acquittement.
+//
+// Version 2 : ajout de la salle (roomId) dans l'en-tête et du numéro de manche dans SNAPSHOT
+// (un changement de manche indique au client qu'il doit recharger le labyrinthe).
+// Version 3 : jeton de session (LoginTicket) dans tout paquet client -> serveur, vérifié par le
+// serveur avant d'accepter l'adresse de l'expéditeur (plus d'usurpation d'identifiant).
+//
+// Le premier octet d'un paquet texte est toujours ASCII ('M', 'P'...), donc une version
+// binaire < 0x20 permet au serveur de distinguer les deux formats sur le même port.
+public final class Protocol {
+
+    public static final byte VERSION = 3;
+
+    public static final byte OP_MOVE = 1;
+    public static final byte OP_SNAPSHOT = 2;
+    public static final byte OP_HINT_REQUEST = 3;
+    public static final byte OP_HINT = 4;
+    public static final byte OP_RELIABLE = 5;
+    public static final byte OP_ACK = 6;
+    public static final byte OP_HEARTBEAT = 7;
+    public static final byte OP_SPECTATE = 8;
+    public static final byte OP_SPECTATE_JOIN = 9;
+
+    // Types de messages fiables
+    public static final int KIND_JOINED = 1; // [round:u16] : le serveur connaît notre adresse, manche en cours
+    public static final int KIND_WIN = 2;    // [round:u16][secondes avant la manche suivante:u8][nom UTF-8]
+    public static final int KIND_ROUND = 3;  // [round:u16] : nouvelle manche, recharger le labyrinthe
+    public static final int KIND_LEFT = 4;   // [playerId:u16] x n : joueurs partis (leave ou inactifs), à effacer
+
+    // Contenu d'un paquet SPECTATE : état complet découpé en "parts" paquets, joueurs modifiés, joueurs partis
+    public static final int SPECTATE_KEYFRAME = 1;
+    public static final int SPECTATE_DELTA = 2;
+    public static final int SPECTATE_LEFT = 3;
+
+    public static final int HEADER_SIZE = 4;
+    public static final int MOVE_SIZE = HEADER_SIZE + 9;
+    public static final int SNAPSHOT_HEADER_SIZE = HEADER_SIZE + 8;
+    public static final int SNAPSHOT_ENTRY_SIZE = 8;
+    public static final int HINT_REQUEST_SIZE = HEADER_SIZE + 6;
+    public static final int HINT_SIZE = HEADER_SIZE + 11;
+    public static final int RELIABLE_HEADER_SIZE = HEADER_SIZE + 6;
+    public static final int MAX_RELIABLE_PAYLOAD = 58; // paquet fiable complet <= 68 octets
+    public static final int LEFT_ENTRY_SIZE = 2;       // un identifiant u16 par joueur parti (KIND_LEFT)
+    public static final int ACK_SIZE = HEADER_SIZE + 10;
+    public static final int HEARTBEAT_SIZE = HEADER_SIZE + 6;
+    public static final int SPECTATE_HEADER_SIZE = HEADER_SIZE + 13;
+    public static final int SPECTATE_ENTRY_SIZE = 6;
+    public static final int SPECTATE_JOIN_SIZE = HEADER_SIZE;
+    // Plus grand paquet client -> serveur (binaire ou texte) : au-delà, rejeté sans être analysé
+    public static final int MAX_INPUT_SIZE = 32;
+    public static final int MAX_PACKET_SIZE = 1400; // Reste sous la MTU Ethernet
+    public static final int MAX_SNAPSHOT_ENTRIES = (MAX_PACKET_SIZE - SNAPSHOT_HEADER_SIZE) / SNAPSHOT_ENTRY_SIZE;
+    public static final int MAX_SPECTATE_ENTRIES = (MAX_PACKET_SIZE - SPECTATE_HEADER_SIZE) / SPECTATE_ENTRY_SIZE;
+    public static final int MAX_SPECTATE_LEFT_ENTRIES = (MAX_PACKET_SIZE - SPECTATE_HEADER_SIZE) / LEFT_ENTRY_SIZE;
+
+    // Directions codées sur un quartet (nibble)
+    public static final int DIR_NONE = 0;
+    public static final int DIR_UP = 1;
+    public static final int DIR_DOWN = 2;
+    public static final int DIR_LEFT = 3;
+    public static final int DIR_RIGHT = 4;
+
+    // Mots-clés de l'ancien format texte (toujours utilisé par bot_player.py)
+    private static final byte[] TXT_MOVE = {'M', 'O', 'V', 'E', ';'};
+    private static final byte[] TXT_HINT = {'H', 'I', 'N', 'T', ';'};
+    private static final byte[][] TXT_DIRS = {
+            {'N', 'O', 'N', 'E'}, {'U', 'P'}, {'D', 'O', 'W', 'N'}, {'L', 'E', 'F', 'T'}, {'R', 'I', 'G', 'H', 'T'}
+    };
+
+    private Protocol() {}
+
+    // Structure mutable réutilisée par le thread de réception (pas de "new" par paquet)
+    public static final class Move {
+        public int roomId;
+        public int playerId;
+        public int dir;
+        public int seq;
+        public boolean legacy;
+        public int token;   // jeton de session, 0 pour l'ancien format texte
+        public int ackBits; // OP_ACK uniquement (seq = ack)
+    }
+
+    public static final class Pos {
+        public int playerId;
+        public int x;
+        public int y;
+        public int seq;
+    }
+
+    public static final class Reliable {
+        public int playerId;
+        public int seq;
+        public int kind;
+        public int payloadOffset; // position absolue dans le buffer
+        public int payloadLength;
+    }
+
+    public static final class Hint {
+        public int round;
+        public int x;
+        public int y;
+        public int dir;
+        public int distance;
+    }
+
+    // --- ÉCRITURE ---
+
+    public static void writeHeader(ByteBuffer buf, byte opcode, int roomId) {
+        buf.put(VERSION).put(opcode).putShort((short) roomId);
+    }
+
+    public static void writeMove(ByteBuffer buf, int roomId, int playerId, int token, int dir, int seq) {
+        writeHeader(buf, OP_MOVE, roomId);
+        buf.putShort((short) playerId);
+        buf.putInt(token);
+        buf.put((byte) (dir & 0x0F));
+        buf.putShort((short) seq);
+    }
+
+    public static void writeSnapshotHeader(ByteBuffer buf, int roomId, int tick, int round, int count) {
+        writeHeader(buf, OP_SNAPSHOT, roomId);
+        buf.putInt(tick);
+        buf.putShort((short) round);
+        buf.putShort((short) count);
+    }
+
+    // Corrige le nombre d'entrées une fois le paquet rempli
+    public static void setSnapshotCount(ByteBuffer buf, int packetStart, int count) {
+        buf.putShort(packetStart + HEADER_SIZE + 6, (short) count);
+    }
+
+    public static void writeSnapshotEntry(ByteBuffer buf, int playerId, int x, int y, int seq) {
+        buf.putShort((short) playerId);
+        buf.putShort((short) x);
+        buf.putShort((short) y);
+        buf.putShort((short) seq);
+    }
+
+    public static void writeHintRequest(ByteBuffer buf, int roomId, int playerId, int token) {
+        writeHeader(buf, OP_HINT_REQUEST, roomId);
+        buf.putShort((short) playerId);
+        buf.putInt(token);
+    }
+
+    public static void writeHeartbeat(ByteBuffer buf, int roomId, int playerId, int token) {
+        writeHeader(buf, OP_HEARTBEAT, roomId);
+        buf.putShort((short) playerId);
+        buf.putInt(token);
+    }
+
+    public static void writeHint(ByteBuffer buf, int roomId, int round, int x, int y, int dir, int distance) {
+        writeHeader(buf, OP_HINT, roomId);
+        buf.putShort((short) round);
+        buf.putShort((short) x);
+        buf.putShort((short) y);
+        buf.put((byte) dir);
+        buf.putInt(distance);
+    }
+
+    public static void writeReliable(ByteBuffer buf, int roomId, int playerId, int seq, int kind,
+                                     byte[] payload, int offset, int length) {
+        writeHeader(buf, OP_RELIABLE, roomId);
+        buf.putShort((short) playerId);
+        buf.putShort((short) seq);
+        buf.put((byte) kind);
+        buf.put((byte) length);
+        buf.put(payload, offset, length);
+    }
+
+    public static void writeAck(ByteBuffer buf, int roomId, int playerId, int token, int ack, int ackBits) {
+        writeHeader(buf, OP_ACK, roomId);
+        buf.putShort((short) playerId);
+        buf.putInt(token);
+        buf.putShort((short) ack);
+        buf.putShort((short) ackBits);
+    }
+
+    public static void writeSpectateHeader(ByteBuffer buf, int roomId, int tick, int round, int kind) {
+        writeHeader(buf, OP_SPECTATE, roomId);
+        buf.putInt(tick);
+        buf.putShort((short) round);
+        buf.put((byte) kind);
+        buf.putShort((short) 0); // part, parts et count corrigés une fois le paquet rempli
+        buf.putShort((short) 0);
+        buf.putShort((short) 0);
+    }
+
+    public static void setSpectateParts(ByteBuffer buf, int packetStart, int part, int parts, int count) {
+        buf.putShort(packetStart + HEADER_SIZE + 7, (short) part);
+        buf.putShort(packetStart + HEADER_SIZE + 9, (short) parts);
+        buf.putShort(packetStart + HEADER_SIZE + 11, (short) count);
+    }
+
+    public static void writeSpectateJoin(ByteBuffer buf, int roomId) {
+        writeHeader(buf, OP_SPECTATE_JOIN, roomId);
+    }
+
+    // Réponse texte pour bot_player.py : "HINT;<DIR>;<distance>\n" (distance -1 : pas de chemin)
+    public static void writeLegacyHint(ByteBuffer buf, int dir, int distance) {
+        buf.put(TXT_HINT).put(TXT_DIRS[dir]).put((byte) ';');
+        if (distance < 0) {
+            buf.put((byte) '-');
+            distance = 1;
+        }
+        int start = buf.position();
+        do {
+            buf.put((byte) ('0' + distance % 10));
+            distance /= 10;
+        } while (distance > 0);
+        for (int i = start, j = buf.position() - 1; i < j; i++, j--) { // chiffres écrits à l'envers
+            byte t = buf.get(i);
+            buf.put(i, buf.get(j));
+            buf.put(j, t);
+        }
+        buf.put((byte) '\n');
+    }
+
+    // --- LECTURE (lectures absolues, la position du buffer n'est pas modifiée) ---
+
+    public static boolean isBinary(ByteBuffer buf) {
+        return buf.remaining() >= HEADER_SIZE && buf.get(buf.position()) == VERSION;
+    }
+
+    public static int opcode(ByteBuffer buf) {
+        return buf.get(buf.position() + 1);
+    }
+
+    public static int roomId(ByteBuffer buf) {
+        return buf.getShort(buf.position() + 2) & 0xFFFF;
+    }
+
+    public static boolean readMove(ByteBuffer buf, Move out) {
+        int p = buf.position();
+        if (buf.limit() - p < MOVE_SIZE || buf.get(p) != VERSION || buf.get(p + 1) != OP_MOVE) return false;
+        int dir = buf.get(p + HEADER_SIZE + 6) & 0x0F;
+        if (dir > DIR_RIGHT) return false;
+        out.roomId = buf.getShort(p + 2) & 0xFFFF;
+        out.playerId = buf.getShort(p + HEADER_SIZE) & 0xFFFF;
+        out.token = buf.getInt(p + HEADER_SIZE + 2);
+        out.dir = dir;
+        out.seq = buf.getShort(p + HEADER_SIZE + 7) & 0xFFFF;
+        out.legacy = false;
+        return true;
+    }
+
+    // Renvoie le nombre d'entrées du snapshot, ou -1 si le paquet est invalide/tronqué
+    public static int readSnapshot(ByteBuffer buf) {
+        int p = buf.position();
+        if (buf.limit() - p < SNAPSHOT_HEADER_SIZE || buf.get(p) != VERSION || buf.get(p + 1) != OP_SNAPSHOT) return -1;
+        int count = buf.getShort(p + HEADER_SIZE + 6) & 0xFFFF;
+        if (buf.limit() - p < SNAPSHOT_HEADER_SIZE + count * SNAPSHOT_ENTRY_SIZE) return -1;
+        return count;
+    }
+
+    public static int snapshotTick(ByteBuffer buf) {
+        return buf.getInt(buf.position() + HEADER_SIZE);
+    }
+
+    public static int snapshotRound(ByteBuffer buf) {
+        return buf.getShort(buf.position() + HEADER_SIZE + 4) & 0xFFFF;
+    }
+
+    public static void readSnapshotEntry(ByteBuffer buf, int index, Pos out) {
+        int p = buf.position() + SNAPSHOT_HEADER_SIZE + index * SNAPSHOT_ENTRY_SIZE;
+        out.playerId = buf.getShort(p) & 0xFFFF;
+        out.x = buf.getShort(p + 2) & 0xFFFF;
+        out.y = buf.getShort(p + 4) & 0xFFFF;
+        out.seq = buf.getShort(p + 6) & 0xFFFF;
+    }
+
+    // Renvoie le nombre d'entrées d'un paquet SPECTATE, ou -1 s'il est invalide/tronqué
+    public static int readSpectate(ByteBuffer buf) {
+        int p = buf.position();
+        if (buf.limit() - p < SPECTATE_HEADER_SIZE || buf.get(p) != VERSION || buf.get(p + 1) != OP_SPECTATE) return -1;
+        int kind = spectateKind(buf);
+        if (kind < SPECTATE_KEYFRAME || kind > SPECTATE_LEFT) return -1;
+        int count = buf.getShort(p + HEADER_SIZE + 11) & 0xFFFF;
+        int entrySize = kind == SPECTATE_LEFT ? LEFT_ENTRY_SIZE : SPECTATE_ENTRY_SIZE;
+        if (buf.limit() - p < SPECTATE_HEADER_SIZE + count * entrySize) return -1;
+        return count;
+    }
+
+    public static int spectateTick(ByteBuffer buf) { return buf.getInt(buf.position() + HEADER_SIZE); }
+    public static int spectateRound(ByteBuffer buf) { return buf.getShort(buf.position() + HEADER_SIZE + 4) & 0xFFFF; }
+    public static int spectateKind(ByteBuffer buf) { return buf.get(buf.position() + HEADER_SIZE + 6); }
+    public static int spectatePart(ByteBuffer buf) { return buf.getShort(buf.position() + HEADER_SIZE + 7) & 0xFFFF; }
+    public static int spectateParts(ByteBuffer buf) { return buf.getShort(buf.position() + HEADER_SIZE + 9) & 0xFFFF; }
+
+    // Entrée "index" d'un paquet KEYFRAME ou DELTA (seq non utilisé)
+    public static void readSpectateEntry(ByteBuffer buf, int index, Pos out) {
+        int p = buf.position() + SPECTATE_HEADER_SIZE + index * SPECTATE_ENTRY_SIZE;
+        out.playerId = buf.getShort(p) & 0xFFFF;
+        out.x = buf.getShort(p + 2) & 0xFFFF;
+        out.y = buf.getShort(p + 4) & 0xFFFF;
+    }
+
+    // Identifiant "index" d'un paquet LEFT
+    public static int readSpectateLeft(ByteBuffer buf, int index) {
+        return buf.getShort(buf.position() + SPECTATE_HEADER_SIZE + index * LEFT_ENTRY_SIZE) & 0xFFFF;
+    }
+
+    public static boolean readSpectateJoin(ByteBuffer buf) {
+        int p = buf.position();
+        return buf.limit() - p >= SPECTATE_JOIN_SIZE && buf.get(p) == VERSION && buf.get(p + 1) == OP_SPECTATE_JOIN;
+    }
+
+    public static boolean readHintRequest(ByteBuffer buf, Move out) {
+        int p = buf.position();
+        if (buf.limit() - p < HINT_REQUEST_SIZE || buf.get(p) != VERSION || buf.get(p + 1) != OP_HINT_REQUEST) return false;
+        out.roomId = buf.getShort(p + 2) & 0xFFFF;
+        out.playerId = buf.getShort(p + HEADER_SIZE) & 0xFFFF;
+        out.token = buf.getInt(p + HEADER_SIZE + 2);
+        out.dir = DIR_NONE;
+        out.seq = 0;
+        out.legacy = false;
+        return true;
+    }
+
+    public static boolean readReliable(ByteBuffer buf, Reliable out) {
+        int p = buf.position();
+        if (buf.limit() - p < RELIABLE_HEADER_SIZE || buf.get(p) != VERSION || buf.get(p + 1) != OP_RELIABLE) return false;
+        int length = buf.get(p + HEADER_SIZE + 5) & 0xFF;
+        if (buf.limit() - p < RELIABLE_HEADER_SIZE + length) return false;
+        out.playerId = buf.getShort(p + HEADER_SIZE) & 0xFFFF;
+        out.seq = buf.getShort(p + HEADER_SIZE + 2) & 0xFFFF;
+        out.kind = buf.get(p + HEADER_SIZE + 4) & 0xFF;
+        out.payloadOffset = p + RELIABLE_HEADER_SIZE;
+        out.payloadLength = length;
+        return true;
+    }
+
+    public static boolean readAck(ByteBuffer buf, Move out) {
+        int p = buf.position();
+        if (buf.limit() - p < ACK_SIZE || buf.get(p) != VERSION || buf.get(p + 1) != OP_ACK) return false;
+        out.roomId = buf.getShort(p + 2) & 0xFFFF;
+        out.playerId = buf.getShort(p + HEADER_SIZE) & 0xFFFF;
+        out.token = buf.getInt(p + HEADER_SIZE + 2);
+        out.dir = DIR_NONE;
+        out.seq = buf.getShort(p + HEADER_SIZE + 6) & 0xFFFF;
+        out.ackBits = buf.getShort(p + HEADER_SIZE + 8) & 0xFFFF;
+        out.legacy = false;
+        return true;
+    }
+
+    public static boolean readHeartbeat(ByteBuffer buf, Move out) {
+        int p = buf.position();
+        if (buf.limit() - p < HEARTBEAT_SIZE || buf.get(p) != VERSION || buf.get(p + 1) != OP_HEARTBEAT) return false;
+        out.roomId = buf.getShort(p + 2) & 0xFFFF;
+        out.playerId = buf.getShort(p + HEADER_SIZE) & 0xFFFF;
+        out.token = buf.getInt(p + HEADER_SIZE + 2);
+        out.dir = DIR_NONE;
+        out.seq = 0;
+        out.legacy = false;
+        return true;
+    }
+
+    public static boolean readHint(ByteBuffer buf, Hint out) {
+        int p = buf.position();
+        if (buf.limit() - p < HINT_SIZE || buf.get(p) != VERSION || buf.get(p + 1) != OP_HINT) return false;
+        out.round = buf.getShort(p + HEADER_SIZE) & 0xFFFF;
+        out.x = buf.getShort(p + HEADER_SIZE + 2) & 0xFFFF;
+        out.y = buf.getShort(p + HEADER_SIZE + 4) & 0xFFFF;
+        out.dir = buf.get(p + HEADER_SIZE + 6) & 0x0F;
+        out.distance = buf.getInt(p + HEADER_SIZE + 7);
+        return true;
+    }
+
+    // Analyse "MOVE;<id>;<DIR>" octet par octet, sans String ni split()
+    public static boolean readLegacyMove(ByteBuffer buf, Move out) {
+        int p = buf.position();
+        int end = trimEnd(buf, p);
+
+        if (!matches(buf, p, end, TXT_MOVE)) return false;
+        p += TXT_MOVE.length;
+
+        int sep = p;
+        while (sep < end && buf.get(sep) != ';') sep++;
+        int id = parseId(buf, p, sep);
+        if (id < 0 || sep >= end) return false;
+        p = sep + 1; // ';'
+
+        for (int dir = 0; dir < TXT_DIRS.length; dir++) {
+            if (end - p == TXT_DIRS[dir].length && matches(buf, p, end, TXT_DIRS[dir])) {
+                out.roomId = 0; // L'ancien format ne connaît que la salle par défaut
+                out.playerId = id;
+                out.dir = dir;
+                out.seq = 0;
+                out.token = 0;
+                out.legacy = true;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // "HINT;<id>" : le bot demande la direction vers la sortie (salle par défaut)
+    public static boolean readLegacyHint(ByteBuffer buf, Move out) {
+        int p = buf.position();
+        int end = trimEnd(buf, p);
+        if (!matches(buf, p, end, TXT_HINT)) return false;
+        int id = parseId(buf, p + TXT_HINT.length, end);
+        if (id < 0) return false;
+        out.roomId = 0;
+        out.playerId = id;
+        out.dir = DIR_NONE;
+        out.seq = 0;
+        out.token = 0;
+        out.legacy = true;
+        return true;
+    }
+
+    private static int trimEnd(ByteBuffer buf, int p) {
+        int end = buf.limit();
+        while (end > p && buf.get(end - 1) <= ' ') end--; // ignore "\n", "\r"...
+        return end;
+    }
+
+    // Identifiant décimal u16 entre p et end, -1 si invalide
+    private static int parseId(ByteBuffer buf, int p, int end) {
+        if (p >= end || end - p > 5) return -1;
+        int id = 0;
+        for (; p < end; p++) {
+            int c = buf.get(p) - '0';
+            if (c < 0 || c > 9) return -1;
+            id = id * 10 + c;
+        }
+        return id > 0xFFFF ? -1 : id;
+    }
+
+    private static boolean matches(ByteBuffer buf, int p, int end, byte[] word) {
+        if (end - p < word.length) return false;
+        for (int i = 0; i < word.length; i++) {
+            if (buf.get(p + i) != word[i]) return false;
+        }
+        return true;
+    }
+
+    // --- NUMÉROS DE SÉQUENCE ---
+
+    // Comparaison u16 avec rebouclage : seq est-il plus récent que than ?
+    public static boolean isNewer(int seq, int than) {
+        return (short) (seq - than) > 0;
+    }
+
+    // --- DÉPLACEMENTS ---
+
+    public static int dx(int dir) {
+        return dir == DIR_LEFT ? -1 : dir == DIR_RIGHT ? 1 : 0;
+    }
+
+    public static int dy(int dir) {
+        return dir == DIR_UP ? -1 : dir == DIR_DOWN ? 1 : 0;
+    }
+}
@@ -0,0 +1,261 @@
+package common;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+// Relecture d'un fichier ReplayLog : état (positions de tous les joueurs) à n'importe quel tick.
+// - à l'ouverture, un seul passage sur le fichier relève les KEYFRAME, les noms, la fin et le vainqueur ;
+// - seek(tick) repart de la dernière image complète avant ce tick puis applique les DELTA,
+//   advanceTo(tick) continue depuis la position courante : lecture séquentielle d'un fichier
+//   projeté en mémoire, sans allocation, bien plus rapide que le temps réel.
+// Pas de simulation : les positions enregistrées suffisent, les entrées ne sont que comptées.
+//
+// Relecture sans affichage : java common.ReplayEngine <fichier.mzr> [--seek secondes] [--speed N]
+public final class ReplayEngine {
+
+    private static final int MAX_IDS = 65536; // identifiants u16
+
+    private final ReplayLog log;
+    private final ReplayLog.Record record = new ReplayLog.Record();
+
+    // Index construit à l'ouverture
+    private int[] keyframeOffsets = new int[16];
+    private int[] keyframeTicks = new int[16];
+    private int keyframes;
+    private final String[] names = new String[MAX_IDS];
+    private int endTick;
+    private int winnerId = -1;
+    private int winTick = -1;
+    private boolean complete; // enregistrement END trouvé
+
+    // État courant : joueurs présents, positions rangées par ordre d'arrivée
+    private final int[] indexOfId = new int[MAX_IDS];
+    private final int[] ids = new int[MAX_IDS];
+    private final int[] xs = new int[MAX_IDS];
+    private final int[] ys = new int[MAX_IDS];
+    private int count;
+    private int offset; // prochain enregistrement à appliquer
+    private int tick;
+    private long inputs;
+
+    public ReplayEngine(ReplayLog log) {
+        this.log = log;
+        Arrays.fill(indexOfId, -1);
+        index();
+        seek(log.startTick());
+    }
+
+    public static ReplayEngine open(Path file) throws IOException {
+        return new ReplayEngine(ReplayLog.open(file));
+    }
+
+    private void index() {
+        ByteBuffer data = log.data();
+        endTick = log.startTick();
+        int at = log.recordsStart();
+        while (log.read(at, record)) {
+            endTick = Math.max(endTick, record.tick);
+            switch (record.type) {
+                case ReplayLog.TYPE_KEYFRAME:
+                    if (keyframes == keyframeOffsets.length) {
+                        keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframes * 2);
+                        keyframeTicks = Arrays.copyOf(keyframeTicks, keyframes * 2);
+                    }
+                    keyframeOffsets[keyframes] = at;
+                    keyframeTicks[keyframes++] = record.tick;
+                    break;
+                case ReplayLog.TYPE_PLAYER:
+                    byte[] name = new byte[record.length - 2];
+                    for (int i = 0; i < name.length; i++) name[i] = data.get(record.payload + 2 + i);
+                    names[data.getShort(record.payload) & 0xFFFF] = new String(name, StandardCharsets.UTF_8);
+                    break;
+                case ReplayLog.TYPE_WIN:
+                    if (winnerId < 0) {
+                        winnerId = data.getShort(record.payload) & 0xFFFF;
+                        winTick = record.tick;
+                    }
+                    break;
+                case ReplayLog.TYPE_END:
+                    complete = true;
+                    break;
+                default:
+                    break;
+            }
+            at = record.next;
+        }
+    }
+
+    // --- NAVIGATION ---
+
+    // Positionne la relecture sur "target" : dernière image complète <= target, puis les deltas
+    public void seek(int target) {
+        int lo = 0, hi = keyframes - 1, found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keyframeTicks[mid] <= target) { found = mid; lo = mid + 1; } else hi = mid - 1;
+        }
+        clear();
+        offset = found >= 0 ? keyframeOffsets[found] : log.recordsStart();
+        tick = found >= 0 ? keyframeTicks[found] : Math.min(target, log.startTick());
+        advanceTo(target);
+    }
+
+    // Applique les enregistrements jusqu'à "target" inclus ; renvoie le nombre d'enregistrements lus
+    public int advanceTo(int target) {
+        if (target < tick) {
+            seek(target);
+            return 0;
+        }
+        ByteBuffer data = log.data();
+        int applied = 0;
+        while (log.read(offset, record) && record.tick <= target) {
+            switch (record.type) {
+                case ReplayLog.TYPE_KEYFRAME:
+                    clear();
+                    applyPositions(data);
+                    break;
+                case ReplayLog.TYPE_DELTA:
+                    applyPositions(data);
+                    break;
+                case ReplayLog.TYPE_INPUT:
+                    inputs++;
+                    break;
+                case ReplayLog.TYPE_LEAVE:
+                    removePlayer(data.getShort(record.payload) & 0xFFFF);
+                    break;
+                default:
+                    break;
+            }
+            offset = record.next;
+            applied++;
+        }
+        tick = target;
+        return applied;
+    }
+
+    private void applyPositions(ByteBuffer data) {
+        int n = data.getShort(record.payload) & 0xFFFF;
+        for (int i = 0, p = record.payload + 2; i < n; i++, p += ReplayLog.POSITION_SIZE) {
+            int id = data.getShort(p) & 0xFFFF;
+            int index = indexOfId[id];
+            if (index < 0) {
+                index = count++;
+                indexOfId[id] = index;
+                ids[index] = id;
+            }
+            xs[index] = data.getShort(p + 2) & 0xFFFF;
+            ys[index] = data.getShort(p + 4) & 0xFFFF;
+        }
+    }
+
+    // Le dernier joueur prend la place du partant : les positions restent contiguës
+    private void removePlayer(int id) {
+        int index = indexOfId[id];
+        if (index < 0) return;
+        int last = --count;
+        indexOfId[id] = -1;
+        if (index != last) {
+            ids[index] = ids[last];
+            xs[index] = xs[last];
+            ys[index] = ys[last];
+            indexOfId[ids[index]] = index;
+        }
+    }
+
+    private void clear() {
+        for (int i = 0; i < count; i++) indexOfId[ids[i]] = -1;
+        count = 0;
+    }
+
+    // --- ACCESSEURS ---
+    public ReplayLog log() { return log; }
+    public int tick() { return tick; }
+    public int startTick() { return log.startTick(); }
+    public int endTick() { return endTick; }
+    public boolean atEnd() { return tick >= endTick; }
+    public boolean complete() { return complete; }
+    public int keyframes() { return keyframes; }
+    public int winnerId() { return winnerId; }
+    public int winTick() { return winTick; }
+    public long inputs() { return inputs; }
+
+    public int playerCount() { return count; }
+    public int playerId(int i) { return ids[i]; }
+    public int x(int i) { return xs[i]; }
+    public int y(int i) { return ys[i]; }
+    public String name(int id) { return names[id] != null ? names[id] : "#" + id; }
+
+    public double seconds(int atTick) { return (atTick - log.startTick()) / (double) log.tickRate(); }
+
+    // --- RELECTURE SANS AFFICHAGE ---
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.out.println("Usage : java common.ReplayEngine <fichier.mzr> [--seek secondes] [--speed N]");
+            return;
+        }
+        Path file = Paths.get(args[0]);
+        double seekSeconds = -1;
+        double speed = 0; // 0 : aussi vite que possible
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--seek")) seekSeconds = Double.parseDouble(args[i + 1]);
+            if (args[i].equals("--speed")) speed = Double.parseDouble(args[i + 1]);
+        }
+
+        long openStart = System.nanoTime();
+        ReplayEngine engine = open(file);
+        ReplayLog log = engine.log();
+        long openMicros = (System.nanoTime() - openStart) / 1000;
+        int ticks = engine.endTick() - engine.startTick();
+        System.out.println("[REPLAY] " + file.getFileName() + " : salle " + log.roomId() + ", manche " + log.round()
+                + ", " + log.maze().getSize() + "x" + log.maze().getSize() + ", graine " + log.seed()
+                + ", " + Files.size(file) / 1024 + " Ko");
+        System.out.printf("[REPLAY] %d ticks (%.1f s à %d Hz), %d images complètes%s, index en %d µs%n",
+                ticks, engine.seconds(engine.endTick()), log.tickRate(), engine.keyframes(),
+                engine.complete() ? "" : " (manche interrompue)", openMicros);
+        if (engine.winnerId() >= 0) {
+            System.out.printf("[REPLAY] Victoire de %s à %.1f s%n", engine.name(engine.winnerId()), engine.seconds(engine.winTick()));
+        }
+
+        // Avance rapide : tout le fichier d'un coup, une fois à froid puis une fois chaud
+        for (int pass = 0; pass < 2; pass++) {
+            engine.seek(engine.startTick());
+            long start = System.nanoTime();
+            int records = 0;
+            for (int t = engine.startTick() + 1; t <= engine.endTick(); t++) records += engine.advanceTo(t);
+            long nanos = Math.max(1, System.nanoTime() - start);
+            System.out.printf("[REPLAY] Avance rapide : %d enregistrements en %.2f ms, %.0fx le temps réel%n",
+                    records, nanos / 1e6, engine.seconds(engine.endTick()) * 1e9 / nanos);
+        }
+
+        if (seekSeconds >= 0) {
+            int target = engine.startTick() + (int) Math.round(seekSeconds * log.tickRate());
+            long start = System.nanoTime();
+            engine.seek(target);
+            System.out.printf("[REPLAY] Seek à %.1f s en %d µs : %d joueurs%n",
+                    engine.seconds(target), (System.nanoTime() - start) / 1000, engine.playerCount());
+            for (int i = 0; i < Math.min(10, engine.playerCount()); i++) {
+                System.out.println("    " + engine.name(engine.playerId(i)) + " (" + engine.x(i) + ", " + engine.y(i) + ")");
+            }
+        }
+
+        // Lecture en temps réel accéléré : un résumé par seconde de jeu
+        if (speed > 0) {
+            long period = (long) (1_000_000_000L / (log.tickRate() * speed));
+            long next = System.nanoTime();
+            for (int t = engine.tick() + 1; t <= engine.endTick(); t++) {
+                engine.advanceTo(t);
+                if ((t - engine.startTick()) % log.tickRate() == 0) {
+                    System.out.printf("  %6.1f s  %d joueurs%n", engine.seconds(t), engine.playerCount());
+                }
+                next += period;
+                long wait = next - System.nanoTime();
+                if (wait > 0) Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package common;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Journal de replay d'une manche : fichier binaire en ajout seul, écrit par server.ReplayRecorder
+// et relu (projeté en mémoire) par ReplayEngine. Grand-boutiste, comme le protocole UDP.
+//
+//   En-tête : [magic "MZRP"][version:u8][roomId:u16][round:u16][tickRate:u16][seed:i64][startTick:u32]
+//             [size:u16][hashLength:u8][hash ASCII][mazeLength:u32][labyrinthe MazeCodec]
+//   Puis des enregistrements : [type:u8][tick:u32][length:u16] + length octets
+//     INPUT    [playerId:u16][dir:u8][seq:u16]                     entrée appliquée par le tick
+//     DELTA    [count:u16] + count x [playerId:u16][x:u16][y:u16]  joueurs modifiés pendant le tick
+//     KEYFRAME comme DELTA mais remplace tout l'état (les DELTA du même tick le complètent)
+//     PLAYER   [playerId:u16][nom UTF-8]                           joueur présent (nom affiché)
+//     WIN      [playerId:u16]
+//     LEAVE    [playerId:u16]                                      joueur parti (leave ou inactif)
+//     END      fin de manche
+// Un type 0 marque la fin des données : fichier d'une manche interrompue (arrêt du serveur).
+public final class ReplayLog {
+
+    public static final int MAGIC = 0x4D5A5250; // "MZRP"
+    public static final int VERSION = 1;
+
+    public static final int TYPE_INPUT = 1;
+    public static final int TYPE_DELTA = 2;
+    public static final int TYPE_KEYFRAME = 3;
+    public static final int TYPE_PLAYER = 4;
+    public static final int TYPE_WIN = 5;
+    public static final int TYPE_END = 6;
+    public static final int TYPE_LEAVE = 7;
+
+    public static final int RECORD_HEADER_SIZE = 7;
+    public static final int POSITION_SIZE = 6;
+    public static final int MAX_POSITIONS = 1024; // par enregistrement : au-delà, plusieurs enregistrements
+    public static final int MAX_NAME_BYTES = 64;
+
+    // Enregistrement lu, réutilisé (pas d'allocation en lecture)
+    public static final class Record {
+        public int type;
+        public int tick;
+        public int payload; // position absolue du contenu
+        public int length;
+        public int next;    // position de l'enregistrement suivant
+    }
+
+    private final ByteBuffer data;
+    private final int roomId;
+    private final int round;
+    private final int tickRate;
+    private final long seed;
+    private final int startTick;
+    private final EncodedMaze maze;
+    private final int recordsStart;
+
+    private ReplayLog(ByteBuffer data) throws IOException {
+        this.data = data;
+        if (data.remaining() < 26 || data.getInt(0) != MAGIC) throw new IOException("Pas un fichier de replay");
+        if ((data.get(4) & 0xFF) != VERSION) throw new IOException("Version de replay inconnue : " + (data.get(4) & 0xFF));
+        roomId = data.getShort(5) & 0xFFFF;
+        round = data.getShort(7) & 0xFFFF;
+        tickRate = data.getShort(9) & 0xFFFF;
+        seed = data.getLong(11);
+        startTick = data.getInt(19);
+        int size = data.getShort(23) & 0xFFFF;
+        int hashLength = data.get(25) & 0xFF;
+        byte[] hash = new byte[hashLength];
+        int p = 26;
+        for (int i = 0; i < hashLength; i++) hash[i] = data.get(p++);
+        int mazeLength = data.getInt(p);
+        p += 4;
+        byte[] packed = new byte[mazeLength];
+        for (int i = 0; i < mazeLength; i++) packed[i] = data.get(p++);
+        maze = new EncodedMaze(size, MazeCodec.ENCODING, new String(hash, StandardCharsets.US_ASCII), packed);
+        recordsStart = p;
+    }
+
+    // Projette le fichier en mémoire (lecture seule) ; le fichier peut être encore en cours d'écriture
+    public static ReplayLog open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ReplayLog(data);
+        }
+    }
+
+    // --- LECTURE ---
+
+    // Lit l'enregistrement à "offset" ; false en fin de données (type 0, fichier tronqué)
+    public boolean read(int offset, Record out) {
+        if (data.limit() - offset < RECORD_HEADER_SIZE) return false;
+        int type = data.get(offset) & 0xFF;
+        int length = data.getShort(offset + 5) & 0xFFFF;
+        if (type == 0 || data.limit() - offset - RECORD_HEADER_SIZE < length) return false;
+        out.type = type;
+        out.tick = data.getInt(offset + 1);
+        out.payload = offset + RECORD_HEADER_SIZE;
+        out.length = length;
+        out.next = out.payload + length;
+        return true;
+    }
+
+    public ByteBuffer data() { return data; }
+    public int recordsStart() { return recordsStart; }
+    public int roomId() { return roomId; }
+    public int round() { return round; }
+    public int tickRate() { return tickRate; }
+    public long seed() { return seed; }
+    public int startTick() { return startTick; }
+    public EncodedMaze maze() { return maze; }
+
+    // --- ÉCRITURE (server.ReplayRecorder) ---
+
+    public static void writeHeader(ByteBuffer buf, int roomId, int round, int tickRate, long seed, int startTick,
+                                   EncodedMaze maze) {
+        byte[] hash = maze.getHash().getBytes(StandardCharsets.US_ASCII);
+        buf.putInt(MAGIC).put((byte) VERSION);
+        buf.putShort((short) roomId).putShort((short) round).putShort((short) tickRate);
+        buf.putLong(seed).putInt(startTick);
+        buf.putShort((short) maze.getSize()).put((byte) hash.length).put(hash);
+        buf.putInt(maze.getData().length).put(maze.getData());
+    }
+
+    public static int headerSize(EncodedMaze maze) {
+        return 30 + maze.getHash().length() + maze.getData().length;
+    }
+
+    // Renvoie la position de l'enregistrement, à passer à endRecord une fois le contenu écrit
+    public static int beginRecord(ByteBuffer buf, int type, int tick) {
+        int start = buf.position();
+        buf.put((byte) type).putInt(tick).putShort((short) 0);
+        return start;
+    }
+
+    public static void endRecord(ByteBuffer buf, int start) {
+        buf.putShort(start + 5, (short) (buf.position() - start - RECORD_HEADER_SIZE));
+    }
+}
@@ -0,0 +1,302 @@
+package loadtest;
+
+import common.IGameService;
+import common.LoginTicket;
+import common.Protocol;
+import server.Navigation;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Boucle unique du test de charge : envoie les MOVE de tous les joueurs simulés à leur cadence
+// et lit les snapshots sur un petit pool de DatagramChannel non bloquants (Selector).
+// Plusieurs joueurs partagent un même canal, donc la même adresse vue du serveur : les snapshots
+// arrivent en plusieurs exemplaires sur ce canal, exactement comme pour des clients séparés.
+//
+// Latence mesurée : envoi d'un MOVE -> premier snapshot où le serveur acquitte ce numéro
+// de séquence (la colonne "seq" des entrées du joueur). Joueurs en tableaux, pas d'objet par joueur.
+final class Driver {
+
+    static final int STRATEGY_RANDOM = 0; // direction au hasard (beaucoup de collisions)
+    static final int STRATEGY_SOLVER = 1; // suit le champ de distances vers la sortie (manches qui s'enchaînent)
+    static final int STRATEGY_IDLE = 2;   // DIR_NONE : mesure le chemin réseau + tick sans déplacement
+
+    private static final int WINDOW = 64; // MOVE en attente d'acquittement par joueur (puissance de 2)
+
+    // Une salle vue par le générateur de charge : son nœud, sa grille (stratégie solver) et ses joueurs
+    private static final class RoomView {
+        final int roomId;
+        final InetSocketAddress target; // port UDP du nœud qui l'héberge
+        final int[] localIndex = new int[0x10000]; // playerId -> index local, -1 si ce n'est pas un des nôtres
+        int round = -1;
+        int[][] grid;
+        Navigation navigation;
+
+        RoomView(int roomId, InetSocketAddress target) {
+            this.roomId = roomId;
+            this.target = target;
+            Arrays.fill(localIndex, -1);
+        }
+    }
+
+    private final IGameService server;
+    private final int strategy;
+    private final long intervalNanos;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    // --- JOUEURS (struct-of-arrays) ---
+    private final int n;
+    private final RoomView[] roomOf;
+    private final int[] playerIds;
+    private final int[] tokens;
+    private final int[] channelOf;
+    private final int[] seqs;
+    private final int[] lastAcked;
+    private final int[] xs;
+    private final int[] ys;
+    private final long[] nextMoveAt;
+    private final long[] sentAt; // n * WINDOW, 0 = case libre
+
+    private final RoomView[] rooms = new RoomView[0x10000];
+    private final DatagramChannel[] channels;
+    private final Selector selector;
+    private final ByteBuffer out = ByteBuffer.allocateDirect(Protocol.MAX_PACKET_SIZE);
+    private final ByteBuffer in = ByteBuffer.allocateDirect(64 * 1024);
+    private final Protocol.Pos pos = new Protocol.Pos();
+    private final Protocol.Reliable reliable = new Protocol.Reliable();
+    private final ByteBuffer ackOut = ByteBuffer.allocateDirect(Protocol.ACK_SIZE);
+
+    // --- MESURES ---
+    final LatencyHistogram latency = new LatencyHistogram();
+    long movesSent, movesAcked, movesExpired, sendFailures;
+    long snapshotsReceived, entriesReceived, bytesReceived, reliableReceived, otherPackets;
+    final List<long[]> timeline = new ArrayList<>(); // par seconde : t, envoyés, acquittés, snapshots, octets reçus
+
+    // host : adresse des nœuds qui n'en annoncent pas (serveur autonome, ou nœuds sur la machine du lobby)
+    Driver(IGameService server, String host, List<LoginTicket> tickets, int channelCount,
+           int strategy, double movesPerSecond) throws IOException {
+        this.server = server;
+        this.strategy = strategy;
+        this.intervalNanos = (long) (1_000_000_000L / movesPerSecond);
+        n = tickets.size();
+        roomOf = new RoomView[n];
+        playerIds = new int[n];
+        tokens = new int[n];
+        channelOf = new int[n];
+        seqs = new int[n];
+        lastAcked = new int[n];
+        xs = new int[n];
+        ys = new int[n];
+        nextMoveAt = new long[n];
+        sentAt = new long[n * WINDOW];
+
+        selector = Selector.open();
+        channels = new DatagramChannel[Math.max(1, Math.min(channelCount, n))];
+        for (int c = 0; c < channels.length; c++) {
+            channels[c] = DatagramChannel.open();
+            channels[c].bind(null);
+            channels[c].configureBlocking(false);
+            channels[c].register(selector, SelectionKey.OP_READ);
+        }
+        for (int i = 0; i < n; i++) {
+            LoginTicket ticket = tickets.get(i);
+            RoomView room = rooms[ticket.getRoomId()];
+            if (room == null) {
+                InetSocketAddress target = new InetSocketAddress(ticket.nodeHostOr(host), ticket.getNodeUdpPort());
+                room = rooms[ticket.getRoomId()] = new RoomView(ticket.getRoomId(), target);
+            }
+            room.localIndex[ticket.getPlayerId()] = i;
+            roomOf[i] = room;
+            playerIds[i] = ticket.getPlayerId();
+            tokens[i] = ticket.getSessionToken();
+            channelOf[i] = i % channels.length;
+            xs[i] = 1;
+            ys[i] = 1;
+        }
+    }
+
+    // Envoie pendant durationNanos puis écoute encore drainNanos pour les derniers acquittements
+    void run(long durationNanos, long drainNanos) throws IOException {
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            if (strategy == STRATEGY_SOLVER && roomOf[i].navigation == null) loadMaze(roomOf[i]);
+            sendMove(i, Protocol.DIR_NONE, start); // annonce l'adresse UDP (snapshot complet en retour)
+            nextMoveAt[i] = start + random.nextLong(intervalNanos); // départs étalés sur un intervalle
+        }
+        long end = start + durationNanos;
+        long stop = end + drainNanos;
+        long nextReport = start + 1_000_000_000L;
+        long[] last = new long[4];
+
+        long now;
+        while ((now = System.nanoTime()) < stop) {
+            if (now < end) {
+                for (int i = 0; i < n; i++) {
+                    if (nextMoveAt[i] > now) continue;
+                    sendMove(i, chooseDir(i), now);
+                    // En retard d'un intervalle entier (machine de test saturée) : pas de rafale de rattrapage
+                    nextMoveAt[i] = nextMoveAt[i] + intervalNanos < now ? now + intervalNanos : nextMoveAt[i] + intervalNanos;
+                }
+            }
+            selector.select(1);
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                DatagramChannel ch = (DatagramChannel) keys.next().channel();
+                keys.remove();
+                drain(ch);
+            }
+            if (now >= nextReport) {
+                long[] line = {(now - start) / 1_000_000_000L, movesSent - last[0], movesAcked - last[1],
+                        snapshotsReceived - last[2], bytesReceived - last[3]};
+                timeline.add(line);
+                System.out.printf("[LOAD] t=%3ds envoyés=%d/s acquittés=%d/s snapshots=%d/s entrée=%.2f Mbit/s p99=%d µs%n",
+                        line[0], line[1], line[2], line[3], line[4] * 8 / 1e6, latency.percentile(99));
+                last[0] = movesSent;
+                last[1] = movesAcked;
+                last[2] = snapshotsReceived;
+                last[3] = bytesReceived;
+                nextReport += 1_000_000_000L;
+            }
+        }
+        // Ce qui n'a jamais été acquitté est compté comme perdu
+        for (long t : sentAt) if (t != 0) movesExpired++;
+    }
+
+    private int chooseDir(int i) {
+        switch (strategy) {
+            case STRATEGY_IDLE:
+                return Protocol.DIR_NONE;
+            case STRATEGY_SOLVER: {
+                Navigation nav = roomOf[i].navigation;
+                int dir = nav == null ? Protocol.DIR_NONE : nav.nextDirToExit(xs[i], ys[i]);
+                if (dir != Protocol.DIR_NONE) return dir;
+                return Protocol.DIR_UP + random.nextInt(4); // déjà sur la sortie : on attend la manche suivante
+            }
+            default:
+                return Protocol.DIR_UP + random.nextInt(4);
+        }
+    }
+
+    private void sendMove(int i, int dir, long now) throws IOException {
+        int seq = (seqs[i] + 1) & 0xFFFF;
+        if (seq == 0) seq = 1; // 0 = coup non numéroté pour le serveur
+        out.clear();
+        Protocol.writeMove(out, roomOf[i].roomId, playerIds[i], tokens[i], dir, seq);
+        out.flip();
+        if (channels[channelOf[i]].send(out, roomOf[i].target) == 0) { // buffer d'envoi du système plein
+            sendFailures++;
+            return;
+        }
+        seqs[i] = seq;
+        movesSent++;
+        int slot = i * WINDOW + (seq & (WINDOW - 1));
+        if (sentAt[slot] != 0) movesExpired++; // plus de WINDOW coups sans réponse
+        sentAt[slot] = now;
+
+        int[][] grid = roomOf[i].grid;
+        if (grid != null) { // position estimée en attendant l'acquittement (stratégie solver)
+            int x = xs[i] + Protocol.dx(dir), y = ys[i] + Protocol.dy(dir);
+            if (x >= 0 && y >= 0 && x < grid.length && y < grid.length && grid[x][y] != 1) {
+                xs[i] = x;
+                ys[i] = y;
+            }
+        }
+    }
+
+    private void drain(DatagramChannel ch) throws IOException {
+        while (true) {
+            in.clear();
+            if (ch.receive(in) == null) return;
+            in.flip();
+            long now = System.nanoTime();
+            bytesReceived += in.remaining();
+            if (Protocol.readReliable(in, reliable)) { // sinon le serveur le renverrait en boucle
+                reliableReceived++;
+                RoomView room = rooms[Protocol.roomId(in)];
+                int i = room == null ? -1 : room.localIndex[reliable.playerId];
+                if (i < 0) continue;
+                ackOut.clear();
+                Protocol.writeAck(ackOut, room.roomId, reliable.playerId, tokens[i], reliable.seq, 0);
+                ackOut.flip();
+                ch.send(ackOut, room.target);
+                continue;
+            }
+            int count = Protocol.readSnapshot(in);
+            if (count < 0) {
+                otherPackets++;
+                continue;
+            }
+            snapshotsReceived++;
+            entriesReceived += count;
+            RoomView room = rooms[Protocol.roomId(in)];
+            if (room == null) continue;
+            int round = Protocol.snapshotRound(in);
+            if (room.round != round) newRound(room, round);
+            for (int e = 0; e < count; e++) {
+                Protocol.readSnapshotEntry(in, e, pos);
+                int i = room.localIndex[pos.playerId];
+                if (i >= 0) onAck(i, pos, now);
+            }
+        }
+    }
+
+    private void onAck(int i, Protocol.Pos p, long now) {
+        int last = lastAcked[i];
+        int ahead = (p.seq - last) & 0xFFFF;
+        if (ahead == 0 || ahead > 0x7FFF) return; // déjà vu (snapshot dupliqué ou ancien)
+        // Tous les coups jusqu'à p.seq sont traités (plusieurs coups peuvent partir dans le même tick)
+        for (int k = 1; k <= Math.min(ahead, WINDOW); k++) {
+            int slot = i * WINDOW + ((last + k) & (WINDOW - 1));
+            if (sentAt[slot] != 0) {
+                latency.record((now - sentAt[slot]) / 1000);
+                sentAt[slot] = 0;
+                movesAcked++;
+            }
+        }
+        lastAcked[i] = p.seq;
+        if (p.seq == seqs[i]) { // plus rien en vol : la position serveur est la bonne
+            xs[i] = p.x;
+            ys[i] = p.y;
+        }
+    }
+
+    private void newRound(RoomView room, int round) {
+        boolean first = room.round < 0;
+        room.round = round;
+        if (first) return; // labyrinthe déjà chargé au démarrage
+        if (strategy == STRATEGY_SOLVER) loadMaze(room);
+        for (int i = 0; i < n; i++) { // nouvelle manche : tout le monde revient au départ
+            if (roomOf[i] == room) {
+                xs[i] = 1;
+                ys[i] = 1;
+            }
+        }
+    }
+
+    // Stratégie solver : grille récupérée par RMI et champ de distances calculé localement
+    private void loadMaze(RoomView room) {
+        try {
+            room.grid = server.getEncodedMaze(room.roomId).toGrid();
+            room.navigation = new Navigation(room.grid);
+        } catch (IOException e) {
+            System.err.println("[LOAD] Labyrinthe de la salle " + room.roomId + " indisponible : " + e.getMessage());
+        }
+    }
+
+    int players() { return n; }
+    int channelCount() { return channels.length; }
+
+    void close() throws IOException {
+        for (DatagramChannel ch : channels) ch.close();
+        selector.close();
+    }
+}
@@ -0,0 +1,38 @@
+package loadtest;
+
+import common.LogLinearBuckets;
+
+// Histogramme de latences façon HdrHistogram, sans dépendance : valeurs entières (microsecondes),
+// cases exactes jusqu'à 255 puis 128 sous-cases par puissance de 2 (erreur relative < 1%).
+// Enregistrement en O(1) sans allocation ; percentiles calculés à la fin du test.
+// Découpage des cases : common.LogLinearBuckets, le même que pour les métriques du serveur.
+// Non thread-safe : utilisé par la seule boucle du Driver.
+final class LatencyHistogram {
+
+    private static final LogLinearBuckets BUCKETS = new LogLinearBuckets(7); // 128 sous-cases
+
+    private final long[] counts = new long[BUCKETS.count()];
+    private long total;
+    private long min = Long.MAX_VALUE;
+    private long max;
+    private double sum;
+
+    void record(long value) {
+        if (value < 0) value = 0;
+        counts[BUCKETS.indexOf(value)]++;
+        total++;
+        sum += value;
+        if (value < min) min = value;
+        if (value > max) max = value;
+    }
+
+    // p entre 0 et 100
+    long percentile(double p) {
+        return BUCKETS.percentile(counts, p, max);
+    }
+
+    long count() { return total; }
+    long min() { return total == 0 ? 0 : min; }
+    long max() { return max; }
+    double mean() { return total == 0 ? 0 : sum / total; }
+}
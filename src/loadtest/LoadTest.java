@@ -0,0 +1,185 @@
+package loadtest;
+
+import common.Constants;
+import common.IGameService;
+import common.LoginTicket;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Test de charge sans interface : N joueurs se connectent par RMI puis jouent en UDP.
+// Mesure la latence MOVE -> acquittement dans un snapshot (percentiles), les pertes et le débit.
+//
+//   java -cp <classes>:activemq-all.jar -Dload.embedded=true -Dload.players=2000 loadtest.LoadTest
+//
+// Options (-D) :
+//   load.embedded  true : démarre un MazeServer dans ce processus, avec le bus d'événements
+//                  en mémoire (-Dmaze.eventBus=memory) : pas de broker ActiveMQ nécessaire
+//   load.nodes     avec load.embedded : un lobby + N nœuds de jeu (ports RMI/UDP consécutifs)
+//   load.host      serveur visé (défaut : 127.0.0.1 en mode embarqué, sinon maze.serverIp)
+//   load.size      taille des labyrinthes du serveur embarqué (21, 41, 61...)
+//   load.players   nombre de joueurs simulés         load.rooms     répartis sur N salles
+//   load.rate      coups par seconde et par joueur    load.channels  nombre de sockets UDP
+//   load.strategy  random, solver (vers la sortie) ou idle (DIR_NONE)
+//   load.duration  durée en secondes                  load.report    fichier JSON du rapport
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        boolean embedded = Boolean.getBoolean("load.embedded");
+        if (embedded && System.getProperty("maze.eventBus") == null) {
+            // Avant le premier accès à Constants : EVENT_BUS est lu à l'initialisation de la classe
+            System.setProperty("maze.eventBus", "memory");
+        }
+        String host = System.getProperty("load.host", embedded ? "127.0.0.1" : Constants.SERVER_IP);
+        int size = Integer.getInteger("load.size", 41);
+        int players = Integer.getInteger("load.players", 500);
+        int roomCount = Integer.getInteger("load.rooms", 1);
+        int nodes = Integer.getInteger("load.nodes", 0);
+        double rate = Double.parseDouble(System.getProperty("load.rate", "10"));
+        int channels = Integer.getInteger("load.channels", 8);
+        String strategyName = System.getProperty("load.strategy", "random");
+        int duration = Integer.getInteger("load.duration", 30);
+        String reportFile = System.getProperty("load.report", "loadtest-report.json");
+        int strategy = strategyOf(strategyName);
+
+        if (embedded && nodes > 0) startEmbeddedCluster(size, nodes);
+        else if (embedded) startEmbeddedServer(size);
+
+        Registry registry = LocateRegistry.getRegistry(host, Constants.RMI_PORT);
+        IGameService server = (IGameService) registry.lookup(Constants.RMI_ID);
+
+        // 1. Connexions RMI (salles load-0, load-1...)
+        long loginStart = System.nanoTime();
+        List<LoginTicket> tickets = new ArrayList<>(players);
+        for (int i = 0; i < players; i++) {
+            String room = roomCount <= 1 ? "main" : "load-" + (i % roomCount);
+            tickets.add(server.login("load-" + i, room));
+        }
+        double loginMillis = (System.nanoTime() - loginStart) / 1e6;
+        System.out.printf(Locale.ROOT, "[LOAD] %d joueurs connectés en %.0f ms%n", players, loginMillis);
+        Map<String, Integer> perNode = new TreeMap<>();
+        for (LoginTicket ticket : tickets) perNode.merge(ticket.nodeHostOr(host) + ":" + ticket.getNodeUdpPort(), 1, Integer::sum);
+        if (perNode.size() > 1) System.out.println("[LOAD] Joueurs par nœud : " + perNode);
+
+        // 2. Trafic UDP
+        Driver driver = new Driver(server, host, tickets, channels, strategy, rate);
+        driver.run(duration * 1_000_000_000L, 2_000_000_000L);
+        driver.close();
+
+        // Départs : les places sont rendues tout de suite au lieu d'attendre le délai d'inactivité
+        long leaveStart = System.nanoTime();
+        int left = 0;
+        for (LoginTicket ticket : tickets) {
+            if (server.leave(ticket.getRoomId(), ticket.getPlayerId(), ticket.getSessionToken())) left++;
+        }
+        System.out.printf(Locale.ROOT, "[LOAD] %d/%d départs en %.0f ms%n", left, players,
+                (System.nanoTime() - leaveStart) / 1e6);
+
+        // 3. Rapport
+        try (Writer out = new FileWriter(reportFile)) {
+            writeReport(out, driver, host, embedded, strategyName, rate, roomCount, duration, loginMillis);
+        }
+        System.out.printf(Locale.ROOT, "[LOAD] p50=%d µs p99=%d µs p99.9=%d µs max=%d µs, pertes=%.2f %% -> %s%n",
+                driver.latency.percentile(50), driver.latency.percentile(99), driver.latency.percentile(99.9),
+                driver.latency.max(), lossPercent(driver), reportFile);
+        System.exit(0); // Le serveur embarqué et RMI gardent des threads non démons
+    }
+
+    private static int strategyOf(String name) {
+        switch (name) {
+            case "random": return Driver.STRATEGY_RANDOM;
+            case "solver": return Driver.STRATEGY_SOLVER;
+            case "idle": return Driver.STRATEGY_IDLE;
+            default: throw new IllegalArgumentException("Stratégie inconnue : " + name + " (random, solver, idle)");
+        }
+    }
+
+    private static void startEmbeddedServer(int size) throws Exception {
+        Registry registry = LocateRegistry.createRegistry(Constants.RMI_PORT);
+        registry.rebind(Constants.RMI_ID, new server.MazeServer(size));
+        System.out.println("[LOAD] Serveur embarqué " + size + "x" + size + ", bus d'événements " + Constants.EVENT_BUS);
+    }
+
+    // Lobby sur le port RMI habituel, nœud i sur RMI_PORT + 1 + i et UDP_PORT + 1 + i, métriques coupées
+    private static void startEmbeddedCluster(int size, int nodes) throws Exception {
+        server.MazeServer.launch(new String[]{"--role=lobby", "--rmiPort=" + Constants.RMI_PORT});
+        for (int i = 0; i < nodes; i++) {
+            server.MazeServer.launch(new String[]{"--role=node", "--size=" + size,
+                    "--rmiPort=" + (Constants.RMI_PORT + 1 + i), "--udpPort=" + (Constants.UDP_PORT + 1 + i),
+                    "--metricsPort=0", "--lobby=127.0.0.1:" + Constants.RMI_PORT});
+        }
+        // Les nœuds ne reçoivent des joueurs qu'après leur premier rapport de charge
+        Thread.sleep(500);
+        System.out.println("[LOAD] Lobby + " + nodes + " nœuds embarqués " + size + "x" + size + ", bus d'événements " + Constants.EVENT_BUS);
+    }
+
+    private static double lossPercent(Driver d) {
+        return d.movesSent == 0 ? 0 : 100.0 * d.movesExpired / d.movesSent;
+    }
+
+    // JSON écrit à la main (pas de bibliothèque dans le projet)
+    private static void writeReport(Writer out, Driver d, String host, boolean embedded, String strategy,
+                                    double rate, int rooms, int duration, double loginMillis) throws IOException {
+        LatencyHistogram h = d.latency;
+        StringBuilder json = new StringBuilder(4096);
+        json.append("{\n");
+        json.append("  \"config\": {")
+                .append("\"host\": \"").append(host).append("\", ")
+                .append("\"embedded\": ").append(embedded).append(", ")
+                .append("\"players\": ").append(d.players()).append(", ")
+                .append("\"rooms\": ").append(rooms).append(", ")
+                .append("\"channels\": ").append(d.channelCount()).append(", ")
+                .append("\"strategy\": \"").append(strategy).append("\", ")
+                .append("\"movesPerSecondPerPlayer\": ").append(rate).append(", ")
+                .append("\"durationSeconds\": ").append(duration).append(", ")
+                .append("\"serverTickRate\": ").append(Constants.TICK_RATE).append("},\n");
+        json.append("  \"loginMillis\": ").append(String.format(Locale.ROOT, "%.1f", loginMillis)).append(",\n");
+        json.append("  \"moves\": {")
+                .append("\"sent\": ").append(d.movesSent).append(", ")
+                .append("\"acked\": ").append(d.movesAcked).append(", ")
+                .append("\"lost\": ").append(d.movesExpired).append(", ")
+                .append("\"lossPercent\": ").append(String.format(Locale.ROOT, "%.3f", lossPercent(d))).append(", ")
+                .append("\"sendFailures\": ").append(d.sendFailures).append("},\n");
+        json.append("  \"received\": {")
+                .append("\"snapshots\": ").append(d.snapshotsReceived).append(", ")
+                .append("\"entries\": ").append(d.entriesReceived).append(", ")
+                .append("\"bytes\": ").append(d.bytesReceived).append(", ")
+                .append("\"reliable\": ").append(d.reliableReceived).append(", ")
+                .append("\"otherPackets\": ").append(d.otherPackets).append("},\n");
+        json.append("  \"throughput\": {")
+                .append("\"movesPerSecond\": ").append(d.movesSent / Math.max(1, duration)).append(", ")
+                .append("\"snapshotsPerSecond\": ").append(d.snapshotsReceived / Math.max(1, duration)).append(", ")
+                .append("\"megabitsPerSecondIn\": ")
+                .append(String.format(Locale.ROOT, "%.3f", d.bytesReceived * 8 / 1e6 / Math.max(1, duration))).append("},\n");
+        json.append("  \"latencyMicros\": {")
+                .append("\"count\": ").append(h.count()).append(", ")
+                .append("\"min\": ").append(h.min()).append(", ")
+                .append("\"mean\": ").append(String.format(Locale.ROOT, "%.1f", h.mean())).append(", ")
+                .append("\"p50\": ").append(h.percentile(50)).append(", ")
+                .append("\"p90\": ").append(h.percentile(90)).append(", ")
+                .append("\"p99\": ").append(h.percentile(99)).append(", ")
+                .append("\"p99_9\": ").append(h.percentile(99.9)).append(", ")
+                .append("\"p99_99\": ").append(h.percentile(99.99)).append(", ")
+                .append("\"max\": ").append(h.max()).append("},\n");
+        json.append("  \"timeline\": [");
+        for (int i = 0; i < d.timeline.size(); i++) {
+            long[] t = d.timeline.get(i);
+            json.append(i == 0 ? "\n" : ",\n")
+                    .append("    {\"second\": ").append(t[0])
+                    .append(", \"sent\": ").append(t[1])
+                    .append(", \"acked\": ").append(t[2])
+                    .append(", \"snapshots\": ").append(t[3])
+                    .append(", \"bytesIn\": ").append(t[4]).append('}');
+        }
+        json.append("\n  ]\n}\n");
+        out.write(json.toString());
+    }
+}
@@ -0,0 +1,41 @@
+package server;
+
+import java.util.SplittableRandom;
+
+// Recursive Backtracker (DFS) avec une pile explicite au lieu de la récursion :
+// plus de StackOverflowError sur les grands labyrinthes, aucune allocation par cellule.
+class BacktrackerGenerator implements MazeGenerator {
+
+    @Override
+    public void carve(byte[] cells, int size, SplittableRandom random) {
+        int n = Mazes.cellsPerSide(size);
+        int[] stack = new int[n * n];
+        int[] neighbours = new int[4];
+        int sp = 0;
+
+        Mazes.open(cells, size, 0, 0);
+        stack[sp++] = 0; // cellule = cx * n + cy, départ en (1,1)
+
+        while (sp > 0) {
+            int cur = stack[sp - 1];
+            int cx = cur / n, cy = cur % n;
+
+            int k = 0;
+            if (cy > 0 && !Mazes.isOpen(cells, size, cx, cy - 1)) neighbours[k++] = cur - 1;
+            if (cy < n - 1 && !Mazes.isOpen(cells, size, cx, cy + 1)) neighbours[k++] = cur + 1;
+            if (cx > 0 && !Mazes.isOpen(cells, size, cx - 1, cy)) neighbours[k++] = cur - n;
+            if (cx < n - 1 && !Mazes.isOpen(cells, size, cx + 1, cy)) neighbours[k++] = cur + n;
+
+            if (k == 0) {
+                sp--; // cul-de-sac : on revient en arrière
+                continue;
+            }
+            int next = neighbours[random.nextInt(k)];
+            Mazes.openBetween(cells, size, cx, cy, next / n, next % n);
+            stack[sp++] = next;
+        }
+    }
+
+    @Override
+    public String name() { return "backtracker"; }
+}
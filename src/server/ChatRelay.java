@@ -0,0 +1,91 @@
+package server;
+
+import common.Constants;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+// Côté serveur du chat : les clients n'écrivent plus directement sur maze.chat mais sur
+// CHAT_INBOX_TOPIC, sous la forme "salle joueur jeton texte". Chaque serveur (ou nœud) ne traite
+// que ses propres salles : jeton de session vérifié comme pour l'UDP, débit limité par joueur,
+// texte tronqué à CHAT_MAX_LENGTH, puis republication sur CHAT_TOPIC (toutes salles) et sur le
+// canal de la salle, par le même EventBus non bloquant que les annonces.
+//
+// Limite : même GCRA qu'InputLimiter (une date théorique par joueur), en messages par seconde.
+// Les messages arrivent sur le thread de l'abonnement (JMS) ou de l'éditeur (mémoire) : synchronized.
+final class ChatRelay {
+
+    private final RoomManager rooms;
+    private final EventBus events;
+    private final ServerMetrics metrics;
+
+    private final long interval;
+    private final long tolerance;
+    private final Map<Integer, Long> nextAllowed = new HashMap<>(); // (salle << 16 | joueur) -> date théorique
+    private long nextPurge = System.nanoTime();
+
+    ChatRelay(RoomManager rooms, EventBus events, ServerMetrics metrics) {
+        this.rooms = rooms;
+        this.events = events;
+        this.metrics = metrics;
+        interval = 1_000_000_000L / Math.max(1, Constants.CHAT_PER_SECOND);
+        tolerance = interval * (Math.max(1, Constants.CHAT_BURST) - 1);
+    }
+
+    void start() {
+        events.subscribe(Constants.CHAT_INBOX_TOPIC, this::onMessage);
+    }
+
+    synchronized void onMessage(String message) {
+        // "salle joueur jeton texte"
+        int a = message.indexOf(' ');
+        int b = a < 0 ? -1 : message.indexOf(' ', a + 1);
+        int c = b < 0 ? -1 : message.indexOf(' ', b + 1);
+        if (c < 0) {
+            metrics.chatRejected.increment();
+            return;
+        }
+        int roomId, playerId, token;
+        try {
+            roomId = Integer.parseInt(message.substring(0, a));
+            playerId = Integer.parseInt(message.substring(a + 1, b));
+            token = Integer.parseInt(message.substring(b + 1, c));
+        } catch (NumberFormatException e) {
+            metrics.chatRejected.increment();
+            return;
+        }
+        Room room = rooms.get(roomId);
+        if (room == null) return; // salle d'un autre nœud : c'est lui qui relaie
+        String name = room.playerName(playerId);
+        if (name == null || token == PlayerTable.NO_TOKEN || room.sessionToken(playerId) != token) {
+            metrics.chatRejected.increment();
+            return;
+        }
+        if (!tryAcquire((roomId & 0xFFFF) << 16 | playerId, System.nanoTime())) {
+            metrics.chatRateLimited.increment();
+            return;
+        }
+        String text = message.substring(c + 1).trim();
+        if (text.isEmpty()) return;
+        if (text.length() > Constants.CHAT_MAX_LENGTH) text = text.substring(0, Constants.CHAT_MAX_LENGTH) + "…";
+        events.publish(Constants.chatRoomTopic(room.name()), name + ": " + text);
+        events.publish(Constants.CHAT_TOPIC, "[" + room.name() + "] " + name + ": " + text);
+    }
+
+    private boolean tryAcquire(int sender, long now) {
+        if (now - nextPurge > 0) purge(now);
+        Long previous = nextAllowed.get(sender);
+        long next = previous == null ? now : Math.max(previous, now); // joueur calme : le seau est plein
+        if (next - now > tolerance) return false;
+        nextAllowed.put(sender, next + interval);
+        return true;
+    }
+
+    // Une date passée = seau plein, autant oublier l'entrée (joueurs partis, identifiants réattribués)
+    private void purge(long now) {
+        for (Iterator<Long> it = nextAllowed.values().iterator(); it.hasNext(); ) {
+            if (it.next() - now <= 0) it.remove();
+        }
+        nextPurge = now + 60_000_000_000L;
+    }
+}
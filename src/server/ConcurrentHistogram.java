@@ -0,0 +1,49 @@
+package server;
+
+import common.LogLinearBuckets;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Histogramme de durées (microsecondes) partagé entre threads : une LongAdder par case,
+// donc pas de CAS disputé quand plusieurs ticks/threads RMI enregistrent en même temps.
+// Cases log-linéaires : exactes jusqu'à 7, puis 4 sous-cases par puissance de 2 (erreur < 25%),
+// ce qui suffit pour des percentiles de supervision (découpage : common.LogLinearBuckets).
+// Cumulatif depuis le démarrage.
+final class ConcurrentHistogram {
+
+    static final LogLinearBuckets BUCKETS = new LogLinearBuckets(2);
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS.count()];
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    ConcurrentHistogram() {
+        for (int i = 0; i < counts.length; i++) counts[i] = new LongAdder();
+    }
+
+    void record(long micros) {
+        if (micros < 0) micros = 0;
+        counts[BUCKETS.indexOf(micros)].increment();
+        sum.add(micros);
+        max.accumulate(micros);
+    }
+
+    // Pratique pour les appels chronométrés avec System.nanoTime()
+    void recordSince(long startNanos) {
+        record((System.nanoTime() - startNanos) / 1000);
+    }
+
+    // p entre 0 et 100 ; lecture approximative si des valeurs arrivent pendant le calcul
+    long percentile(double p) {
+        return BUCKETS.percentile(snapshot(), p, max.get());
+    }
+
+    long[] snapshot() {
+        long[] copy = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) copy[i] = counts[i].sum();
+        return copy;
+    }
+
+    long sum() { return sum.sum(); }
+    long max() { return max.get(); }
+}
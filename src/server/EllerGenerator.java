@@ -0,0 +1,100 @@
+package server;
+
+import java.util.SplittableRandom;
+
+// Algorithme d'Eller : génère le labyrinthe ligne par ligne avec une mémoire de travail
+// en O(largeur) (numéro d'ensemble de chaque cellule de la ligne courante).
+// Les numéros d'ensemble sont recyclés, ils restent donc bornés par la largeur.
+// Fusions d'une ligne : union-find sur les numéros (union par taille, compression de chemin)
+// plutôt que de renuméroter toute la ligne à chaque fusion, O(n²) par ligne ; les cellules
+// reprennent le numéro de leur racine une seule fois, après les fusions.
+class EllerGenerator implements MazeGenerator {
+
+    @Override
+    public void carve(byte[] cells, int size, SplittableRandom random) {
+        int n = Mazes.cellsPerSide(size);
+        int[] set = new int[n];          // ensemble de chaque cellule de la ligne (0 = aucun)
+        int[] count = new int[n + 1];    // nombre de cellules de la ligne par ensemble
+        int[] free = new int[n];         // pile des numéros d'ensemble libres
+        int[] parent = new int[n + 1];   // union-find des fusions de la ligne courante
+        int[] downCount = new int[n + 1];
+        int[] seen = new int[n + 1];
+        int[] pick = new int[n + 1];
+        boolean[] down = new boolean[n];
+        int freeTop = 0;
+        for (int id = n; id >= 1; id--) free[freeTop++] = id;
+
+        // Ici une "ligne" est un x fixe (grille indexée [x][y]) ; on avance en x
+        for (int row = 0; row < n; row++) {
+            boolean last = row == n - 1;
+            for (int c = 0; c < n; c++) {
+                if (set[c] == 0) {
+                    int id = free[--freeTop];
+                    set[c] = id;
+                    parent[id] = id;
+                    count[id]++;
+                }
+                Mazes.open(cells, size, row, c);
+            }
+
+            // 1. Fusions horizontales aléatoires (obligatoires sur la dernière ligne)
+            for (int c = 0; c < n - 1; c++) {
+                int a = find(parent, set[c]), b = find(parent, set[c + 1]);
+                if (a != b && (last || random.nextBoolean())) {
+                    Mazes.openBetween(cells, size, row, c, row, c + 1);
+                    if (count[a] < count[b]) { int t = a; a = b; b = t; }
+                    parent[b] = a;
+                    count[a] += count[b];
+                    count[b] = 0;
+                    free[freeTop++] = b; // pas réattribué avant la ligne suivante, après renumérotation
+                }
+            }
+            for (int c = 0; c < n; c++) set[c] = find(parent, set[c]);
+            if (last) break;
+
+            // 2. Descentes : au moins une par ensemble (choisie au hasard parmi ses cellules)
+            for (int c = 0; c < n; c++) {
+                downCount[set[c]] = 0;
+                seen[set[c]] = 0;
+            }
+            for (int c = 0; c < n; c++) {
+                int id = set[c];
+                down[c] = random.nextBoolean();
+                if (down[c]) downCount[id]++;
+                if (random.nextInt(++seen[id]) == 0) pick[id] = c;
+            }
+            for (int c = 0; c < n; c++) {
+                int id = set[c];
+                if (downCount[id] == 0) {
+                    down[pick[id]] = true;
+                    downCount[id] = 1;
+                }
+            }
+
+            // 3. Préparation de la ligne suivante
+            for (int c = 0; c < n; c++) {
+                if (down[c]) {
+                    Mazes.openBetween(cells, size, row, c, row + 1, c);
+                } else {
+                    int id = set[c];
+                    if (--count[id] == 0) free[freeTop++] = id;
+                    set[c] = 0;
+                }
+            }
+        }
+    }
+
+    private static int find(int[] parent, int id) {
+        int root = id;
+        while (parent[root] != root) root = parent[root];
+        while (parent[id] != root) {
+            int next = parent[id];
+            parent[id] = root;
+            id = next;
+        }
+        return root;
+    }
+
+    @Override
+    public String name() { return "eller"; }
+}
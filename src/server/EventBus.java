@@ -0,0 +1,25 @@
+package server;
+
+import java.util.function.Consumer;
+
+// Publication des événements du serveur (connexions, annonces de salle...) vers les abonnés.
+// publish() est appelé depuis les threads de jeu (RMI, ticks) : il ne doit jamais attendre le broker.
+//   - JmsEventBus : file bornée sans verrou + un seul thread d'écriture vers ActiveMQ, envoi par lots ;
+//   - InMemoryEventBus : abonnés dans le même processus (tests, serveur seul sans broker).
+// Choix avec -Dmaze.eventBus=jms (défaut) ou memory, fait par MazeServer.
+interface EventBus extends AutoCloseable {
+
+    // Non bloquant ; false si l'événement est abandonné (file pleine, bus fermé)
+    boolean publish(String topic, String text);
+
+    // Le listener doit rendre la main vite : il tourne sur un thread du bus (JMS)
+    // ou directement sur le thread qui publie (mémoire)
+    void subscribe(String topic, Consumer<String> listener);
+
+    // Événements en attente d'envoi (métriques)
+    int pending();
+
+    // Envoie ce qui est déjà en file puis libère les ressources
+    @Override
+    void close();
+}
@@ -0,0 +1,43 @@
+package server;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Bus d'événements dans le processus, sans broker : les abonnés sont appelés directement
+// par le thread qui publie. Pour les tests et un serveur seul (client JMS non nécessaire).
+final class InMemoryEventBus implements EventBus {
+
+    private final ConcurrentHashMap<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    @Override
+    public boolean publish(String topic, String text) {
+        if (closed) return false;
+        List<Consumer<String>> subscribers = listeners.get(topic);
+        if (subscribers == null) return true;
+        for (Consumer<String> listener : subscribers) {
+            try {
+                listener.accept(text);
+            } catch (RuntimeException e) { // Un abonné défaillant ne doit pas remonter dans le jeu
+                e.printStackTrace();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void subscribe(String topic, Consumer<String> listener) {
+        listeners.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    @Override
+    public int pending() { return 0; }
+
+    @Override
+    public void close() {
+        closed = true;
+        listeners.clear();
+    }
+}
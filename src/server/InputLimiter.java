@@ -0,0 +1,44 @@
+package server;
+
+import common.Constants;
+
+// Limite de débit par joueur, appliquée sur le thread de réception avant la mise en file :
+// un client qui inonde le port ne remplit plus l'InputQueue de sa salle.
+//
+// Seau à jetons de INPUT_BURST jetons, rempli de INPUTS_PER_TICK jetons par tick, écrit sous
+// forme GCRA : un seul long par joueur (date "théorique" du prochain paquet), pas de minuterie
+// de remplissage. Le paquet passe si cette date n'est pas en avance de plus de (BURST - 1)
+// intervalles sur maintenant.
+//
+// Appelé après la vérification du jeton de session : les paquets d'un joueur viennent alors
+// d'une seule adresse, donc d'un seul thread de réception (SO_REUSEPORT répartit par adresse).
+final class InputLimiter {
+
+    private final long interval;  // ns entre deux paquets au débit nominal
+    private final long tolerance; // avance maximale tolérée = rafale
+    private final long origin = System.nanoTime(); // dates relatives : jamais négatives
+    private final long[] nextAllowed;
+
+    InputLimiter(int capacity) {
+        this(capacity, Constants.INPUTS_PER_TICK, Constants.INPUT_BURST);
+    }
+
+    InputLimiter(int capacity, int perTick, int burst) {
+        interval = 1_000_000_000L / ((long) Constants.TICK_RATE * Math.max(1, perTick));
+        tolerance = interval * (Math.max(1, burst) - 1);
+        nextAllowed = new long[capacity];
+    }
+
+    // Slot libéré : son prochain occupant part avec un seau plein
+    void reset(int slot) {
+        nextAllowed[slot] = 0;
+    }
+
+    boolean tryAcquire(int slot, long nowNanos) {
+        long now = nowNanos - origin;
+        long next = Math.max(nextAllowed[slot], now); // joueur calme : le seau est plein
+        if (next - now > tolerance) return false;
+        nextAllowed[slot] = next + interval;
+        return true;
+    }
+}
@@ -0,0 +1,87 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// File d'entrées sans verrou entre les threads de réception UDP (plusieurs producteurs)
+// et la boucle de tick (un seul consommateur). File bornée de Vyukov : chaque case porte
+// un numéro de séquence qui indique si elle est libre ou publiée.
+// Chaque commande MOVE est compactée dans un long : aucune allocation par paquet.
+class InputQueue {
+
+    static final long EMPTY = -1L;
+    // Pseudo-direction : un client vient d'(re)annoncer son adresse, il attend un snapshot complet
+    static final int JOIN = 0xF;
+    // Pseudo-directions : demande d'indice (réponse binaire OP_HINT ou texte pour le bot)
+    static final int HINT = 0xE;
+    static final int HINT_TEXT = 0xD;
+    // Pseudo-direction : acquittement du canal fiable (seq = ack, extra = ackBits)
+    static final int ACK = 0xC;
+    // Pseudo-directions : client présent mais immobile (ou login RMI) / départ demandé par leave()
+    static final int HEARTBEAT = 0xB;
+    static final int LEAVE = 0xA;
+
+    private final int mask;
+    private final long[] values;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong(); // producteurs
+    private long head;                                // consommateur unique
+    private final AtomicLong dropped = new AtomicLong();
+
+    InputQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1; // puissance de 2
+        mask = size - 1;
+        values = new long[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) sequences.set(i, i);
+    }
+
+    // Renvoie false si la file est pleine (le paquet est alors abandonné, comme en UDP)
+    boolean offer(int playerId, int dir, int seq) {
+        return offer(playerId, dir, seq, 0);
+    }
+
+    // extra : 16 bits de plus (ackBits des ACK)
+    boolean offer(int playerId, int dir, int seq, int extra) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    values[index] = pack(playerId, dir, seq, extra);
+                    sequences.lazySet(index, pos + 1); // publie la valeur
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                dropped.incrementAndGet();
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    // Appelé uniquement par le thread de tick
+    long poll() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) return EMPTY;
+        long value = values[index];
+        sequences.lazySet(index, head + mask + 1); // libère la case pour le tour suivant
+        head++;
+        return value;
+    }
+
+    int size() { return (int) Math.max(0, tail.get() - head); }
+    long dropped() { return dropped.get(); }
+
+    static long pack(int playerId, int dir, int seq, int extra) {
+        return ((long) (extra & 0xFFFF) << 40) | ((long) (playerId & 0xFFFF) << 24) | ((long) (dir & 0xF) << 16) | (seq & 0xFFFF);
+    }
+
+    static int playerId(long cmd) { return (int) (cmd >>> 24) & 0xFFFF; }
+    static int dir(long cmd) { return (int) (cmd >>> 16) & 0xF; }
+    static int seq(long cmd) { return (int) cmd & 0xFFFF; }
+    static int extra(long cmd) { return (int) (cmd >>> 40) & 0xFFFF; }
+}
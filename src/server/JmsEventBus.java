@@ -0,0 +1,135 @@
+package server;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+
+import javax.jms.Connection;
+import javax.jms.DeliveryMode;
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+// Bus d'événements vers ActiveMQ sans bloquer les threads de jeu :
+// - publish() dépose l'événement dans un anneau borné sans verrou (MpscRing) et réveille l'écrivain ;
+//   file pleine (broker lent ou absent) = événement abandonné et compté, jamais d'attente ;
+// - un seul thread "jms-events" possède la Session (non thread-safe) et ses producteurs : il vide
+//   la file par lots de BATCH messages, un commit de session transactionnelle par lot ;
+// - événements non persistants : ce sont des annonces, pas des données à rejouer.
+final class JmsEventBus implements EventBus {
+
+    private static final int CAPACITY = 4096;
+    private static final int BATCH = 64;
+
+    private static final class Event {
+        final String topic;
+        final String text;
+
+        Event(String topic, String text) {
+            this.topic = topic;
+            this.text = text;
+        }
+    }
+
+    private final ServerMetrics metrics;
+    private final MpscRing<Event> queue = new MpscRing<>(CAPACITY);
+    private final Connection connection;
+    private final Session session; // thread d'écriture uniquement
+    private final Map<String, MessageProducer> producers = new HashMap<>(); // idem
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    JmsEventBus(String brokerUrl, ServerMetrics metrics) throws JMSException {
+        this.metrics = metrics;
+        connection = new ActiveMQConnectionFactory(brokerUrl).createConnection();
+        connection.start();
+        session = connection.createSession(true, Session.SESSION_TRANSACTED);
+        writer = new Thread(this::writeLoop, "jms-events");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public boolean publish(String topic, String text) {
+        if (!running || !queue.offer(new Event(topic, text))) {
+            metrics.eventsDropped.increment();
+            return false;
+        }
+        LockSupport.unpark(writer);
+        return true;
+    }
+
+    // Chaque abonnement a sa propre session : ses messages arrivent sur un thread du client JMS
+    @Override
+    public synchronized void subscribe(String topic, Consumer<String> listener) {
+        try {
+            Session s = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            s.createConsumer(s.createTopic(topic)).setMessageListener(message -> {
+                try {
+                    if (message instanceof TextMessage) listener.accept(((TextMessage) message).getText());
+                } catch (JMSException | RuntimeException e) { e.printStackTrace(); }
+            });
+        } catch (JMSException e) {
+            throw new IllegalStateException("Abonnement JMS impossible à " + topic, e);
+        }
+    }
+
+    @Override
+    public int pending() { return queue.size(); }
+
+    // --- THREAD D'ÉCRITURE ---
+    private void writeLoop() {
+        while (running || queue.size() > 0) {
+            long start = System.nanoTime();
+            int batch = 0;
+            Event event;
+            while (batch < BATCH && (event = queue.poll()) != null) {
+                try {
+                    producer(event.topic).send(session.createTextMessage(event.text));
+                    batch++;
+                } catch (JMSException e) {
+                    metrics.eventsDropped.increment();
+                    e.printStackTrace();
+                }
+            }
+            if (batch == 0) {
+                if (running) LockSupport.park(this);
+                continue;
+            }
+            try {
+                session.commit();
+            } catch (JMSException e) { // Lot perdu : le broker sera peut-être revenu au suivant
+                metrics.eventsDropped.add(batch);
+                System.out.println("[JMS] Échec d'envoi de " + batch + " événements : " + e);
+            }
+            metrics.jmsPublishMicros.recordSince(start);
+        }
+        try {
+            connection.close();
+        } catch (JMSException ignored) {}
+    }
+
+    private MessageProducer producer(String topic) throws JMSException {
+        MessageProducer producer = producers.get(topic);
+        if (producer == null) {
+            producer = session.createProducer(session.createTopic(topic));
+            producer.setDeliveryMode(DeliveryMode.NON_PERSISTENT);
+            producers.put(topic, producer);
+        }
+        return producer;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package server;
+
+import java.util.SplittableRandom;
+
+// Algorithme de Kruskal randomisé : les murs sont mélangés puis ouverts
+// s'ils séparent deux ensembles différents (union-find avec compression de chemin).
+class KruskalGenerator implements MazeGenerator {
+
+    @Override
+    public void carve(byte[] cells, int size, SplittableRandom random) {
+        int n = Mazes.cellsPerSide(size);
+        int[] parent = new int[n * n];
+        for (int i = 0; i < parent.length; i++) parent[i] = i;
+
+        // Arête e < n*(n-1) : entre (cx, cy) et (cx, cy+1) ; sinon entre (cx, cy) et (cx+1, cy)
+        int half = n * (n - 1);
+        int[] edges = new int[2 * half];
+        for (int e = 0; e < edges.length; e++) edges[e] = e;
+        for (int i = edges.length - 1; i > 0; i--) { // Fisher-Yates
+            int j = random.nextInt(i + 1);
+            int t = edges[i];
+            edges[i] = edges[j];
+            edges[j] = t;
+        }
+
+        for (int e : edges) {
+            int cx, cy, nx, ny;
+            if (e < half) {
+                cx = e / (n - 1);
+                cy = e % (n - 1);
+                nx = cx;
+                ny = cy + 1;
+            } else {
+                cx = (e - half) / n;
+                cy = (e - half) % n;
+                nx = cx + 1;
+                ny = cy;
+            }
+            int a = find(parent, cx * n + cy);
+            int b = find(parent, nx * n + ny);
+            if (a != b) {
+                parent[a] = b;
+                Mazes.openBetween(cells, size, cx, cy, nx, ny);
+            }
+        }
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]]; // compression de chemin (halving)
+            i = parent[i];
+        }
+        return i;
+    }
+
+    @Override
+    public String name() { return "kruskal"; }
+}
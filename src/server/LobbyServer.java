@@ -0,0 +1,225 @@
+package server;
+
+import common.*;
+import java.rmi.RemoteException;
+import java.rmi.ServerException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Lobby : point d'entrée des clients (même nom RMI que le serveur autonome) devant plusieurs
+// nœuds de jeu (des MazeServer --role=node). Il ne joue aucune partie et ne garde qu'un état
+// reconstructible : la liste des nœuds et la salle -> nœud, toutes deux rafraîchies par les
+// rapports de charge. Une salle reste sur son nœud ; une nouvelle salle va au nœud le moins
+// chargé. Une salle que son nœud ne rapporte plus (fermée faute de joueurs) perd sa route. login() est relayé au nœud, qui répond avec son adresse UDP dans le LoginTicket.
+// Les autres appels sont relayés d'après l'identifiant de salle (numéro du nœud * MAX_ROOMS + i),
+// mais un client à jour les adresse directement au nœud.
+class LobbyServer extends UnicastRemoteObject implements IGameService, ILobbyService {
+
+    private static final int MAX_NODES = 0x10000 / Constants.MAX_ROOMS; // identifiants de salle sur 16 bits
+    private static final long NODE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(Constants.NODE_TIMEOUT_SECONDS);
+
+    private static final class Node {
+        final int index;
+        final String endpoint; // hôte:rmi:udp, pour reconnaître une réinscription
+        final IGameService service;
+        final int capacity;
+        final AtomicInteger players = new AtomicInteger(); // dernier rapport + admissions depuis
+        volatile long lastReport = System.nanoTime() - NODE_TIMEOUT_NANOS; // disponible au premier rapport
+
+        Node(int index, String endpoint, IGameService service, int capacity) {
+            this.index = index;
+            this.endpoint = endpoint;
+            this.service = service;
+            this.capacity = capacity;
+        }
+
+        boolean alive(long now) { return now - lastReport < NODE_TIMEOUT_NANOS; }
+
+        @Override
+        public String toString() { return "#" + index + " (" + endpoint + ")"; }
+    }
+
+    // Salle -> nœud, avec la date du placement : une salle tout juste placée n'est pas encore
+    // dans les rapports (créée au login qui suit), sa route est gardée NODE_TIMEOUT_SECONDS
+    private static final class Route {
+        final Node node;
+        final long since;
+
+        Route(Node node, long since) {
+            this.node = node;
+            this.since = since;
+        }
+    }
+
+    private final AtomicReferenceArray<Node> nodes = new AtomicReferenceArray<>(MAX_NODES);
+    private final ConcurrentHashMap<String, Route> roomNodes = new ConcurrentHashMap<>();
+
+    LobbyServer() throws RemoteException {
+        super();
+    }
+
+    // --- NŒUDS ---
+
+    @Override
+    public synchronized int register(IGameService node, String host, int rmiPort, int udpPort, int capacity, int previous)
+            throws RemoteException {
+        if (previous >= MAX_NODES) throw new RemoteException("Numéro de nœud hors limites : " + previous + " (max " + (MAX_NODES - 1) + ")");
+        String endpoint = (host != null ? host : "*") + ":" + rmiPort + ":" + udpPort;
+        int index = previous;
+        if (index >= 0) {
+            Node current = nodes.get(index);
+            if (current != null && !current.endpoint.equals(endpoint) && current.alive(System.nanoTime())) {
+                throw new RemoteException("Numéro de nœud " + index + " déjà pris par " + current);
+            }
+        } else {
+            for (int i = 0; i < MAX_NODES && index < 0; i++) {
+                Node current = nodes.get(i);
+                if (current == null || current.endpoint.equals(endpoint)) index = i;
+            }
+            if (index < 0) throw new RemoteException("Trop de nœuds (" + MAX_NODES + ")");
+        }
+        Node old = nodes.get(index);
+        if (old != null) forget(old);
+        nodes.set(index, new Node(index, endpoint, node, capacity));
+        System.out.println("[LOBBY] Nœud #" + index + " inscrit : " + endpoint + ", " + capacity + " joueurs max");
+        return index;
+    }
+
+    @Override
+    public boolean report(int index, int players, String[] rooms) {
+        Node node = index >= 0 && index < MAX_NODES ? nodes.get(index) : null;
+        if (node == null) return false;
+        long now = System.nanoTime();
+        node.players.set(players);
+        node.lastReport = now;
+        Set<String> hosted = new HashSet<>(Arrays.asList(rooms));
+        for (String room : rooms) roomNodes.putIfAbsent(room, new Route(node, now)); // lobby redémarré : routes retrouvées
+        roomNodes.entrySet().removeIf(e -> e.getValue().node == node && !hosted.contains(e.getKey())
+                && now - e.getValue().since >= NODE_TIMEOUT_NANOS);
+        return true;
+    }
+
+    // Salle -> nœud : celui qui l'héberge déjà, sinon le moins chargé (en proportion de sa capacité)
+    private Node route(String roomName) throws RemoteException {
+        long now = System.nanoTime();
+        Node node = nodeOf(roomNodes.get(roomName));
+        if (node != null && node.alive(now) && nodes.get(node.index) == node) return node;
+        synchronized (this) {
+            node = nodeOf(roomNodes.get(roomName));
+            if (node != null && node.alive(now) && nodes.get(node.index) == node) return node;
+            Node best = null;
+            double bestLoad = 1;
+            for (int i = 0; i < MAX_NODES; i++) {
+                Node candidate = nodes.get(i);
+                if (candidate == null || !candidate.alive(now)) continue;
+                double load = candidate.players.get() / (double) Math.max(1, candidate.capacity);
+                if (load < bestLoad) {
+                    best = candidate;
+                    bestLoad = load;
+                }
+            }
+            if (best == null) throw new RemoteException("Aucun nœud de jeu disponible");
+            roomNodes.put(roomName, new Route(best, now));
+            System.out.println("[LOBBY] Salle \"" + roomName + "\" -> nœud " + best + String.format(" (charge %.0f %%)", bestLoad * 100));
+            return best;
+        }
+    }
+
+    // Nœud injoignable : plus de nouvelles salles chez lui jusqu'à sa réinscription
+    private synchronized void forget(Node node) {
+        nodes.compareAndSet(node.index, node, null);
+        roomNodes.values().removeIf(r -> r.node == node);
+    }
+
+    private static Node nodeOf(Route route) {
+        return route == null ? null : route.node;
+    }
+
+    private Node nodeOf(int roomId) throws RemoteException {
+        int index = roomId / Constants.MAX_ROOMS;
+        Node node = roomId >= 0 && index < MAX_NODES ? nodes.get(index) : null;
+        if (node == null) throw new RemoteException("Salle inconnue : " + roomId);
+        return node;
+    }
+
+    // --- SERVICE CLIENT ---
+
+    @Override
+    public LoginTicket login(String username, String roomName) throws RemoteException {
+        if (!RoomManager.isValidName(roomName)) throw new RemoteException("Nom de salle invalide : " + roomName);
+        // Un nouvel essai si le nœud choisi ne répond pas : la salle part sur un autre
+        for (int attempt = 0; ; attempt++) {
+            Node node = route(roomName);
+            try {
+                LoginTicket ticket = node.service.login(username, roomName);
+                node.players.incrementAndGet(); // corrigé au prochain rapport
+                return ticket;
+            } catch (ServerException e) {
+                throw e; // erreur du nœud lui-même (salle complète...) : transmise telle quelle
+            } catch (RemoteException e) {
+                System.out.println("[LOBBY] Nœud " + node + " injoignable : " + e.getMessage());
+                forget(node);
+                if (attempt > 0) throw e;
+            }
+        }
+    }
+
+    @Override
+    public int login(String username) throws RemoteException {
+        return login(username, RoomManager.DEFAULT_ROOM).getPlayerId();
+    }
+
+    @Override
+    public boolean leave(int roomId, int playerId, int sessionToken) throws RemoteException {
+        return nodeOf(roomId).service.leave(roomId, playerId, sessionToken);
+    }
+
+    // Seulement une salle déjà placée : regarder ne crée rien
+    @Override
+    public LoginTicket spectate(String roomName) throws RemoteException {
+        Node node = nodeOf(roomNodes.get(roomName));
+        if (node == null || !node.alive(System.nanoTime())) throw new RemoteException("Salle inconnue : " + roomName);
+        return node.service.spectate(roomName);
+    }
+
+    @Override
+    public MazeState getMazeState() throws RemoteException {
+        return route(RoomManager.DEFAULT_ROOM).service.getMazeState();
+    }
+
+    @Override
+    public int getMazeSize() throws RemoteException {
+        return route(RoomManager.DEFAULT_ROOM).service.getMazeSize();
+    }
+
+    @Override
+    public MazeInfo getMazeInfo() throws RemoteException {
+        return route(RoomManager.DEFAULT_ROOM).service.getMazeInfo();
+    }
+
+    @Override
+    public EncodedMaze getEncodedMaze() throws RemoteException {
+        return route(RoomManager.DEFAULT_ROOM).service.getEncodedMaze();
+    }
+
+    @Override
+    public MazeInfo getMazeInfo(int roomId) throws RemoteException {
+        return nodeOf(roomId).service.getMazeInfo(roomId);
+    }
+
+    @Override
+    public EncodedMaze getEncodedMaze(int roomId) throws RemoteException {
+        return nodeOf(roomId).service.getEncodedMaze(roomId);
+    }
+
+    @Override
+    public int[] findPath(int roomId, int fromX, int fromY, int toX, int toY) throws RemoteException {
+        return nodeOf(roomId).service.findPath(roomId, fromX, fromY, toX, toY);
+    }
+}
@@ -0,0 +1,15 @@
+package server;
+
+import java.util.SplittableRandom;
+
+// Algorithme de génération de labyrinthe.
+// Les générateurs travaillent sur une grille "cellules" : la case (cx, cy) correspond à la
+// case (2cx+1, 2cy+1) de la grille de jeu, les murs entre deux cellules sont aux positions paires.
+// Aucun générateur n'est récursif : la taille n'est limitée que par la mémoire.
+public interface MazeGenerator {
+
+    // Creuse les passages dans 'cells' (size*size octets, index x*size+y, déjà remplis de murs)
+    void carve(byte[] cells, int size, SplittableRandom random);
+
+    String name();
+}
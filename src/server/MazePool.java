@@ -0,0 +1,270 @@
+package server;
+
+import common.Constants;
+import common.EncodedMaze;
+import common.MazeCodec;
+import common.MazeInfo;
+import common.MazeState;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Labyrinthes prêts à jouer, préparés hors des ticks et des appels RMI : pour chaque taille
+// demandée, MAZE_POOL_SIZE labyrinthes complets (grille, encodage, champ de distances) attendent
+// dans une file et take() en sort un en O(1). Des threads "maze-pool" remplissent la file en
+// arrière-plan ; file vide (premier appel, manches trop rapprochées) = génération confiée à ces
+// mêmes threads : take() renvoie un CompletableFuture et ne génère ni n'attend jamais sur place,
+// le tick d'une salle ne fait que regarder s'il est terminé (Room.tick).
+//
+// Avec -Dmaze.mazeCacheDir, chaque labyrinthe généré est aussi gardé sur disque (MazeStore, un
+// fichier par générateur et par taille, indexé par graine). Au redémarrage, la file est d'abord
+// remplie depuis ce fichier (à partir d'un point au hasard, pour ne pas toujours rejouer les mêmes
+// cartes) : une nouvelle salle ne génère rien tant qu'il en reste.
+//
+// Graine fixe (-Dmaze.seed) : la salle demande la graine exacte de chaque manche avec
+// take(taille, graine), et celle de la manche suivante est préparée à l'avance par prefetch() ;
+// warm() prépare alors la graine de la manche 0 plutôt que la file des graines au hasard.
+final class MazePool implements AutoCloseable {
+
+    private static final int LOOP_PERCENTAGE = 10; // ~10 % des murs restants supprimés : des cycles
+
+    // Labyrinthe prêt : tout ce qui est coûteux à calculer, la manche en moins (Room.MazeData)
+    static final class Maze {
+        final long seed;
+        final String generator;
+        final int[][] grid;
+        final MazeState state;
+        final EncodedMaze encoded;
+        final MazeInfo info;
+        final Navigation navigation;
+
+        Maze(long seed, String generator, int[][] grid, EncodedMaze encoded) {
+            int size = grid.length;
+            String diff = (size == 21) ? "Facile" : (size == 41) ? "Moyen" : "Difficile";
+            this.seed = seed;
+            this.generator = generator;
+            this.grid = grid;
+            this.state = new MazeState(grid, size, diff);
+            this.encoded = encoded;
+            this.info = new MazeInfo(size, diff, encoded.getHash(), encoded.getEncoding(),
+                    encoded.getData().length, generator, seed);
+            this.navigation = new Navigation(grid);
+        }
+    }
+
+    // File d'une taille, avec son fichier et sa position dans celui-ci
+    private final class Stock {
+        final int size;
+        final int target;
+        final ArrayBlockingQueue<Maze> ready;
+        final AtomicInteger filling = new AtomicInteger(); // remplissages lancés, pas encore en file
+        final ConcurrentHashMap<Long, CompletableFuture<Maze>> seeded = new ConcurrentHashMap<>();
+        final MazeStore store; // null : pas de cache disque
+        // Enregistrements présents à l'ouverture, servis une fois chacun (sous le verrou du Stock)
+        final int stored;
+        int cursor;
+        int served;
+
+        Stock(int size) {
+            this.size = size;
+            target = Math.max(1, Constants.MAZE_POOL_SIZE);
+            ready = new ArrayBlockingQueue<>(target);
+            store = openStore(size);
+            stored = store == null ? 0 : store.count();
+            cursor = stored == 0 ? 0 : ThreadLocalRandom.current().nextInt(stored);
+        }
+
+        // Prochain labyrinthe : d'abord le cache disque, puis une nouvelle graine. Cache fermé entre-temps
+        // (arrêt du serveur) : load() renvoie null, et la graine lue juste avant est alors ignorée
+        Maze next() {
+            EncodedMaze cached = null;
+            long seed = 0;
+            synchronized (this) {
+                if (served < stored) {
+                    seed = store.seedAt(cursor);
+                    cached = store.load(cursor);
+                    cursor = (cursor + 1) % stored;
+                    served++;
+                }
+            }
+            Maze maze = cached == null ? null : fromCache(seed, cached);
+            return maze != null ? maze : generate(this, ThreadLocalRandom.current().nextLong());
+        }
+    }
+
+    private final MazeGenerator generator = Mazes.byName(Constants.MAZE_GENERATOR);
+    private final ConcurrentHashMap<Integer, Stock> stocks = new ConcurrentHashMap<>();
+    private final ExecutorService workers; // null : tout est fait sur place (benchmarks)
+    private final Path cacheDir;           // null : pas de cache disque
+    private final ServerMetrics metrics;
+
+    MazePool(ServerMetrics metrics) {
+        this(Constants.MAZE_CACHE_DIR == null ? null : Paths.get(Constants.MAZE_CACHE_DIR), Constants.MAZE_POOL_THREADS, metrics);
+    }
+
+    MazePool(Path cacheDir, int threads, ServerMetrics metrics) {
+        this.cacheDir = cacheDir;
+        this.metrics = metrics;
+        if (threads <= 0) {
+            workers = null;
+        } else {
+            AtomicInteger n = new AtomicInteger();
+            workers = Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "maze-pool-" + n.getAndIncrement());
+                t.setDaemon(true);
+                t.setPriority(Thread.MIN_PRIORITY); // après les ticks
+                return t;
+            });
+        }
+    }
+
+    // Graine de chaque manche avec -Dmaze.seed : toute la suite de manches est reproductible
+    static long roundSeed(long baseSeed, int round) {
+        return baseSeed + round * 0x9E3779B97F4A7C15L;
+    }
+
+    // Lance la préparation pour cette taille (au démarrage, avant le premier joueur)
+    void warm(int size) {
+        if (Constants.MAZE_SEED != null) prefetch(size, roundSeed(Constants.MAZE_SEED, 0));
+        else refill(stock(size));
+    }
+
+    // Déjà terminé si la file n'est pas vide ; sinon manqué (compté) et préparé en arrière-plan.
+    // Sans threads (benchmarks), tout est fait sur place et le résultat est déjà terminé.
+    CompletableFuture<Maze> take(int size) {
+        Stock stock = stock(size);
+        Maze maze = stock.ready.poll();
+        refill(stock);
+        if (maze != null) return CompletableFuture.completedFuture(maze);
+        metrics.mazePoolMisses.increment();
+        return supply(stock::next);
+    }
+
+    // Graine imposée : préparée par prefetch() (peut-être pas encore terminée), ou lancée maintenant
+    CompletableFuture<Maze> take(int size, long seed) {
+        Stock stock = stock(size);
+        CompletableFuture<Maze> pending = stock.seeded.remove(seed);
+        if (pending != null) return pending;
+        metrics.mazePoolMisses.increment();
+        return supply(() -> bySeed(stock, seed));
+    }
+
+    private CompletableFuture<Maze> supply(Supplier<Maze> task) {
+        if (workers == null) return CompletableFuture.completedFuture(task.get());
+        try {
+            return CompletableFuture.supplyAsync(task, workers);
+        } catch (RejectedExecutionException e) { // arrêt du serveur
+            CompletableFuture<Maze> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    void prefetch(int size, long seed) {
+        if (workers == null) return;
+        Stock stock = stock(size);
+        stock.seeded.computeIfAbsent(seed, s -> CompletableFuture.supplyAsync(() -> bySeed(stock, s), workers));
+    }
+
+    private Stock stock(int size) {
+        return stocks.computeIfAbsent(size, Stock::new);
+    }
+
+    // Un remplissage par place libre dans la file, chacun sur un thread du pool
+    private void refill(Stock stock) {
+        if (workers == null) return;
+        while (true) {
+            int filling = stock.filling.get();
+            if (stock.ready.size() + filling >= stock.target) return;
+            if (!stock.filling.compareAndSet(filling, filling + 1)) continue;
+            try {
+                workers.execute(() -> {
+                    try {
+                        stock.ready.offer(stock.next());
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                    } finally {
+                        stock.filling.decrementAndGet();
+                    }
+                });
+            } catch (RejectedExecutionException e) { // arrêt du serveur
+                stock.filling.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    private Maze bySeed(Stock stock, long seed) {
+        EncodedMaze cached = stock.store == null ? null : stock.store.find(seed);
+        Maze maze = cached == null ? null : fromCache(seed, cached);
+        return maze != null ? maze : generate(stock, seed);
+    }
+
+    // Relu du disque : ni génération ni compression, seulement l'inflate (hash vérifié par decode)
+    private Maze fromCache(long seed, EncodedMaze encoded) {
+        try {
+            Maze maze = new Maze(seed, generator.name(), encoded.toGrid(), encoded);
+            metrics.mazeCacheHits.increment();
+            return maze;
+        } catch (IllegalArgumentException e) {
+            System.out.println("[LABYRINTHES] Graine " + seed + " illisible dans le cache, régénérée : " + e.getMessage());
+            return null;
+        }
+    }
+
+    private Maze generate(Stock stock, long seed) {
+        long start = System.nanoTime();
+        int[][] grid = Mazes.generate(generator, stock.size, seed, LOOP_PERCENTAGE);
+        Maze maze = new Maze(seed, generator.name(), grid, MazeCodec.encode(grid));
+        metrics.mazesGenerated.increment();
+        metrics.mazeGenerationMicros.recordSince(start);
+        if (stock.store != null) {
+            try {
+                stock.store.append(seed, maze.encoded); // fichier plein : simplement pas gardé
+            } catch (IOException e) {
+                System.out.println("[LABYRINTHES] Écriture du cache impossible : " + e.getMessage());
+            }
+        }
+        return maze;
+    }
+
+    private MazeStore openStore(int size) {
+        if (cacheDir == null) return null;
+        Path file = cacheDir.resolve(generator.name() + "-" + size + "-" + LOOP_PERCENTAGE + ".mzc");
+        try {
+            Files.createDirectories(cacheDir);
+            MazeStore store = new MazeStore(file, size, Constants.MAZE_CACHE_MAX);
+            System.out.println("[LABYRINTHES] " + file + " : " + store.count() + " labyrinthes " + size + "x" + size + " en cache");
+            return store;
+        } catch (IOException e) {
+            System.out.println("[LABYRINTHES] Cache " + file + " indisponible : " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (workers != null) {
+            workers.shutdownNow();
+            try {
+                workers.awaitTermination(2, TimeUnit.SECONDS); // génération en cours
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (Stock stock : stocks.values()) {
+            if (stock.store != null) stock.store.close();
+        }
+    }
+}
@@ -1,16 +1,15 @@
 package server;
 
 import common.*;
-import javax.jms.*;
 import java.net.*;
+import java.nio.ByteBuffer;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.concurrent.ConcurrentHashMap;
-import org.apache.activemq.ActiveMQConnectionFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.Scanner;
 import org.omg.CORBA.ORB;
 import org.omg.CosNaming.NameComponent;
@@ -21,221 +20,277 @@ import org.omg.PortableServer.POAHelper;
 
 public class MazeServer extends UnicastRemoteObject implements IGameService {
 
-    private static ConcurrentHashMap<Integer, java.awt.Point> players = new ConcurrentHashMap<>();
-    private static ConcurrentHashMap<Integer, InetAddress> clientIPs = new ConcurrentHashMap<>();
-    private static ConcurrentHashMap<Integer, Integer> clientPorts = new ConcurrentHashMap<>();
-    private static ConcurrentHashMap<Integer, String> playerNames = new ConcurrentHashMap<>();
-    private int currentMazeSize;
-    private int[][] maze;
-    private int nextId = 1;
-    private DatagramSocket udpSocket;
-    private boolean isGameFinished = false;
-
-    // JMS Logic
-    private Connection jmsConnection;
-    private Session jmsSession;
-    private MessageProducer eventProducer;
+    // Plusieurs parties en parallèle dans le même processus : une salle = un labyrinthe + ses joueurs
+    private RoomManager rooms;
+    private int currentMazeSize; // taille des labyrinthes des nouvelles salles
+    private UdpPipeline udp;
+    private final ServerMetrics metrics = new ServerMetrics(); // JMX + http://127.0.0.1:9100/metrics
+
+    // Annonces (connexions...) : JMS par lots sur un thread dédié, ou en mémoire (-Dmaze.eventBus=memory)
+    private final EventBus events;
+
+    private final ServerConfig config;
+    // Nœud de jeu derrière un lobby : numéro attribué à l'inscription (-1 en autonome)
+    private ILobbyService lobby;
+    private int nodeIndex = -1;
 
     public MazeServer(int size) throws Exception {
+        this(ServerConfig.standalone(size));
+    }
+
+    MazeServer(ServerConfig config) throws Exception {
         super();
-        this.currentMazeSize = size; // On stocke la taille choisie
-        generateMazeRecursive();
+        this.config = config;
+        this.currentMazeSize = config.size; // On stocke la taille choisie
+        events = createEventBus(metrics);
+        Runtime.getRuntime().addShutdownHook(new Thread(events::close, "events-close")); // vide la file
         initUDP();
-        initJMS();
-        System.out.println("[SERVEUR] Labyrinthe de taille " + size + "x" + size + " généré.");
+        // Relecture des manches : un fichier par manche dans -Dmaze.replayDir (lu par common.ReplayEngine)
+        ReplayWriter replays = null;
+        if (Constants.REPLAY_DIR != null) {
+            replays = new ReplayWriter(java.nio.file.Paths.get(Constants.REPLAY_DIR), metrics);
+            Runtime.getRuntime().addShutdownHook(new Thread(replays::close, "replay-close"));
+        }
+        // Labyrinthes préparés en arrière-plan (et relus du cache disque) dès maintenant
+        MazePool mazes = new MazePool(metrics);
+        Runtime.getRuntime().addShutdownHook(new Thread(mazes::close, "mazes-close"));
+        mazes.warm(config.size);
+        if (config.role.equals(ServerConfig.NODE)) {
+            // Le numéro de nœud fixe les identifiants de salle : inscription avant la première salle
+            lobby = (ILobbyService) LocateRegistry.getRegistry(config.lobbyHost, config.lobbyPort).lookup(Constants.LOBBY_ID);
+            nodeIndex = lobby.register(this, config.host, config.rmiPort, config.udpPort, config.capacity, config.nodeIndex);
+            rooms = new RoomManager(udp, config.size, metrics, replays, mazes, nodeIndex * Constants.MAX_ROOMS);
+            System.out.println("[NOEUD] Inscrit auprès du lobby " + config.lobbyHost + ":" + config.lobbyPort + " (nœud #" + nodeIndex + ")");
+        } else {
+            rooms = new RoomManager(udp, config.size, metrics, replays, mazes);
+        }
+        metrics.bind(udp, rooms, events);
+        new ChatRelay(rooms, events, metrics).start(); // chat des salles de ce processus seulement
+        metrics.start(rooms.workers(), config.metricsPort);
+        rooms.workers().scheduleAtFixedRate(this::reportBackpressure, 5, 5, TimeUnit.SECONDS);
+        System.out.println("[SERVEUR] Labyrinthes de taille " + config.size + "x" + config.size + ".");
     }
-    @Override
-    public int getMazeSize() throws RemoteException {
-        return currentMazeSize;
+
+    // Nœud : le lobby ne lui envoie des joueurs qu'après ce premier rapport (appelé une fois le
+    // service publié dans le registre, pour les clients qui s'adressent ensuite directement au nœud)
+    private void startReports() {
+        if (lobby == null) return;
+        // Thread à part : un appel RMI lent vers le lobby ne doit pas retarder les ticks
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "lobby-report");
+            t.setDaemon(true);
+            return t;
+        });
+        reporter.scheduleAtFixedRate(this::reportLoad, 0, Constants.NODE_REPORT_SECONDS, TimeUnit.SECONDS);
     }
-    // --- ALGORITHME DE GÉNÉRATION (Recursive Backtracker) ---
-    private void generateMazeRecursive() {
-        // 1. Initialisation (Mur partout)
-        maze = new int[currentMazeSize][currentMazeSize];
-        for (int i = 0; i < currentMazeSize; i++) {
-            for (int j = 0; j < currentMazeSize; j++) {
-                maze[i][j] = 1;
+
+    // Charge du nœud vers le lobby ; s'il ne nous connaît plus (redémarré), réinscription sous le même numéro
+    private void reportLoad() {
+        try {
+            String[] names = new String[rooms.rooms().size()];
+            int n = 0;
+            for (Room room : rooms.rooms()) if (n < names.length) names[n++] = room.name();
+            if (!lobby.report(nodeIndex, rooms.playerCount(), java.util.Arrays.copyOf(names, n))) {
+                lobby.register(this, config.host, config.rmiPort, config.udpPort, config.capacity, nodeIndex);
+                System.out.println("[NOEUD] Réinscrit auprès du lobby (nœud #" + nodeIndex + ")");
             }
+        } catch (RemoteException e) {
+            System.out.println("[NOEUD] Lobby injoignable : " + e.getMessage());
         }
+    }
 
-        // 2. Algorithme DFS (Génère le chemin unique)
-        carve(1, 1);
+    // Ici plutôt que dans EventBus : seul MazeServer dépend de JMS (les benchmarks s'en passent)
+    private static EventBus createEventBus(ServerMetrics metrics) throws javax.jms.JMSException {
+        switch (Constants.EVENT_BUS) {
+            case "jms": return new JmsEventBus(Constants.BROKER_URL, metrics);
+            case "memory": return new InMemoryEventBus();
+            default: throw new IllegalArgumentException("maze.eventBus inconnu : " + Constants.EVENT_BUS + " (jms, memory)");
+        }
+    }
 
-        // 3. --- NOUVEAU : AJOUT DE BOUCLES ---
-        // On supprime environ 10% des murs restants pour créer des cycles
-        addLoops(10);
+    @Override
+    public int getMazeSize() throws RemoteException {
+        return currentMazeSize;
+    }
 
-        // 4. Sortie et Départ
-        maze[currentMazeSize - 2][currentMazeSize - 2] = 9;
-        maze[1][1] = 0;
+    private void initUDP() throws java.io.IOException {
+        udp = new UdpPipeline(config.udpPort, Constants.UDP_SHARDS);
+        udp.start(() -> {
+            Protocol.Move move = new Protocol.Move(); // Structure de décodage propre à chaque thread
+            return (in, from) -> processUdpMessage(in, move, from);
+        });
     }
-    private void addLoops(int percentage) {
-        // Parcourt tout le labyrinthe (sauf les bords extérieurs)
-        for (int i = 2; i < currentMazeSize - 2; i++) {
-            for (int j = 2; j < currentMazeSize - 2; j++) {
-
-                // Si c'est un mur (1)
-                if (maze[i][j] == 1) {
-
-                    // Vérifie si ce mur sépare deux cases vides verticalement ou horizontalement
-                    boolean separatesVertical = (maze[i-1][j] == 0 && maze[i+1][j] == 0);
-                    boolean separatesHorizontal = (maze[i][j-1] == 0 && maze[i][j+1] == 0);
-
-                    if (separatesVertical || separatesHorizontal) {
-                        // On lance un dé pour savoir si on casse ce mur
-                        if (Math.random() * 100 < percentage) {
-                            maze[i][j] = 0; // Le mur devient un passage
-                        }
-                    }
-                }
-            }
-        }
+
+    @Override
+    public int login(String username) throws java.rmi.RemoteException {
+        return login(username, RoomManager.DEFAULT_ROOM).getPlayerId();
     }
 
-    private void carve(int x, int y) {
-        maze[x][y] = 0;
-        ArrayList<Integer> dirs = new ArrayList<>();
-        dirs.add(0); dirs.add(1); dirs.add(2); dirs.add(3);
-        Collections.shuffle(dirs);
-
-        for (int dir : dirs) {
-            int nx = x, ny = y;
-            switch (dir) {
-                case 0: ny -= 2; break;
-                case 1: ny += 2; break;
-                case 2: nx -= 2; break;
-                case 3: nx += 2; break;
-            }
-            // Utilisez currentMazeSize ici aussi !
-            if (nx > 0 && nx < currentMazeSize - 1 && ny > 0 && ny < currentMazeSize - 1 && maze[nx][ny] == 1) {
-                maze[(x + nx) / 2][(y + ny) / 2] = 0;
-                carve(nx, ny);
-            }
+    @Override
+    public LoginTicket login(String username, String roomName) throws RemoteException {
+        long start = System.nanoTime();
+        try {
+            return doLogin(username, roomName);
+        } finally {
+            metrics.loginMicros.recordSince(start);
         }
     }
-    // ---------------------------------------------------------
 
-    private void initUDP() {
-        new Thread(() -> {
-            try {
-                udpSocket = new DatagramSocket(Constants.UDP_PORT);
-                byte[] buffer = new byte[1024];
-                while (true) {
-                    DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
-                    udpSocket.receive(packet);
-                    String msg = new String(packet.getData(), 0, packet.getLength());
-                    processUdpMessage(msg, packet.getAddress(), packet.getPort());
-                }
-            } catch (Exception e) { e.printStackTrace(); }
-        }).start();
+    private LoginTicket doLogin(String username, String roomName) throws RemoteException {
+        if (!RoomManager.isValidName(roomName)) throw new RemoteException("Nom de salle invalide : " + roomName);
+        if (rooms.playerCount() >= config.capacity) throw new RemoteException("Nœud complet (" + config.capacity + " joueurs)");
+        Room room;
+        int id;
+        do { // salle fermée juste avant notre arrivée : une nouvelle est créée sous le même nom
+            room = rooms.getOrCreate(roomName);
+            if (room == null) throw new RemoteException("Nombre maximal de salles atteint (" + Constants.MAX_ROOMS + ")");
+            id = room.join(username);
+        } while (id == Room.CLOSED);
+        if (id < 0) throw new RemoteException("Salle complète (" + Constants.MAX_PLAYERS + " joueurs)");
+        events.publish(Constants.EVENT_TOPIC, "SERVEUR: " + username + " est entré dans le labyrinthe (salle " + roomName + ").");
+        System.out.println("Nouveau joueur: " + username + " (ID: " + id + ", salle: " + roomName + ")");
+        return new LoginTicket(id, room.id(), roomName, room.sessionToken(id), config.host, config.rmiPort, config.udpPort);
     }
 
-    private void initJMS() throws JMSException {
-        ConnectionFactory factory = new ActiveMQConnectionFactory(Constants.BROKER_URL);
-        jmsConnection = factory.createConnection();
-        jmsConnection.start();
-        jmsSession = jmsConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
-        Topic topic = jmsSession.createTopic(Constants.EVENT_TOPIC);
-        eventProducer = jmsSession.createProducer(topic);
+    @Override
+    public boolean leave(int roomId, int playerId, int sessionToken) throws RemoteException {
+        Room room = rooms.get(roomId);
+        String username = room == null ? null : room.playerName(playerId);
+        if (username == null || !room.leave(playerId, sessionToken)) return false;
+        events.publish(Constants.EVENT_TOPIC, "SERVEUR: " + username + " a quitté le labyrinthe (salle " + room.name() + ").");
+        return true;
     }
 
     @Override
-    public synchronized int login(String username) throws java.rmi.RemoteException {
-        int id = nextId++;
-        players.put(id, new java.awt.Point(1, 1));
-        playerNames.put(id, username);
-        try {
-            TextMessage msg = jmsSession.createTextMessage("SERVEUR: " + username + " est entré dans le labyrinthe.");
-            eventProducer.send(msg);
-        } catch (JMSException e) { e.printStackTrace(); }
-        System.out.println("Nouveau joueur: " + username + " (ID: " + id + ")");
-        return id;
+    public LoginTicket spectate(String roomName) throws RemoteException {
+        Room room = rooms.get(roomName);
+        if (room == null) throw new RemoteException("Salle inconnue : " + roomName);
+        return new LoginTicket(-1, room.id(), roomName, PlayerTable.NO_TOKEN, config.host, config.rmiPort, config.udpPort);
     }
+
     @Override
     public MazeState getMazeState() throws RemoteException {
-        // Renvoie l'objet complexe
-        String diff = (currentMazeSize == 21) ? "Facile" : (currentMazeSize == 41) ? "Moyen" : "Difficile";
-        return new MazeState(maze, currentMazeSize, diff);
+        // Renvoie l'objet complexe (salle par défaut)
+        return defaultRoom().maze().state;
     }
-    // Supprimez l'ancienne méthode getMaze()
 
-    private void processUdpMessage(String msg, InetAddress ip, int port) {
-        if (isGameFinished) {
-            return; // On arrête la lecture ici, le paquet est ignoré.
-        }
-        String[] parts = msg.split(";");
-        if (parts[0].equals("MOVE")) {
-            int id = Integer.parseInt(parts[1]);
-            String dir = parts[2];
-
-            // --- AJOUTEZ CE BLOC "AUTO-SPAWN" POUR LE BOT ---
-            // Si c'est le Bot (ID 777) et qu'il n'existe pas encore, on le crée !
-            if (id == 777 && !players.containsKey(id)) {
-                System.out.println("⚠️ DETECTION DU BOT PYTHON ! Ajout au jeu...");
-                players.put(id, new java.awt.Point(1, 1)); // Spawn en (1,1)
-                playerNames.put(id, "Bot Python");
-                // Optionnel : Ajouter un nom pour l'affichage de victoire
-                // playerNames.put(id, "Bot_Python");
-            }
-
-            // ------------------------------------------------
+    @Override
+    public MazeInfo getMazeInfo() throws RemoteException {
+        return defaultRoom().maze().info;
+    }
 
-            clientIPs.put(id, ip);
-            clientPorts.put(id, port);
+    @Override
+    public EncodedMaze getEncodedMaze() throws RemoteException {
+        return defaultRoom().maze().encoded;
+    }
 
-            java.awt.Point p = players.get(id);
-            if (p == null) return; // Sécurité habituelle
-            int newX = p.x;
-            int newY = p.y;
+    @Override
+    public MazeInfo getMazeInfo(int roomId) throws RemoteException {
+        return room(roomId).maze().info;
+    }
 
-            switch(dir) {
-                case "UP": newY--; break;
-                case "DOWN": newY++; break;
-                case "LEFT": newX--; break;
-                case "RIGHT": newX++; break;
-            }
+    @Override
+    public EncodedMaze getEncodedMaze(int roomId) throws RemoteException {
+        return room(roomId).maze().encoded;
+    }
 
-            // Vérification des collisions stricte
-            if (newX >= 0 && newX < currentMazeSize && newY >= 0 && newY < currentMazeSize) {
-                if (maze[newX][newY] != 1) {
-                    // Mise à jour position
-                    p.x = newX;
-                    p.y = newY;
-                    players.put(id, p);
-                    broadcastPosition(id, p.x, p.y);
-
-                    // --- 2. VICTOIRE : ON FERME LE JEU ---
-                    if (maze[newX][newY] == 9) { // 9 = Sortie
-                        isGameFinished = true; // <--- ON BLOQUE LE JEU ICI
-                        broadcastWin(id);
-                    }
-                    // -------------------------------------
-                }
-            }
+    @Override
+    public int[] findPath(int roomId, int fromX, int fromY, int toX, int toY) throws RemoteException {
+        Navigation navigation = room(roomId).maze().navigation;
+        int size = navigation.size();
+        if (fromX < 0 || fromY < 0 || toX < 0 || toY < 0 || fromX >= size || fromY >= size || toX >= size || toY >= size) {
+            throw new RemoteException("Case hors du labyrinthe (" + size + "x" + size + ")");
         }
+        return navigation.findPath(fromX, fromY, toX, toY);
     }
 
-    private void broadcastPosition(int id, int x, int y) {
-        String msg = "POS;" + id + ";" + x + ";" + y;
-        byte[] data = msg.getBytes();
-        clientIPs.forEach((pid, ip) -> {
-            try {
-                int port = clientPorts.get(pid);
-                DatagramPacket packet = new DatagramPacket(data, data.length, ip, port);
-                udpSocket.send(packet);
-            } catch (Exception e) {}
-        });
+    // Sur un nœud, "main" n'existe qu'une fois demandée (identifiant variable selon le nœud)
+    private Room defaultRoom() throws RemoteException {
+        Room room = rooms.defaultRoom();
+        if (room == null) throw new RemoteException("Nombre maximal de salles atteint (" + Constants.MAX_ROOMS + ")");
+        return room;
     }
 
-    private void broadcastWin(int id) {
-        try {
-            String username = playerNames.get(id);
-            TextMessage msg = jmsSession.createTextMessage("VICTOIRE ! Le joueur " + username + " a trouvé la sortie !");
-            eventProducer.send(msg);
-        } catch (Exception e) {}
+    private Room room(int roomId) throws RemoteException {
+        Room room = rooms.get(roomId);
+        if (room == null) throw new RemoteException("Salle inconnue : " + roomId);
+        return room;
     }
 
+    // Affiche la profondeur des files uniquement quand des paquets ont été perdus
+    private long lastDropped = 0;
+
+    private void reportBackpressure() {
+        long inputsDropped = 0;
+        int inputDepth = 0;
+        for (Room room : rooms.rooms()) {
+            inputsDropped += room.inputs().dropped();
+            inputDepth += room.inputs().size();
+        }
+        long dropped = inputsDropped + udp.droppedSends();
+        if (dropped != lastDropped) {
+            System.out.println("[UDP] Contre-pression : file entrées=" + inputDepth
+                    + " file envoi=" + udp.sendQueueDepth()
+                    + " entrées perdues=" + inputsDropped + " envois perdus=" + udp.droppedSends()
+                    + " (reçus=" + udp.packetsIn() + ", envoyés=" + udp.packetsOut() + ")");
+            lastDropped = dropped;
+        }
+    }
+
+    // Thread UDP : décodage puis remise à la salle indiquée dans l'en-tête
+    private void processUdpMessage(ByteBuffer in, Protocol.Move move, InetSocketAddress from) {
+        // Format binaire (MazeClient) ou ancien format texte (bot_player.py, salle par défaut) sur le même port
+        // Rejet précoce, avant toute analyse : taille impossible ou ancien format refusé
+        int length = in.remaining();
+        boolean binary = Protocol.isBinary(in);
+        if (length > Protocol.MAX_INPUT_SIZE || (!binary && !Constants.TEXT_BOT)) {
+            metrics.parseFailures.increment();
+            return;
+        }
+        int op;
+        boolean valid;
+        if (binary) {
+            op = Protocol.opcode(in);
+            if (op == Protocol.OP_SPECTATE_JOIN) { // lecture publique : ni joueur ni jeton
+                Room room = Protocol.readSpectateJoin(in) ? rooms.get(Protocol.roomId(in)) : null;
+                if (room != null) room.onSpectate(from);
+                else metrics.unknownSenders.increment();
+                return;
+            }
+            if (op == Protocol.OP_HINT_REQUEST) valid = Protocol.readHintRequest(in, move);
+            else if (op == Protocol.OP_ACK) valid = Protocol.readAck(in, move);
+            else if (op == Protocol.OP_HEARTBEAT) valid = Protocol.readHeartbeat(in, move);
+            else valid = Protocol.readMove(in, move);
+        } else {
+            op = Protocol.readLegacyHint(in, move) ? Protocol.OP_HINT_REQUEST : Protocol.OP_MOVE;
+            valid = op == Protocol.OP_HINT_REQUEST || Protocol.readLegacyMove(in, move);
+        }
+        if (!valid) {
+            metrics.parseFailures.increment();
+            return;
+        }
+        Room room = rooms.get(move.roomId);
+        if (room == null) {
+            metrics.unknownSenders.increment();
+            return;
+        }
+        if (op == Protocol.OP_HINT_REQUEST) room.onHintRequest(move, from);
+        else if (op == Protocol.OP_ACK) room.onAck(move, from);
+        else if (op == Protocol.OP_HEARTBEAT) room.onHeartbeat(move, from);
+        else room.onMove(move, from);
+    }
+
+    // Sans argument : serveur autonome, taille choisie au clavier. Avec --clé=valeur : voir ServerConfig
     public static void main(String[] args) {
+        if (args.length > 0) {
+            try {
+                launch(args);
+            } catch (Exception e) {
+                e.printStackTrace();
+                System.exit(1);
+            }
+            return;
+        }
         try {
             // MENU DE SÉLECTION
             Scanner scanner = new Scanner(System.in);
@@ -290,4 +345,20 @@ public class MazeServer extends UnicastRemoteObject implements IGameService {
         } catch (Exception e) { e.printStackTrace(); }
     }
 
-}
\ No newline at end of file
+    // Démarrage sans menu (plusieurs processus sur une machine, serveurs embarqués du test de charge).
+    // Le service CORBA (port 1050 fixe) reste réservé au serveur autonome interactif.
+    public static void launch(String[] args) throws Exception {
+        ServerConfig config = ServerConfig.parse(args);
+        Registry registry = LocateRegistry.createRegistry(config.rmiPort);
+        if (config.role.equals(ServerConfig.LOBBY)) {
+            LobbyServer lobby = new LobbyServer();
+            registry.rebind(Constants.LOBBY_ID, lobby);
+            registry.rebind(Constants.RMI_ID, lobby); // les clients ne voient pas la différence
+        } else {
+            MazeServer server = new MazeServer(config);
+            registry.rebind(Constants.RMI_ID, server);
+            server.startReports();
+        }
+        System.out.println("[SERVEUR] Prêt : " + config);
+    }
+}
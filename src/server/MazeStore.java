@@ -0,0 +1,131 @@
+package server;
+
+import common.EncodedMaze;
+import common.MazeCodec;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Bibliothèque de labyrinthes déjà générés, sur disque, pour une taille et un générateur donnés
+// (un fichier par couple, voir MazePool). Chaque labyrinthe y est gardé sous sa forme envoyée aux
+// clients (MazeCodec, 2 bits par case + deflate) : c'est la plus compacte, et c'est surtout la
+// compression qui coûte cher à préparer, pas la génération. Fichier projeté en mémoire, ajouts
+// à la suite ; relire un labyrinthe est une copie mémoire suivie d'un inflate.
+//   en-tête : [magic u32 "MZMC"][taille u32][nombre u32][fin des données u32]
+//   enregistrement : [graine u64][hash SHA-256, 32 octets][longueur u32][données MazeCodec]
+// Nombre et fin ne sont mis à jour qu'après l'écriture de l'enregistrement : un arrêt brutal perd
+// au pire le dernier ajout. Index graine -> enregistrement en mémoire, reconstruit à l'ouverture.
+final class MazeStore implements AutoCloseable {
+
+    private static final int MAGIC = 0x4D5A4D43; // "MZMC"
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_HEADER = 8 + 32 + 4;
+
+    private final Path path;
+    private final int size;
+    private final int capacity; // labyrinthes au plus
+    private final FileChannel channel;
+    private MappedByteBuffer map; // nouvelle projection, plus grande, quand un ajout ne tient plus
+    private final Map<Long, Integer> index = new HashMap<>();
+    private final List<Integer> offsets = new ArrayList<>();
+    private int end = HEADER_SIZE;
+    // Fichier tronqué : plus aucun accès à la projection, lecture comme écriture (une page au-delà
+    // de la nouvelle fin lèverait SIGBUS). Les lectures renvoient alors -1 / null, comme un absent.
+    private boolean closed;
+
+    MazeStore(Path path, int size, int capacity) throws IOException {
+        this.path = path;
+        this.size = size;
+        this.capacity = capacity;
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long existing = Math.min(channel.size(), Integer.MAX_VALUE);
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(existing, HEADER_SIZE + 64 * 1024));
+        if (existing >= HEADER_SIZE && map.getInt(0) == MAGIC && map.getInt(4) == size) {
+            // Enregistrements relus un à un : on s'arrête au premier incomplet (fichier tronqué...)
+            int stored = map.getInt(8);
+            long limit = Math.min(map.getInt(12) & 0xFFFFFFFFL, existing);
+            int offset = HEADER_SIZE;
+            for (int i = 0; i < stored && offset + RECORD_HEADER <= limit; i++) {
+                int length = map.getInt(offset + 40);
+                if (length < 0 || offset + RECORD_HEADER + (long) length > limit) break;
+                index.put(map.getLong(offset), offsets.size());
+                offsets.add(offset);
+                offset += RECORD_HEADER + length;
+            }
+            end = offset;
+        } else if (existing > 0) {
+            System.out.println("[LABYRINTHES] " + path + " : format ou taille différents, fichier réinitialisé");
+        }
+        map.putInt(0, MAGIC).putInt(4, size).putInt(8, offsets.size()).putInt(12, end);
+    }
+
+    synchronized int count() { return offsets.size(); }
+
+    // -1 si le cache est fermé (load() renvoie alors null : ne se fier à la graine que si load() aboutit)
+    synchronized long seedAt(int record) { return closed ? -1 : map.getLong(offsets.get(record)); }
+
+    // null si le cache est fermé
+    synchronized EncodedMaze load(int record) {
+        if (closed) return null;
+        int offset = offsets.get(record);
+        StringBuilder hash = new StringBuilder(64);
+        for (int i = 0; i < 32; i++) {
+            int b = map.get(offset + 8 + i);
+            hash.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        byte[] data = new byte[map.getInt(offset + 40)];
+        map.position(offset + RECORD_HEADER);
+        map.get(data);
+        return new EncodedMaze(size, MazeCodec.ENCODING, hash.toString(), data);
+    }
+
+    // null si cette graine n'a jamais été enregistrée ou si le cache est fermé
+    synchronized EncodedMaze find(long seed) {
+        if (closed) return null;
+        Integer record = index.get(seed);
+        return record == null ? null : load(record);
+    }
+
+    // false si le fichier est plein, la graine déjà présente ou le cache fermé
+    synchronized boolean append(long seed, EncodedMaze maze) throws IOException {
+        if (closed || offsets.size() >= capacity || index.containsKey(seed)) return false;
+        byte[] data = maze.getData();
+        long next = (long) end + RECORD_HEADER + data.length;
+        if (next > Integer.MAX_VALUE) return false; // une seule projection, moins de 2 Go
+        if (next > map.capacity()) {
+            map.force();
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(Integer.MAX_VALUE, Math.max(next, 2L * map.capacity())));
+        }
+        map.position(end);
+        map.putLong(seed);
+        String hash = maze.getHash();
+        for (int i = 0; i < 64; i += 2) map.put((byte) Integer.parseInt(hash.substring(i, i + 2), 16));
+        map.putInt(data.length);
+        map.put(data);
+        index.put(seed, offsets.size());
+        offsets.add(end);
+        end = (int) next;
+        map.putInt(12, end).putInt(8, offsets.size());
+        return true;
+    }
+
+    // Fichier ramené à sa taille utile (la projection dépasse)
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            map.force();
+            channel.truncate(end);
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("[LABYRINTHES] Fermeture de " + path + " : " + e.getMessage());
+        }
+    }
+}
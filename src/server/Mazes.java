@@ -0,0 +1,95 @@
+package server;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Point d'entrée de la génération : choix de l'algorithme, graine, boucles, départ et sortie.
+// Avec la même graine et le même algorithme, la grille obtenue est toujours identique
+// (tests de charge, replays).
+public final class Mazes {
+
+    public static final byte WALL = 1;
+    public static final byte FLOOR = 0;
+
+    private Mazes() {}
+
+    public static MazeGenerator byName(String name) {
+        switch (name.toLowerCase()) {
+            case "backtracker": return new BacktrackerGenerator();
+            case "wilson": return new WilsonGenerator();
+            case "eller": return new EllerGenerator();
+            case "kruskal": return new KruskalGenerator();
+            default: throw new IllegalArgumentException("Générateur inconnu : " + name
+                    + " (backtracker, wilson, eller, kruskal)");
+        }
+    }
+
+    // Génère une grille de jeu complète (1 = mur, 0 = sol, 9 = sortie)
+    public static int[][] generate(MazeGenerator generator, int size, long seed, int loopPercentage) {
+        return toGrid(generateCells(generator, size, seed, loopPercentage), size);
+    }
+
+    // Version compacte (1 octet par case) utilisée par les benchmarks et le cache
+    public static byte[] generateCells(MazeGenerator generator, int size, long seed, int loopPercentage) {
+        if (size < 5 || size % 2 == 0) throw new IllegalArgumentException("La taille doit être impaire et >= 5 : " + size);
+        SplittableRandom random = new SplittableRandom(seed);
+        byte[] cells = new byte[size * size];
+        Arrays.fill(cells, WALL);
+
+        // 1. Algorithme choisi (chemin unique)
+        generator.carve(cells, size, random);
+
+        // 2. On supprime environ loopPercentage % des murs séparant deux couloirs pour créer des cycles
+        addLoops(cells, size, random, loopPercentage);
+
+        // 3. Départ et sortie
+        cells[1 * size + 1] = FLOOR;
+        cells[(size - 2) * size + (size - 2)] = 9;
+        return cells;
+    }
+
+    static void addLoops(byte[] cells, int size, SplittableRandom random, int percentage) {
+        for (int i = 2; i < size - 2; i++) {
+            for (int j = 2; j < size - 2; j++) {
+                int k = i * size + j;
+                if (cells[k] != WALL) continue;
+                boolean separatesVertical = cells[k - size] == FLOOR && cells[k + size] == FLOOR;
+                boolean separatesHorizontal = cells[k - 1] == FLOOR && cells[k + 1] == FLOOR;
+                if ((separatesVertical || separatesHorizontal) && random.nextInt(100) < percentage) {
+                    cells[k] = FLOOR;
+                }
+            }
+        }
+    }
+
+    public static int[][] toGrid(byte[] cells, int size) {
+        int[][] grid = new int[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                grid[i][j] = cells[i * size + j];
+            }
+        }
+        return grid;
+    }
+
+    // --- OUTILS COMMUNS AUX GÉNÉRATEURS (coordonnées en cellules) ---
+
+    static int cellsPerSide(int size) {
+        return (size - 1) / 2;
+    }
+
+    static void open(byte[] cells, int size, int cx, int cy) {
+        cells[(2 * cx + 1) * size + (2 * cy + 1)] = FLOOR;
+    }
+
+    static boolean isOpen(byte[] cells, int size, int cx, int cy) {
+        return cells[(2 * cx + 1) * size + (2 * cy + 1)] == FLOOR;
+    }
+
+    // Ouvre le mur entre deux cellules voisines (et les deux cellules)
+    static void openBetween(byte[] cells, int size, int cx1, int cy1, int cx2, int cy2) {
+        cells[(2 * cx1 + 1) * size + (2 * cy1 + 1)] = FLOOR;
+        cells[(cx1 + cx2 + 1) * size + (cy1 + cy2 + 1)] = FLOOR;
+        cells[(2 * cx2 + 1) * size + (2 * cy2 + 1)] = FLOOR;
+    }
+}
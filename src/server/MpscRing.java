@@ -0,0 +1,57 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Anneau borné sans verrou, plusieurs producteurs et un seul consommateur (même algorithme de
+// Vyukov que InputQueue, mais pour des objets). offer() n'attend jamais : plein = refusé.
+class MpscRing<T> {
+
+    private final int mask;
+    private final AtomicReferenceArray<T> items;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong(); // producteurs
+    private long head;                                // consommateur unique
+
+    MpscRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1; // puissance de 2
+        mask = size - 1;
+        items = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) sequences.set(i, i);
+    }
+
+    boolean offer(T item) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    items.lazySet(index, item);
+                    sequences.lazySet(index, pos + 1); // publie l'élément
+                    return true;
+                }
+                pos = tail.get(); // un autre producteur a pris la case : on repart de la nouvelle queue
+            } else if (diff < 0) {
+                return false; // plein
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    // Appelé uniquement par le consommateur ; null si vide
+    T poll() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) return null;
+        T item = items.get(index);
+        items.lazySet(index, null);
+        sequences.lazySet(index, head + mask + 1); // libère la case pour le tour suivant
+        head++;
+        return item;
+    }
+
+    int size() { return (int) Math.max(0, tail.get() - head); }
+}
@@ -0,0 +1,256 @@
+package server;
+
+import common.Constants;
+import common.Protocol;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Aide à la navigation pour un labyrinthe : les bots (et les joueurs qui demandent un indice)
+// n'ont plus besoin de tester les murs un par un en envoyant des coups au serveur.
+//
+// - Champ de distances vers la sortie : un BFS depuis la sortie, calculé une fois par manche.
+//   Ensuite "quelle direction pour sortir ?" et "à combien de cases ?" sont en O(1).
+// - Chemin entre deux cases quelconques : A* (heuristique de Manhattan) sur la grille.
+// - La grille ne change pas pendant une manche : une nouvelle manche = une nouvelle Navigation.
+//
+// Indices des cases : x * size + y (même ordre que la grille maze[x][y]).
+public final class Navigation {
+
+    public static final int UNREACHABLE = -1;
+
+    private final int size;
+    private final boolean[] open;
+    private final int[] distance; // distance vers la sortie, UNREACHABLE pour les murs et les zones isolées
+    private final int exit;
+
+    // Tableaux de travail de A*, empruntés le temps d'un appel à un pool borné commun à tous les
+    // labyrinthes et à toutes les manches (appels RMI concurrents) : NAV_SEARCHES jeux au plus, à la
+    // taille du plus grand labyrinthe vu, au lieu d'un jeu par thread et par labyrinthe jamais rendu.
+    // Les cases visitées sont marquées par un numéro de recherche : pas de remise à zéro entre deux
+    // requêtes, même d'un labyrinthe à l'autre.
+    private static final int MAX_SEARCHES = Math.max(1, Constants.NAV_SEARCHES);
+    private static final ArrayBlockingQueue<Search> idleSearches = new ArrayBlockingQueue<>(MAX_SEARCHES);
+    private static final AtomicInteger createdSearches = new AtomicInteger();
+
+    public Navigation(int[][] grid) {
+        this.size = grid.length;
+        int n = size * size;
+        open = new boolean[n];
+        int exitCell = UNREACHABLE;
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                open[x * size + y] = grid[x][y] != 1;
+                if (grid[x][y] == 9) exitCell = x * size + y;
+            }
+        }
+        exit = exitCell;
+        distance = new int[n];
+        rebuild();
+    }
+
+    // --- CHAMP DE DISTANCES VERS LA SORTIE ---
+
+    // BFS complet depuis la sortie
+    private void rebuild() {
+        Arrays.fill(distance, UNREACHABLE);
+        if (exit == UNREACHABLE) return;
+        int[] queue = new int[size * size];
+        int head = 0, tail = 0;
+        distance[exit] = 0;
+        queue[tail++] = exit;
+        while (head < tail) {
+            int c = queue[head++];
+            int d = distance[c] + 1;
+            int x = c / size, y = c % size;
+            if (x > 0 && open[c - size] && distance[c - size] == UNREACHABLE) { distance[c - size] = d; queue[tail++] = c - size; }
+            if (x < size - 1 && open[c + size] && distance[c + size] == UNREACHABLE) { distance[c + size] = d; queue[tail++] = c + size; }
+            if (y > 0 && open[c - 1] && distance[c - 1] == UNREACHABLE) { distance[c - 1] = d; queue[tail++] = c - 1; }
+            if (y < size - 1 && open[c + 1] && distance[c + 1] == UNREACHABLE) { distance[c + 1] = d; queue[tail++] = c + 1; }
+        }
+    }
+
+    public int distanceToExit(int x, int y) {
+        return inside(x, y) ? distance[x * size + y] : UNREACHABLE;
+    }
+
+    // Direction (Protocol.DIR_*) qui rapproche de la sortie, DIR_NONE si on y est ou si c'est impossible
+    public int nextDirToExit(int x, int y) {
+        int d = distanceToExit(x, y);
+        if (d <= 0) return Protocol.DIR_NONE;
+        for (int dir = Protocol.DIR_UP; dir <= Protocol.DIR_RIGHT; dir++) {
+            if (distanceToExit(x + Protocol.dx(dir), y + Protocol.dy(dir)) == d - 1) return dir;
+        }
+        return Protocol.DIR_NONE; // impossible si le champ est cohérent
+    }
+
+    // Chemin le plus court vers la sortie en descendant le champ de distances : [x0, y0, x1, y1, ...]
+    public int[] pathToExit(int x, int y) {
+        int d = distanceToExit(x, y);
+        if (d == UNREACHABLE) return new int[0];
+        int[] path = new int[2 * (d + 1)];
+        for (int i = 0; ; i++) {
+            path[2 * i] = x;
+            path[2 * i + 1] = y;
+            if (i == d) return path;
+            int dir = nextDirToExit(x, y);
+            x += Protocol.dx(dir);
+            y += Protocol.dy(dir);
+        }
+    }
+
+    // --- CHEMIN ENTRE DEUX CASES (A*) ---
+
+    // Renvoie [x0, y0, ..., xn, yn] du départ à l'arrivée, ou un tableau vide s'il n'y a pas de chemin
+    public int[] findPath(int fromX, int fromY, int toX, int toY) {
+        if (!inside(fromX, fromY) || !inside(toX, toY)) return new int[0];
+        int start = fromX * size + fromY;
+        int goal = toX * size + toY;
+        if (!open[start] || !open[goal]) return new int[0];
+        if (goal == exit) return pathToExit(fromX, fromY); // déjà calculé
+
+        Search s = borrow(size * size);
+        try {
+            s.visit(start, 0, UNREACHABLE);
+            s.push(manhattan(start, toX, toY), start);
+            while (s.heapSize > 0) {
+                int c = s.pop();
+                if (s.closed[c] == s.stamp) continue; // entrée périmée (déjà traitée avec un meilleur coût)
+                s.closed[c] = s.stamp;
+                if (c == goal) return s.path(goal, size);
+                int g = s.cost[c] + 1;
+                int x = c / size, y = c % size;
+                if (x > 0) relax(s, c, c - size, g, toX, toY);
+                if (x < size - 1) relax(s, c, c + size, g, toX, toY);
+                if (y > 0) relax(s, c, c - 1, g, toX, toY);
+                if (y < size - 1) relax(s, c, c + 1, g, toX, toY);
+            }
+            return new int[0];
+        } finally {
+            idleSearches.offer(s);
+        }
+    }
+
+    private void relax(Search s, int from, int next, int g, int toX, int toY) {
+        if (!open[next] || s.closed[next] == s.stamp) return;
+        if (s.seen[next] == s.stamp && s.cost[next] <= g) return;
+        s.visit(next, g, from);
+        s.push(g + manhattan(next, toX, toY), next);
+    }
+
+    private int manhattan(int c, int toX, int toY) {
+        return Math.abs(c / size - toX) + Math.abs(c % size - toY);
+    }
+
+    private boolean inside(int x, int y) {
+        return x >= 0 && x < size && y >= 0 && y < size;
+    }
+
+    public int size() { return size; }
+
+    // Un jeu libre, créé tant qu'on n'en a pas MAX_SEARCHES, sinon on attend qu'un appel rende le sien
+    private static Search borrow(int n) {
+        Search s = idleSearches.poll();
+        if (s == null) {
+            int created = createdSearches.get();
+            if (created < MAX_SEARCHES && createdSearches.compareAndSet(created, created + 1)) {
+                s = new Search(n);
+            } else {
+                boolean interrupted = false;
+                while (s == null) {
+                    try {
+                        s = idleSearches.take();
+                    } catch (InterruptedException e) {
+                        interrupted = true; // l'appel RMI doit répondre : on redonne l'interruption après
+                    }
+                }
+                if (interrupted) Thread.currentThread().interrupt();
+            }
+        }
+        s.ensureCapacity(n);
+        s.begin();
+        return s;
+    }
+
+    // --- TAS BINAIRE ET MARQUAGE (réutilisés d'une recherche à l'autre) ---
+    private static final class Search {
+        int[] seen;   // == stamp : cost/parent valides pour cette recherche
+        int[] closed; // == stamp : case définitivement traitée
+        int[] cost;
+        int[] parent;
+        long[] heap = new long[1024]; // (priorité << 32) | case
+        int heapSize;
+        int stamp;
+
+        Search(int n) {
+            seen = new int[n];
+            closed = new int[n];
+            cost = new int[n];
+            parent = new int[n];
+        }
+
+        // Labyrinthe plus grand que tous les précédents : nouveaux tableaux (à zéro, donc aucun
+        // marquage valide), l'ancien jeu est rendu au GC
+        void ensureCapacity(int n) {
+            if (n <= seen.length) return;
+            seen = new int[n];
+            closed = new int[n];
+            cost = new int[n];
+            parent = new int[n];
+        }
+
+        void begin() {
+            heapSize = 0;
+            if (++stamp == 0) { // après 2^32 recherches : on remet vraiment à zéro
+                Arrays.fill(seen, 0);
+                Arrays.fill(closed, 0);
+                stamp = 1;
+            }
+        }
+
+        void visit(int c, int g, int from) {
+            seen[c] = stamp;
+            cost[c] = g;
+            parent[c] = from;
+        }
+
+        void push(int priority, int c) {
+            if (heapSize == heap.length) heap = Arrays.copyOf(heap, heapSize * 2);
+            long key = ((long) priority << 32) | c;
+            int i = heapSize++;
+            while (i > 0) {
+                int p = (i - 1) >>> 1;
+                if (heap[p] <= key) break;
+                heap[i] = heap[p];
+                i = p;
+            }
+            heap[i] = key;
+        }
+
+        int pop() {
+            long top = heap[0];
+            long last = heap[--heapSize];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= heapSize) break;
+                if (child + 1 < heapSize && heap[child + 1] < heap[child]) child++;
+                if (heap[child] >= last) break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            if (heapSize > 0) heap[i] = last;
+            return (int) top;
+        }
+
+        int[] path(int goal, int size) {
+            int[] path = new int[2 * (cost[goal] + 1)];
+            for (int c = goal, i = cost[goal]; c != UNREACHABLE; c = parent[c], i--) {
+                path[2 * i] = c / size;
+                path[2 * i + 1] = c % size;
+            }
+            return path;
+        }
+    }
+}
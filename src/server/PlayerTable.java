@@ -0,0 +1,152 @@
+package server;
+
+import java.net.InetSocketAddress;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Table des joueurs en "struct-of-arrays" : une case (slot) par joueur dans des tableaux primitifs.
+// Remplace les ConcurrentHashMap<Integer, ...> : plus de boxing ni de hachage sur le chemin des paquets.
+//
+// - Les identifiants sont des u16 (protocole), donc id -> slot est un simple tableau de 65536 cases.
+// - Les slots libérés sont réutilisés, le plus bas d'abord, et highWater redescend quand les
+//   derniers slots se vident : les boucles "slot < highWater" (fan-out, snapshots) suivent le
+//   nombre de joueurs présents, pas le maximum atteint depuis le démarrage.
+// - Ajout/suppression : synchronized (login RMI, départ traité par le tick). Lecture id -> slot : sans verrou ;
+//   le slot n'est publié dans slotOfId qu'une fois ses champs initialisés.
+// - x, y, lastSeq et la liste "dirty" ne sont modifiés que par le thread de tick.
+// - Chaque joueur reçoit au login un jeton de session aléatoire (LoginTicket) : un paquet UDP
+//   n'est accepté que si son jeton correspond, simple comparaison d'entiers sur le thread de réception.
+final class PlayerTable {
+
+    static final int NO_SLOT = -1;
+    static final int MAX_ID = 0xFFFF;
+    static final int NO_TOKEN = 0; // client texte (bot Python) : l'ancien format n'a pas de jeton
+
+    private final int[] ids;
+    private final int[] xs;
+    private final int[] ys;
+    private final int[] lastSeqs;
+    private final int[] tokens;
+    private final String[] names;
+    private final InetSocketAddress[] endpoints;
+
+    private final AtomicIntegerArray slotOfId = new AtomicIntegerArray(MAX_ID + 1);
+    private final BitSet freeSlots = new BitSet(); // slots libres sous highWater
+    private volatile int highWater; // nombre de slots déjà utilisés au moins une fois
+    private volatile int size;
+    private int nextId = 1;
+    private final SecureRandom tokenSource = new SecureRandom();
+
+    // Joueurs modifiés pendant le tick courant (thread de tick uniquement)
+    private final SlotSet dirty;
+
+    PlayerTable(int capacity) {
+        ids = new int[capacity];
+        xs = new int[capacity];
+        ys = new int[capacity];
+        lastSeqs = new int[capacity];
+        tokens = new int[capacity];
+        names = new String[capacity];
+        endpoints = new InetSocketAddress[capacity];
+        dirty = new SlotSet(capacity);
+        Arrays.fill(ids, -1);
+        for (int i = 0; i <= MAX_ID; i++) slotOfId.set(i, NO_SLOT);
+    }
+
+    // --- AJOUT / SUPPRESSION ---
+
+    // Attribue un nouvel identifiant libre ; renvoie -1 si la table est pleine
+    synchronized int add(String name, int x, int y) {
+        for (int tries = 0; tries < MAX_ID; tries++) {
+            int id = nextId;
+            nextId = nextId == MAX_ID ? 1 : nextId + 1;
+            if (id != 777 && slotOfId.get(id) == NO_SLOT) { // 777 reste réservé au bot Python
+                int token;
+                do token = tokenSource.nextInt(); while (token == NO_TOKEN);
+                return addWithId(id, name, x, y, token) == NO_SLOT ? -1 : id;
+            }
+        }
+        return -1;
+    }
+
+    // Ajoute un joueur avec un identifiant imposé (bot, avec NO_TOKEN) ; renvoie son slot
+    synchronized int addWithId(int id, String name, int x, int y, int token) {
+        int existing = slotOfId.get(id);
+        if (existing != NO_SLOT) return existing;
+        int slot;
+        int free = freeSlots.nextSetBit(0);
+        if (free >= 0) slot = free;
+        else if (highWater < ids.length) slot = highWater;
+        else return NO_SLOT;
+
+        freeSlots.clear(slot);
+        ids[slot] = id;
+        xs[slot] = x;
+        ys[slot] = y;
+        lastSeqs[slot] = 0;
+        tokens[slot] = token;
+        names[slot] = name;
+        endpoints[slot] = null;
+        if (slot == highWater) highWater = slot + 1;
+        size++;
+        slotOfId.set(id, slot); // publication : après l'initialisation des champs
+        return slot;
+    }
+
+    // Renvoie le slot libéré (NO_SLOT si l'identifiant était inconnu)
+    synchronized int remove(int id) {
+        int slot = slotOf(id);
+        if (slot == NO_SLOT) return NO_SLOT;
+        slotOfId.set(id, NO_SLOT);
+        ids[slot] = -1;
+        tokens[slot] = NO_TOKEN;
+        names[slot] = null;
+        endpoints[slot] = null;
+        freeSlots.set(slot);
+        int top = highWater;
+        while (top > 0 && freeSlots.get(top - 1)) freeSlots.clear(--top); // les slots du haut ne sont plus parcourus
+        highWater = top;
+        size--;
+        return slot;
+    }
+
+    // --- ACCÈS (sans verrou) ---
+
+    int slotOf(int id) {
+        return id < 0 || id > MAX_ID ? NO_SLOT : slotOfId.get(id);
+    }
+
+    int highWater() { return highWater; }
+    int size() { return size; }
+    boolean isActive(int slot) { return ids[slot] >= 0; }
+
+    int id(int slot) { return ids[slot]; }
+    int x(int slot) { return xs[slot]; }
+    int y(int slot) { return ys[slot]; }
+    int lastSeq(int slot) { return lastSeqs[slot]; }
+    int token(int slot) { return tokens[slot]; }
+    String name(int slot) { return names[slot]; }
+    InetSocketAddress endpoint(int slot) { return endpoints[slot]; }
+
+    void setPosition(int slot, int x, int y) {
+        xs[slot] = x;
+        ys[slot] = y;
+    }
+
+    void setLastSeq(int slot, int seq) { lastSeqs[slot] = seq; }
+
+    // Renvoie true si l'adresse du client a changé (ou est nouvelle)
+    boolean updateEndpoint(int slot, InetSocketAddress from) {
+        InetSocketAddress known = endpoints[slot];
+        if (known != null && known.equals(from)) return false;
+        endpoints[slot] = from;
+        return true;
+    }
+
+    // --- JOUEURS MODIFIÉS PENDANT LE TICK ---
+
+    SlotSet dirty() { return dirty; }
+    int capacity() { return ids.length; }
+}
@@ -0,0 +1,172 @@
+package server;
+
+import common.Constants;
+import common.Protocol;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Canal fiable et ordonné serveur -> client, par joueur, au-dessus du même socket UDP.
+// Réservé aux rares messages qui doivent arriver (entrée dans la salle, victoire, nouvelle manche) ;
+// les positions restent non fiables (la plus récente gagne, voir SnapshotWriter).
+//
+// - Chaque joueur a son propre numéro de séquence u16 ; un message reste dans la fenêtre
+//   (WINDOW messages au plus) et part de nouveau toutes les RESEND_TICKS tant qu'il n'est pas acquitté.
+// - Acquittement sélectif du client : [ack][ackBits] = plus grand seq reçu + les 16 précédents,
+//   un ACK perdu est donc rattrapé par le suivant.
+// - Le client remet les messages dans l'ordre et ignore les doublons (client.ReliableReceiver).
+// - Les clients texte (bot Python) ne savent pas acquitter : rien ne leur est envoyé.
+//
+// Thread de tick uniquement. L'état d'un joueur n'est alloué qu'à son premier message.
+final class ReliableChannel {
+
+    static final int WINDOW = 16; // = nombre de bits de ackBits
+    private static final int PACKET_SIZE = Protocol.RELIABLE_HEADER_SIZE + Protocol.MAX_RELIABLE_PAYLOAD;
+    private static final int RESEND_TICKS = Math.max(1, Constants.TICK_RATE / 5); // ~200 ms
+    private static final int MAX_TRIES = 25; // ~5 s sans réponse : le client est parti, on abandonne
+
+    // Messages en attente d'un joueur
+    private static final class Window {
+        int owner = -1; // id du joueur : les slots sont réutilisés après un départ
+        int nextSeq = 1;
+        int pending;
+        final int[] seqs = new int[WINDOW];
+        final int[] lengths = new int[WINDOW]; // 0 = case libre
+        final int[] lastSent = new int[WINDOW];
+        final int[] tries = new int[WINDOW];
+        final byte[] packets = new byte[WINDOW * PACKET_SIZE];
+    }
+
+    private final int roomId;
+    private final PlayerTable players;
+    private final UdpPipeline.Outbox outbox;
+    private final ServerMetrics metrics;
+    private final Window[] windows;
+    private final boolean[] enabled;
+    private final SlotSet waiting; // slots ayant au moins un message non acquitté
+    private final int[] stillWaiting;
+    private final ByteBuffer out = ByteBuffer.allocate(PACKET_SIZE);
+
+    ReliableChannel(int roomId, PlayerTable players, UdpPipeline.Outbox outbox, ServerMetrics metrics) {
+        this.roomId = roomId;
+        this.players = players;
+        this.outbox = outbox;
+        this.metrics = metrics;
+        this.windows = new Window[players.capacity()];
+        this.enabled = new boolean[players.capacity()];
+        this.waiting = new SlotSet(players.capacity());
+        this.stillWaiting = new int[players.capacity()];
+    }
+
+    // À l'arrivée d'une adresse (JOIN) : les clients binaires reçoivent les messages fiables
+    void enable(int slot, boolean on) {
+        enabled[slot] = on;
+        if (!on) release(slot);
+    }
+
+    boolean isEnabled(int slot) { return enabled[slot] && players.isActive(slot); }
+
+    // Met le message en fenêtre et l'envoie une première fois ; false si la fenêtre est pleine
+    boolean send(int slot, int tick, int kind, byte[] payload, int length) {
+        if (!isEnabled(slot)) return false;
+        Window w = windowOf(slot);
+        int free = -1;
+        for (int i = 0; i < WINDOW && free < 0; i++) if (w.lengths[i] == 0) free = i;
+        if (free < 0) { // 16 messages critiques sans réponse : le client ne suit plus
+            metrics.reliableDropped.increment();
+            return false;
+        }
+        int seq = w.nextSeq;
+        w.nextSeq = (seq + 1) & 0xFFFF;
+        out.clear();
+        Protocol.writeReliable(out, roomId, players.id(slot), seq, kind, payload, 0, length);
+        System.arraycopy(out.array(), 0, w.packets, free * PACKET_SIZE, out.position());
+        w.seqs[free] = seq;
+        w.lengths[free] = out.position();
+        w.tries[free] = 0;
+        w.pending++;
+        waiting.add(slot);
+        transmit(slot, w, free, tick);
+        return true;
+    }
+
+    // ACK du client : libère ack et chaque seq (ack - 1 - i) dont le bit i est présent
+    void onAck(int slot, int ack, int ackBits) {
+        Window w = windows[slot];
+        if (w == null || w.owner != players.id(slot) || w.pending == 0) return;
+        for (int i = 0; i < WINDOW; i++) {
+            if (w.lengths[i] == 0) continue;
+            int behind = (ack - w.seqs[i]) & 0xFFFF;
+            if (behind == 0 || (behind <= WINDOW && (ackBits & (1 << (behind - 1))) != 0)) {
+                w.lengths[i] = 0;
+                w.pending--;
+            }
+        }
+    }
+
+    // Une fois par tick : renvoi de ce qui n'est pas acquitté après RESEND_TICKS
+    void resendDue(int tick) {
+        int kept = 0;
+        for (int k = 0; k < waiting.size(); k++) {
+            int slot = waiting.get(k);
+            Window w = windows[slot];
+            if (w.owner != players.id(slot) || !isEnabled(slot)) {
+                release(slot);
+                continue;
+            }
+            for (int i = 0; i < WINDOW; i++) {
+                if (w.lengths[i] == 0 || tick - w.lastSent[i] < RESEND_TICKS) continue;
+                if (w.tries[i] >= MAX_TRIES) {
+                    w.lengths[i] = 0;
+                    w.pending--;
+                    metrics.reliableDropped.increment();
+                    continue;
+                }
+                transmit(slot, w, i, tick);
+                metrics.reliableResends.increment();
+            }
+            if (w.pending > 0) kept++;
+        }
+        if (kept < waiting.size()) compactWaiting();
+    }
+
+    private void transmit(int slot, Window w, int i, int tick) {
+        InetSocketAddress target = players.endpoint(slot);
+        w.lastSent[i] = tick;
+        w.tries[i]++;
+        if (target != null) outbox.send(w.packets, i * PACKET_SIZE, w.lengths[i], target);
+    }
+
+    private Window windowOf(int slot) {
+        Window w = windows[slot];
+        if (w == null) w = windows[slot] = new Window();
+        int id = players.id(slot);
+        if (w.owner != id) { // nouveau joueur dans ce slot : séquence et fenêtre repartent de zéro
+            w.owner = id;
+            w.nextSeq = 1;
+            w.pending = 0;
+            Arrays.fill(w.lengths, 0);
+        }
+        return w;
+    }
+
+    private void release(int slot) {
+        Window w = windows[slot];
+        if (w == null) return;
+        Arrays.fill(w.lengths, 0);
+        w.pending = 0;
+    }
+
+    // Retire de "waiting" les slots qui n'attendent plus rien
+    private void compactWaiting() {
+        int kept = 0;
+        for (int k = 0; k < waiting.size(); k++) {
+            int slot = waiting.get(k);
+            Window w = windows[slot];
+            if (w != null && w.pending > 0) stillWaiting[kept++] = slot;
+        }
+        waiting.clear();
+        for (int k = 0; k < kept; k++) waiting.add(stillWaiting[k]);
+    }
+}
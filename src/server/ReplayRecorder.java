@@ -0,0 +1,213 @@
+package server;
+
+import common.Constants;
+import common.ReplayLog;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Enregistrement d'une salle, une manche par fichier (format : common.ReplayLog).
+// Appelé par le thread de tick uniquement : les enregistrements sont écrits dans un bloc en mémoire,
+// les blocs pleins partent vers le ReplayWriter. Coût par tick : quelques put() dans un ByteBuffer.
+//
+// Pool vide (disque trop lent) : l'enregistrement est abandonné et compté, et une image complète
+// est forcée au tick suivant pour que la relecture retrouve un état juste.
+final class ReplayRecorder {
+
+    private static final int KEYFRAME_INTERVAL = Constants.TICK_RATE * 5; // 5 s au plus à rejouer après un seek
+
+    private final int roomId;
+    private final String roomName;
+    private final PlayerTable players;
+    private final ReplayWriter writer;
+    private final ServerMetrics metrics;
+    private final SpscRing<ReplayWriter.Chunk> pool = new SpscRing<>(ReplayWriter.CHUNKS_PER_ROOM);
+    private final ReplayWriter.Stream stream = new ReplayWriter.Stream();
+
+    private ReplayWriter.Chunk current;
+    private boolean recording;
+    private boolean keyframeNeeded;
+    private int lastKeyframeTick;
+
+    ReplayRecorder(int roomId, String roomName, PlayerTable players, ReplayWriter writer, ServerMetrics metrics) {
+        this.roomId = roomId;
+        this.roomName = roomName;
+        this.players = players;
+        this.writer = writer;
+        this.metrics = metrics;
+        for (int i = 0; i < ReplayWriter.CHUNKS_PER_ROOM; i++) {
+            pool.offer(new ReplayWriter.Chunk(ReplayWriter.CHUNK_SIZE, pool));
+        }
+    }
+
+    // Nouvelle manche : termine le fichier précédent et en ouvre un autre
+    void beginRound(Room.MazeData maze, int tick) {
+        end(tick);
+        if (current != null) { // bloc refusé par l'écrivain (file pleine) : repart vide
+            current.buf.clear();
+            current.newFile = null;
+            current.last = false;
+        }
+        // L'en-tête n'est jamais abandonné : sans lui le fichier serait illisible
+        int headerSize = ReplayLog.headerSize(maze.encoded);
+        ReplayWriter.Chunk chunk = current;
+        if (chunk == null && headerSize <= ReplayWriter.CHUNK_SIZE) chunk = pool.poll();
+        if (chunk == null || chunk.buf.capacity() < headerSize) {
+            chunk = new ReplayWriter.Chunk(Math.max(headerSize, ReplayWriter.CHUNK_SIZE), pool);
+        }
+        chunk.stream = stream;
+        chunk.newFile = writer.dir().resolve(String.format("%s-r%04d-%d.mzr", roomName, maze.round, System.currentTimeMillis()));
+        ReplayLog.writeHeader(chunk.buf, roomId, maze.round, Constants.TICK_RATE, maze.seed, tick, maze.encoded);
+        current = chunk;
+        recording = true;
+        for (int slot = 0, n = players.highWater(); slot < n; slot++) {
+            if (players.isActive(slot)) player(slot, tick);
+        }
+        keyframe(tick);
+    }
+
+    // Salle fermée : le fichier de la manche en cours est terminé
+    void close(int tick) {
+        end(tick);
+    }
+
+    // Entrée appliquée par le tick (avant son effet, visible dans le DELTA du même tick)
+    void input(int slot, int dir, int seq, int tick) {
+        ByteBuffer buf = reserve(5, tick);
+        if (buf == null) return;
+        int start = ReplayLog.beginRecord(buf, ReplayLog.TYPE_INPUT, tick);
+        buf.putShort((short) players.id(slot)).put((byte) dir).putShort((short) seq);
+        ReplayLog.endRecord(buf, start);
+    }
+
+    // Joueur présent : son nom, pour l'affichage de la relecture
+    void player(int slot, int tick) {
+        byte[] name = players.name(slot).getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(name.length, ReplayLog.MAX_NAME_BYTES);
+        while (length < name.length && length > 0 && (name[length] & 0xC0) == 0x80) length--;
+        ByteBuffer buf = reserve(2 + length, tick);
+        if (buf == null) return;
+        int start = ReplayLog.beginRecord(buf, ReplayLog.TYPE_PLAYER, tick);
+        buf.putShort((short) players.id(slot)).put(name, 0, length);
+        ReplayLog.endRecord(buf, start);
+    }
+
+    void win(int slot, int tick) {
+        playerEvent(ReplayLog.TYPE_WIN, slot, tick);
+    }
+
+    // Avant le retrait du joueur (son identifiant est encore dans la table)
+    void leave(int slot, int tick) {
+        playerEvent(ReplayLog.TYPE_LEAVE, slot, tick);
+    }
+
+    // Fin du tick, avant l'envoi des snapshots (qui vide "dirty") : positions modifiées, image
+    // complète de temps en temps, et le bloc courant part à l'écrivain (le fichier suit le jeu)
+    void endTick(int tick, SlotSet dirty) {
+        if (!recording) return;
+        if (keyframeNeeded || tick - lastKeyframeTick >= KEYFRAME_INTERVAL) {
+            keyframe(tick);
+        } else if (dirty.size() > 0) {
+            int count = 0;
+            for (int i = 0; i < dirty.size(); i++) {
+                if (players.isActive(dirty.get(i))) count++;
+            }
+            int done = 0, i = 0;
+            while (done < count) {
+                int part = Math.min(count - done, ReplayLog.MAX_POSITIONS);
+                ByteBuffer buf = reserve(2 + part * ReplayLog.POSITION_SIZE, tick);
+                if (buf == null) return;
+                int start = ReplayLog.beginRecord(buf, ReplayLog.TYPE_DELTA, tick);
+                buf.putShort((short) part);
+                for (int written = 0; written < part; i++) {
+                    int slot = dirty.get(i);
+                    if (!players.isActive(slot)) continue;
+                    putPosition(buf, slot);
+                    written++;
+                }
+                ReplayLog.endRecord(buf, start);
+                done += part;
+            }
+        }
+        flush();
+    }
+
+    // --- INTERNE ---
+
+    // État complet : le premier enregistrement est un KEYFRAME (remise à zéro), la suite des DELTA du même tick
+    private void keyframe(int tick) {
+        keyframeNeeded = false;
+        lastKeyframeTick = tick;
+        int type = ReplayLog.TYPE_KEYFRAME;
+        int slot = 0, n = players.highWater();
+        do {
+            ByteBuffer buf = reserve(2 + Math.min(n - slot, ReplayLog.MAX_POSITIONS) * ReplayLog.POSITION_SIZE, tick);
+            if (buf == null) return;
+            int start = ReplayLog.beginRecord(buf, type, tick);
+            int countAt = buf.position();
+            buf.putShort((short) 0);
+            int written = 0;
+            for (; slot < n && written < ReplayLog.MAX_POSITIONS; slot++) {
+                if (!players.isActive(slot)) continue;
+                putPosition(buf, slot);
+                written++;
+            }
+            buf.putShort(countAt, (short) written);
+            ReplayLog.endRecord(buf, start);
+            type = ReplayLog.TYPE_DELTA;
+        } while (slot < n);
+    }
+
+    private void playerEvent(int type, int slot, int tick) {
+        ByteBuffer buf = reserve(2, tick);
+        if (buf == null) return;
+        int start = ReplayLog.beginRecord(buf, type, tick);
+        buf.putShort((short) players.id(slot));
+        ReplayLog.endRecord(buf, start);
+    }
+
+    private void putPosition(ByteBuffer buf, int slot) {
+        buf.putShort((short) players.id(slot)).putShort((short) players.x(slot)).putShort((short) players.y(slot));
+    }
+
+    private void end(int tick) {
+        if (!recording) return;
+        ByteBuffer buf = reserve(0, tick);
+        if (buf != null) {
+            ReplayLog.endRecord(buf, ReplayLog.beginRecord(buf, ReplayLog.TYPE_END, tick));
+            current.last = true;
+        }
+        recording = false;
+        flush();
+        // END abandonné : le fichier sera fermé à l'ouverture du suivant (ou à l'arrêt de l'écrivain)
+    }
+
+    // Place pour un enregistrement de "length" octets de contenu ; null si le pool est vide
+    private ByteBuffer reserve(int length, int tick) {
+        if (!recording) return null;
+        int needed = ReplayLog.RECORD_HEADER_SIZE + length;
+        if (current != null && current.buf.remaining() < needed) flush();
+        if (current == null) {
+            current = pool.poll();
+            if (current == null) {
+                metrics.replayDropped.increment();
+                keyframeNeeded = true;
+                return null;
+            }
+            current.stream = stream;
+        }
+        return current.buf;
+    }
+
+    private void flush() {
+        if (current == null || current.buf.position() == 0 && current.newFile == null && !current.last) return;
+        if (writer.submit(current)) {
+            current = null;
+        } else if (current.newFile == null) { // file de l'écrivain pleine : le bloc est perdu, pas l'en-tête
+            metrics.replayDropped.increment();
+            keyframeNeeded = true;
+            current.buf.clear();
+            current.last = false;
+        }
+    }
+}
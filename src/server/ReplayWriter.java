@@ -0,0 +1,159 @@
+package server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+// Écriture des replays (voir common.ReplayLog) hors du tick :
+// - chaque salle remplit des blocs de CHUNK_SIZE octets (ReplayRecorder) et les dépose ici dans un
+//   anneau sans verrou (MpscRing, plusieurs salles) ; un seul thread "replay-writer" les recopie
+//   dans le fichier de la manche puis rend le bloc au pool de sa salle (SpscRing) ;
+// - fichier projeté en mémoire par régions de REGION_SIZE octets : une copie mémoire par bloc,
+//   pas d'appel système par enregistrement, le noyau écrit les pages sales en arrière-plan ;
+// - à la fermeture, le fichier est ramené à sa taille réelle (la dernière région dépasse).
+final class ReplayWriter implements AutoCloseable {
+
+    static final int CHUNK_SIZE = 16 * 1024;
+    static final int CHUNKS_PER_ROOM = 8;
+    private static final int REGION_SIZE = 8 * 1024 * 1024;
+    private static final int CAPACITY = 1024;
+
+    // Bloc d'octets en transit salle -> écrivain -> pool de la salle
+    static final class Chunk {
+        final ByteBuffer buf;
+        final SpscRing<Chunk> pool; // rendu ici après écriture
+        Stream stream;              // fichier de destination
+        Path newFile;               // non null : ouvre ce fichier avant d'écrire (début de manche)
+        boolean last;               // ferme le fichier après écriture (fin de manche)
+
+        Chunk(int capacity, SpscRing<Chunk> pool) {
+            this.buf = ByteBuffer.allocate(capacity);
+            this.pool = pool;
+        }
+    }
+
+    // Fichier d'une manche ; champs lus et écrits par le thread d'écriture uniquement
+    static final class Stream {
+        private Path path;
+        private FileChannel channel;
+        private MappedByteBuffer region;
+        private long regionStart;
+        private long written;
+    }
+
+    private final ServerMetrics metrics;
+    private final Path dir;
+    private final MpscRing<Chunk> queue = new MpscRing<>(CAPACITY);
+    private final List<Stream> open = new ArrayList<>(); // thread d'écriture uniquement
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    ReplayWriter(Path dir, ServerMetrics metrics) throws IOException {
+        this.dir = Files.createDirectories(dir);
+        this.metrics = metrics;
+        writer = new Thread(this::writeLoop, "replay-writer");
+        writer.setDaemon(true);
+        writer.start();
+        System.out.println("[REPLAY] Enregistrement des manches dans " + this.dir.toAbsolutePath());
+    }
+
+    Path dir() { return dir; }
+
+    // Thread de tick : false si la file est pleine (le bloc reste à l'appelant)
+    boolean submit(Chunk chunk) {
+        if (!running || !queue.offer(chunk)) return false;
+        LockSupport.unpark(writer);
+        return true;
+    }
+
+    int pending() { return queue.size(); }
+
+    // --- THREAD D'ÉCRITURE ---
+    private void writeLoop() {
+        while (running || queue.size() > 0) {
+            Chunk chunk = queue.poll();
+            if (chunk == null) {
+                if (running) LockSupport.park(this);
+                continue;
+            }
+            Stream stream = chunk.stream;
+            try {
+                if (chunk.newFile != null) openStream(stream, chunk.newFile);
+                if (stream.channel != null) {
+                    write(stream, chunk.buf);
+                    metrics.replayBytes.add(chunk.buf.limit());
+                }
+            } catch (IOException e) {
+                System.out.println("[REPLAY] Écriture impossible dans " + stream.path + " : " + e);
+                closeStream(stream); // la suite de la manche est ignorée (channel == null)
+            }
+            if (chunk.last) closeStream(stream);
+            chunk.newFile = null;
+            chunk.last = false;
+            chunk.buf.clear();
+            // Les blocs hors pool (en-tête d'un grand labyrinthe) sont laissés au GC
+            if (chunk.buf.capacity() == CHUNK_SIZE) chunk.pool.offer(chunk);
+        }
+        for (Stream stream : new ArrayList<>(open)) closeStream(stream); // manches interrompues
+    }
+
+    private void openStream(Stream stream, Path path) throws IOException {
+        closeStream(stream);
+        stream.path = path;
+        stream.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        stream.regionStart = 0;
+        stream.written = 0;
+        stream.region = stream.channel.map(FileChannel.MapMode.READ_WRITE, 0, REGION_SIZE);
+        open.add(stream);
+    }
+
+    private static void write(Stream stream, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            if (!stream.region.hasRemaining()) {
+                stream.regionStart += REGION_SIZE;
+                stream.region = stream.channel.map(FileChannel.MapMode.READ_WRITE, stream.regionStart, REGION_SIZE);
+            }
+            int n = Math.min(buf.remaining(), stream.region.remaining());
+            int limit = buf.limit();
+            buf.limit(buf.position() + n);
+            stream.region.put(buf);
+            buf.limit(limit);
+            stream.written += n;
+        }
+    }
+
+    private void closeStream(Stream stream) {
+        if (stream.channel == null) return;
+        open.remove(stream);
+        stream.region = null;
+        try {
+            stream.channel.truncate(stream.written);
+        } catch (IOException e) { // projection encore active (Windows) : fin de fichier à zéro, lue comme fin de données
+            System.out.println("[REPLAY] Taille de " + stream.path + " non ajustée : " + e.getMessage());
+        }
+        try {
+            stream.channel.close();
+        } catch (IOException ignored) {}
+        stream.channel = null;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
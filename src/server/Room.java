@@ -0,0 +1,562 @@
+package server;
+
+import common.*;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Une salle = une partie indépendante : son labyrinthe, ses joueurs et sa boucle de tick.
+// Le tick d'une salle tourne sur le pool de workers partagé (RoomManager) mais jamais
+// en parallèle avec lui-même : tout l'état de simulation est donc mono-thread.
+// Quand un joueur trouve la sortie, la salle relance une nouvelle manche au lieu de s'arrêter.
+// Vide depuis ROOM_IDLE_SECONDS, elle demande à son RoomManager d'être fermée et libère tout
+// depuis son propre tick (jamais en parallèle avec lui).
+class Room {
+
+    static final int CLOSED = -2; // join() : salle fermée entre-temps, en demander une nouvelle
+    private static final int IDLE_TICKS = Math.max(1, Constants.ROOM_IDLE_SECONDS) * Constants.TICK_RATE;
+
+    // Retraits pour inactivité par tick : les départs sont annoncés à tous les joueurs restants en
+    // messages fiables KIND_LEFT (MAX_RELIABLE_PAYLOAD / LEFT_ENTRY_SIZE = 29 identifiants chacun).
+    // Au plus deux messages pleins par tick : une vague de déconnexions est étalée sur plusieurs ticks
+    private static final int LEFT_MESSAGES_PER_TICK = 2;
+    private static final int MAX_DEPARTURES_PER_TICK =
+            LEFT_MESSAGES_PER_TICK * (Protocol.MAX_RELIABLE_PAYLOAD / Protocol.LEFT_ENTRY_SIZE);
+
+    // Données d'une manche, immuables : lues sans verrou par les appels RMI
+    static final class MazeData {
+        final int round;
+        final long seed;
+        final int[][] grid;
+        final MazeState state;
+        final EncodedMaze encoded;
+        final MazeInfo info;
+        final Navigation navigation; // distances vers la sortie (indices, findPath)
+
+        // Tout est déjà calculé par le pool : rien de coûteux ici (appelé par le tick)
+        MazeData(int round, MazePool.Maze maze) {
+            this.round = round;
+            this.seed = maze.seed;
+            this.grid = maze.grid;
+            this.state = maze.state;
+            this.encoded = maze.encoded;
+            this.info = maze.info;
+            this.navigation = maze.navigation;
+        }
+    }
+
+    private final int id;
+    private final String name;
+    private final int size;
+    private final MazePool mazes;
+    private final Long baseSeed; // -Dmaze.seed, null : graines tirées par le pool
+    private final ServerMetrics metrics;
+    private final UdpPipeline udp;
+    private volatile MazeData maze;
+
+    // Tous les joueurs (position, dernière entrée acquittée, adresse UDP, nom) dans une seule table
+    private final PlayerTable players = new PlayerTable(Constants.MAX_PLAYERS);
+    private final InputLimiter limiter = new InputLimiter(Constants.MAX_PLAYERS);
+    private final UdpPipeline.Outbox outbox;
+    private volatile boolean isGameFinished = false;
+    private int restartAtTick;
+    // Labyrinthe de la manche suivante, demandé au pool dès la victoire : la salle reste en pause
+    // (isGameFinished) tant qu'il n'est pas prêt, le tick ne génère ni n'attend jamais
+    private CompletableFuture<MazePool.Maze> nextMaze;
+
+    // Boucle de tick : les entrées UDP sont mises en file puis appliquées à fréquence fixe
+    private final InputQueue inputs = new InputQueue(16384);
+    private final SnapshotWriter snapshot = new SnapshotWriter();
+    private ScheduledFuture<?> tickTask;
+    private int tick = 0;
+
+    // Fermeture des salles vides (null : jamais, benchmarks)
+    private RoomManager owner;
+    private int emptySinceTick = -1;
+    private boolean closed; // sous le verrou de la salle, comme join()
+
+    // Area of interest : chaque client ne reçoit que les joueurs proches de lui,
+    // les autres sont envoyés à tout le monde une fois tous les AOI_GLOBAL_INTERVAL ticks
+    private final SpatialGrid grid;
+    private final SlotSet movedSinceGlobal = new SlotSet(Constants.MAX_PLAYERS);
+    private final int[] nearby = new int[Constants.MAX_PLAYERS];
+
+    // Sessions : départ explicite (leave) ou délai d'inactivité, la place est alors libérée
+    private final SessionTimers sessions =
+            new SessionTimers(Constants.MAX_PLAYERS, Constants.IDLE_TIMEOUT_SECONDS * Constants.TICK_RATE);
+    private final int[] expired = new int[MAX_DEPARTURES_PER_TICK];
+    // Départs du tick, annoncés ensemble aux autres joueurs (KIND_LEFT = liste d'identifiants)
+    private final int[] departed = new int[Constants.MAX_PLAYERS];
+    private int departedCount;
+
+    // Slots arrivés pendant ce tick
+    private final int[] joining = new int[Constants.MAX_PLAYERS];
+    private int joiningCount;
+
+    // Réponse aux demandes d'indice (binaire ou texte pour le bot), réutilisée
+    private final ByteBuffer hintOut = ByteBuffer.allocate(64);
+
+    // Messages qui doivent arriver (entrée, victoire, nouvelle manche) : canal fiable par joueur
+    private final ReliableChannel reliable;
+    private final ByteBuffer reliablePayload = ByteBuffer.allocate(Protocol.MAX_RELIABLE_PAYLOAD);
+
+    // Enregistrement de chaque manche pour la relecture (null : -Dmaze.replayDir absent)
+    private final ReplayRecorder recorder;
+
+    // Spectateurs : un flux par tick vers le groupe multicast et les relais abonnés
+    private final SpectatorFeed spectators;
+
+    // Sans pool partagé (benchmarks) : chaque labyrinthe est préparé sur place
+    Room(int id, String name, int size, UdpPipeline udp, ServerMetrics metrics, ReplayWriter replays) {
+        this(id, name, size, udp, metrics, replays, new MazePool(null, 0, metrics));
+    }
+
+    Room(int id, String name, int size, UdpPipeline udp, ServerMetrics metrics, ReplayWriter replays, MazePool mazes) {
+        this.id = id;
+        this.name = name;
+        this.size = size;
+        this.metrics = metrics;
+        this.udp = udp;
+        this.mazes = mazes;
+        this.baseSeed = Constants.MAZE_SEED;
+        this.grid = new SpatialGrid(size, Math.max(4, Constants.AOI_RADIUS), players.capacity());
+        this.outbox = udp.openOutbox(players, Constants.ROOM_SEND_BUFFERS);
+        this.reliable = new ReliableChannel(id, players, outbox, metrics);
+        this.spectators = new SpectatorFeed(id, outbox, SpectatorFeed.GROUP);
+        this.maze = install(0, requestMaze(0).join()); // thread RMI (login) : attendre ici est permis
+        this.recorder = replays != null ? new ReplayRecorder(id, name, players, replays, metrics) : null;
+        if (recorder != null) recorder.beginRound(maze, tick);
+    }
+
+    void start(ScheduledExecutorService workers) {
+        start(workers, null);
+    }
+
+    void start(ScheduledExecutorService workers, RoomManager owner) {
+        this.owner = owner;
+        long period = 1_000_000_000L / Constants.TICK_RATE;
+        tickTask = workers.scheduleAtFixedRate(() -> {
+            try {
+                tick();
+            } catch (Exception e) { // Une exception ne doit pas arrêter la boucle
+                metrics.tickErrors.increment();
+                e.printStackTrace();
+            }
+        }, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    void stop() {
+        if (tickTask != null) tickTask.cancel(false);
+    }
+
+    // --- GÉNÉRATION (algorithme au choix, graine reproductible, voir Mazes) ---
+    // Labyrinthe préparé par le pool, hors du tick (déjà prêt dans le cas normal)
+    private CompletableFuture<MazePool.Maze> requestMaze(int round) {
+        if (baseSeed == null) return mazes.take(size);
+        // Une graine dérivée par manche : avec -Dmaze.seed, toute la suite de manches est reproductible
+        CompletableFuture<MazePool.Maze> maze = mazes.take(size, MazePool.roundSeed(baseSeed, round));
+        mazes.prefetch(size, MazePool.roundSeed(baseSeed, round + 1)); // préparée pendant la manche
+        return maze;
+    }
+
+    private MazeData install(int round, MazePool.Maze maze) {
+        String replay = baseSeed != null ? "relancer avec -Dmaze.seed=" + baseSeed + " pour les mêmes cartes"
+                : "-Dmaze.seed=" + maze.seed + " pour commencer par cette carte";
+        System.out.println("[SALLE " + name + "] Manche " + round + " : " + maze.generator + " " + size + "x" + size
+                + ", graine " + maze.seed + " (" + replay + ")");
+        return new MazeData(round, maze);
+    }
+
+    // --- JOUEURS ---
+
+    // Appelé par RMI (login) ; renvoie -1 si la salle est pleine, CLOSED si elle vient d'être fermée.
+    // Le délai d'inactivité court dès le login : un client qui n'envoie jamais rien est retiré aussi.
+    synchronized int join(String username) {
+        if (closed) return CLOSED;
+        int id = players.add(username, 1, 1);
+        if (id >= 0) inputs.offer(id, InputQueue.HEARTBEAT, 0);
+        return id;
+    }
+
+    // Appelé par RoomManager.reclaim() (depuis notre tick) : plus aucun join() n'aboutira ensuite
+    synchronized boolean closeIfEmpty() {
+        if (players.size() > 0) return false;
+        closed = true;
+        return true;
+    }
+
+    // Appelé par RMI (leave) : le retrait lui-même est fait par le tick
+    boolean leave(int playerId, int token) {
+        int slot = players.slotOf(playerId);
+        if (slot == PlayerTable.NO_SLOT || players.token(slot) != token) return false;
+        return inputs.offer(playerId, InputQueue.LEAVE, 0);
+    }
+
+    // Jeton à remettre au client avec son identifiant (LoginTicket)
+    int sessionToken(int playerId) {
+        int slot = players.slotOf(playerId);
+        return slot == PlayerTable.NO_SLOT ? PlayerTable.NO_TOKEN : players.token(slot);
+    }
+
+    // Nom affiché d'un joueur présent, null sinon
+    String playerName(int playerId) {
+        int slot = players.slotOf(playerId);
+        return slot == PlayerTable.NO_SLOT ? null : players.name(slot);
+    }
+
+    // Thread UDP : mise à jour de l'adresse et mise en file, la simulation se fait dans tick()
+    void onMove(Protocol.Move move, InetSocketAddress from) {
+        if (isGameFinished) {
+            metrics.rejectedMoves.increment();
+            return; // Manche terminée : le paquet est ignoré en attendant la suivante.
+        }
+        if (admit(move, from) == PlayerTable.NO_SLOT) return;
+        inputs.offer(move.playerId, move.dir, move.seq);
+    }
+
+    // Thread UDP : acquittement du canal fiable, traité par le tick comme une entrée
+    void onAck(Protocol.Move ack, InetSocketAddress from) {
+        if (admit(ack, from) == PlayerTable.NO_SLOT) return;
+        inputs.offer(ack.playerId, InputQueue.ACK, ack.seq, ack.ackBits);
+    }
+
+    // Thread UDP : client immobile qui signale qu'il est toujours là
+    void onHeartbeat(Protocol.Move heartbeat, InetSocketAddress from) {
+        if (admit(heartbeat, from) == PlayerTable.NO_SLOT) return;
+        inputs.offer(heartbeat.playerId, InputQueue.HEARTBEAT, 0);
+    }
+
+    // Thread UDP : demande d'indice, la réponse part du tick (position à jour)
+    void onHintRequest(Protocol.Move request, InetSocketAddress from) {
+        if (admit(request, from) == PlayerTable.NO_SLOT) return;
+        inputs.offer(request.playerId, request.legacy ? InputQueue.HINT_TEXT : InputQueue.HINT, 0);
+    }
+
+    // Thread UDP : abonnement (ou renouvellement) d'un relais ou d'un spectateur au flux de la salle
+    void onSpectate(InetSocketAddress from) {
+        if (!spectators.subscribe(from)) metrics.spectatorsRefused.increment();
+    }
+
+    // Contrôle d'admission, dans l'ordre : joueur connu, jeton de session, débit.
+    // Renvoie le slot de l'expéditeur (NO_SLOT si le paquet est refusé) et retient son adresse.
+    private int admit(Protocol.Move packet, InetSocketAddress from) {
+        int playerId = packet.playerId;
+        int slot = players.slotOf(playerId);
+
+        // --- AJOUTEZ CE BLOC "AUTO-SPAWN" POUR LE BOT ---
+        // Si c'est le Bot (ID 777) et qu'il n'existe pas encore, on le crée !
+        if (slot == PlayerTable.NO_SLOT && playerId == 777 && packet.legacy) {
+            System.out.println("⚠️ DETECTION DU BOT PYTHON ! Ajout au jeu...");
+            slot = players.addWithId(playerId, "Bot Python", 1, 1, PlayerTable.NO_TOKEN); // Spawn en (1,1)
+        }
+
+        // ------------------------------------------------
+
+        if (slot == PlayerTable.NO_SLOT) { // Sécurité habituelle
+            metrics.unknownSenders.increment();
+            return slot;
+        }
+        // Jeton faux : quelqu'un d'autre se sert de cet identifiant, son adresse n'est pas retenue
+        if (packet.token != players.token(slot)) {
+            metrics.badTokens.increment();
+            return PlayerTable.NO_SLOT;
+        }
+        if (!limiter.tryAcquire(slot, System.nanoTime())) {
+            metrics.rateLimited.increment();
+            return PlayerTable.NO_SLOT;
+        }
+        if (players.updateEndpoint(slot, from)) {
+            // Nouvelle adresse : il doit recevoir tout le monde une fois (seq = 1 : client texte, sans canal fiable)
+            inputs.offer(playerId, InputQueue.JOIN, packet.legacy ? 1 : 0);
+        }
+        return slot;
+    }
+
+    // --- BOUCLE DE TICK ---
+    void tick() { // package : appelé aussi directement par les benchmarks (bench/)
+        long start = System.nanoTime();
+        tick++;
+        boolean fullSnapshotNeeded = false;
+        long cmd;
+        while ((cmd = inputs.poll()) != InputQueue.EMPTY) {
+            int slot = players.slotOf(InputQueue.playerId(cmd));
+            if (slot == PlayerTable.NO_SLOT) continue;
+            int dir = InputQueue.dir(cmd);
+            if (dir == InputQueue.LEAVE) {
+                removePlayer(slot, false);
+                continue;
+            }
+            sessions.touch(slot, tick);
+            if (dir == InputQueue.HEARTBEAT) {
+                continue;
+            } else if (dir == InputQueue.ACK) {
+                reliable.onAck(slot, InputQueue.seq(cmd), InputQueue.extra(cmd));
+            } else if (dir == InputQueue.HINT || dir == InputQueue.HINT_TEXT) {
+                sendHint(slot, dir == InputQueue.HINT_TEXT);
+            } else if (dir == InputQueue.JOIN) {
+                if (joiningCount < joining.length) joining[joiningCount++] = slot;
+                reliable.enable(slot, InputQueue.seq(cmd) == 0);
+                reliablePayload.clear();
+                reliablePayload.putShort((short) maze.round);
+                reliable.send(slot, tick, Protocol.KIND_JOINED, reliablePayload.array(), reliablePayload.position());
+                grid.update(slot, players.x(slot), players.y(slot));
+                players.dirty().add(slot); // Les autres le voient apparaître
+                if (recorder != null) recorder.player(slot, tick);
+                fullSnapshotNeeded = true;
+            } else if (!isGameFinished) {
+                if (recorder != null) recorder.input(slot, dir, InputQueue.seq(cmd), tick);
+                applyMove(slot, dir, InputQueue.seq(cmd));
+            }
+        }
+        int idle = sessions.expire(tick, expired, MAX_DEPARTURES_PER_TICK);
+        for (int i = 0; i < idle; i++) removePlayer(expired[i], true);
+        if (idle > 0) {
+            System.out.println("[SALLE " + name + "] " + idle + " joueur(s) retiré(s) après "
+                    + Constants.IDLE_TIMEOUT_SECONDS + " s d'inactivité");
+        }
+        if (departedCount > 0) announceDepartures();
+        if (isGameFinished && tick >= restartAtTick && nextMaze.isDone()) {
+            newRound();
+        }
+        reliable.resendDue(tick);
+        if (recorder != null) recorder.endTick(tick, players.dirty());
+        long fanoutStart = System.nanoTime();
+        spectators.publish(tick, maze.round, players, players.dirty(), departed, departedCount);
+        departedCount = 0;
+        sendSnapshots(fullSnapshotNeeded);
+        metrics.fanoutMicros.recordSince(fanoutStart);
+        metrics.tickMicros.recordSince(start);
+        if (owner != null) checkIdle();
+    }
+
+    // Salle vide assez longtemps : retirée du RoomManager, puis tout est libéré ici même
+    private void checkIdle() {
+        if (players.size() > 0) {
+            emptySinceTick = -1;
+        } else if (emptySinceTick < 0) {
+            emptySinceTick = tick;
+        } else if (tick - emptySinceTick >= IDLE_TICKS && owner.reclaim(this)) {
+            tickTask.cancel(false); // ce tick est le dernier
+            if (recorder != null) recorder.close(tick);
+            udp.closeOutbox(outbox);
+        }
+    }
+
+    private void applyMove(int slot, int dir, int seq) {
+        int lastSeq = players.lastSeq(slot);
+        // MOVE dupliqué ou doublé par un plus récent sur le réseau : déjà dépassé, on l'ignore
+        // (sinon l'acquittement reculerait). seq 0 = client texte, qui ne numérote pas ses coups.
+        if (seq != 0 && !Protocol.isNewer(seq, lastSeq)) {
+            metrics.rejectedMoves.increment();
+            return;
+        }
+        if (seq != lastSeq) {
+            // Le client doit recevoir son acquittement même si le coup est refusé (mur) :
+            // sinon sa prédiction garde l'entrée en attente jusqu'au prochain déplacement réel
+            players.setLastSeq(slot, seq);
+            players.dirty().add(slot);
+        }
+        if (dir == Protocol.DIR_NONE) return;
+
+        int[][] cells = maze.grid;
+        int newX = players.x(slot) + Protocol.dx(dir);
+        int newY = players.y(slot) + Protocol.dy(dir);
+
+        // Vérification des collisions stricte
+        if (newX < 0 || newX >= size || newY < 0 || newY >= size || cells[newX][newY] == 1) {
+            metrics.rejectedMoves.increment();
+            return;
+        }
+        // Mise à jour position
+        players.setPosition(slot, newX, newY);
+        players.dirty().add(slot);
+        grid.update(slot, newX, newY);
+
+        // --- 2. VICTOIRE : ON TERMINE LA MANCHE ---
+        if (cells[newX][newY] == 9) { // 9 = Sortie
+            isGameFinished = true; // <--- ON BLOQUE LA SALLE JUSQU'À LA MANCHE SUIVANTE
+            restartAtTick = tick + Constants.ROUND_RESTART_SECONDS * Constants.TICK_RATE;
+            nextMaze = requestMaze(maze.round + 1); // préparé pendant la pause
+            System.out.println("[SALLE " + name + "] Victoire de " + players.name(slot) + " (manche " + maze.round + ")");
+            if (recorder != null) recorder.win(slot, tick);
+            reliablePayload.clear();
+            reliablePayload.putShort((short) maze.round);
+            reliablePayload.put((byte) Constants.ROUND_RESTART_SECONDS);
+            putName(reliablePayload, players.name(slot));
+            sendReliableToAll(Protocol.KIND_WIN);
+        }
+        // -------------------------------------
+    }
+
+    // Départ (leave ou inactivité) : le slot, son identifiant et son adresse sont libérés (plus de
+    // fan-out vers une adresse morte), les autres joueurs sont prévenus en fin de tick
+    private void removePlayer(int slot, boolean idle) {
+        int playerId = players.id(slot);
+        String playerName = players.name(slot); // lu avant le retrait
+        if (recorder != null) recorder.leave(slot, tick);
+        sessions.cancel(slot);
+        grid.remove(slot);
+        reliable.enable(slot, false);
+        limiter.reset(slot);
+        players.remove(playerId);
+        if (idle) {
+            metrics.idleTimeouts.increment();
+        } else {
+            metrics.leaves.increment();
+            System.out.println("[SALLE " + name + "] " + playerName + " (ID " + playerId + ") a quitté la salle");
+        }
+        departed[departedCount++] = playerId;
+    }
+
+    private void announceDepartures() {
+        for (int i = 0; i < departedCount; ) {
+            reliablePayload.clear();
+            while (i < departedCount && reliablePayload.remaining() >= Protocol.LEFT_ENTRY_SIZE) reliablePayload.putShort((short) departed[i++]);
+            sendReliableToAll(Protocol.KIND_LEFT);
+        }
+    }
+
+    // Direction vers la sortie depuis la position actuelle du joueur (champ de distances, O(1))
+    private void sendHint(int slot, boolean text) {
+        InetSocketAddress target = players.endpoint(slot);
+        if (target == null) return;
+        MazeData current = maze;
+        int x = players.x(slot), y = players.y(slot);
+        int dir = current.navigation.nextDirToExit(x, y);
+        int distance = current.navigation.distanceToExit(x, y);
+        hintOut.clear();
+        if (text) Protocol.writeLegacyHint(hintOut, dir, distance);
+        else Protocol.writeHint(hintOut, id, current.round, x, y, dir, distance);
+        outbox.send(hintOut.array(), 0, hintOut.position(), target);
+    }
+
+    // Nouvelle carte, tout le monde revient au départ. Le numéro de manche change dans
+    // l'en-tête des snapshots, ce qui indique aux clients de recharger le labyrinthe.
+    private void newRound() {
+        MazePool.Maze next;
+        try {
+            next = nextMaze.join(); // déjà terminé (isDone), ne bloque pas
+        } catch (RuntimeException e) { // préparation échouée : on redemande, la pause continue
+            System.out.println("[SALLE " + name + "] Labyrinthe de la manche " + (maze.round + 1) + " indisponible : " + e.getMessage());
+            nextMaze = requestMaze(maze.round + 1);
+            return;
+        }
+        nextMaze = null;
+        maze = install(maze.round + 1, next);
+        for (int slot = 0, n = players.highWater(); slot < n; slot++) {
+            if (!players.isActive(slot)) continue;
+            players.setPosition(slot, 1, 1);
+            grid.update(slot, 1, 1);
+            players.dirty().add(slot);
+        }
+        isGameFinished = false;
+        if (recorder != null) recorder.beginRound(maze, tick);
+        reliablePayload.clear();
+        reliablePayload.putShort((short) maze.round);
+        sendReliableToAll(Protocol.KIND_ROUND);
+    }
+
+    // Victoire, nouvelle manche et départs passent par le canal fiable de chaque joueur de la salle
+    private void sendReliableToAll(int kind) {
+        for (int slot = 0, n = players.highWater(); slot < n; slot++) {
+            if (players.isActive(slot)) {
+                reliable.send(slot, tick, kind, reliablePayload.array(), reliablePayload.position());
+            }
+        }
+    }
+
+    // Nom en UTF-8, tronqué à la place restante sans couper un caractère
+    private static void putName(ByteBuffer buf, String playerName) {
+        byte[] bytes = playerName.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, buf.remaining());
+        while (length < bytes.length && length > 0 && (bytes[length] & 0xC0) == 0x80) length--;
+        buf.put(bytes, 0, length);
+    }
+
+    // Un seul snapshot agrégé par client et par tick (découpé seulement s'il dépasse la MTU) :
+    // le débit par client dépend de TICK_RATE, plus du nombre de coups joués.
+    // Le fan-out lui-même est fait par le thread d'envoi du UdpPipeline.
+
+    private void sendSnapshots(boolean fullSnapshotNeeded) {
+        // 1. Nouveaux clients : état complet de tous les joueurs
+        if (fullSnapshotNeeded) {
+            beginSnapshot();
+            for (int slot = 0, n = players.highWater(); slot < n; slot++) {
+                if (players.isActive(slot)) addToSnapshot(slot);
+            }
+            int packets = snapshot.finish();
+            for (int j = 0; j < joiningCount; j++) {
+                InetSocketAddress target = players.endpoint(joining[j]);
+                for (int i = 0; i < packets && target != null; i++) {
+                    outbox.send(snapshot.data(), snapshot.offset(i), snapshot.length(i), target);
+                }
+            }
+            joiningCount = 0;
+        }
+
+        // 2. Tous les clients : uniquement les joueurs qui ont bougé pendant ce tick
+        SlotSet dirty = players.dirty();
+        if (Constants.AOI_RADIUS <= 0) {
+            broadcastSlots(dirty);
+        } else {
+            for (int i = 0; i < dirty.size(); i++) movedSinceGlobal.add(dirty.get(i));
+            if (dirty.size() > 0) sendNearbyUpdates(dirty);
+            if (tick % Constants.AOI_GLOBAL_INTERVAL == 0) {
+                broadcastSlots(movedSinceGlobal); // Mise à jour globale à basse fréquence
+                movedSinceGlobal.clear();
+            }
+        }
+        dirty.clear();
+    }
+
+    private void broadcastSlots(SlotSet slots) {
+        if (slots.size() == 0) return;
+        beginSnapshot();
+        for (int i = 0; i < slots.size(); i++) {
+            int slot = slots.get(i);
+            if (players.isActive(slot)) addToSnapshot(slot);
+        }
+        int packets = snapshot.finish();
+        for (int i = 0; i < packets; i++) {
+            outbox.broadcast(snapshot.data(), snapshot.offset(i), snapshot.length(i));
+        }
+    }
+
+    // Un snapshot par client, limité aux joueurs modifiés dans son rayon AOI_RADIUS
+    private void sendNearbyUpdates(SlotSet dirty) {
+        for (int client = 0, n = players.highWater(); client < n; client++) {
+            InetSocketAddress target = players.endpoint(client);
+            if (target == null || !players.isActive(client)) continue;
+
+            int found = grid.query(players.x(client), players.y(client), Constants.AOI_RADIUS, players, nearby);
+            beginSnapshot();
+            for (int i = 0; i < found; i++) {
+                if (dirty.contains(nearby[i])) addToSnapshot(nearby[i]);
+            }
+            int packets = snapshot.finish();
+            for (int i = 0; i < packets; i++) {
+                outbox.send(snapshot.data(), snapshot.offset(i), snapshot.length(i), target);
+            }
+        }
+    }
+
+    private void beginSnapshot() {
+        snapshot.begin(id, tick, maze.round);
+    }
+
+    private void addToSnapshot(int slot) {
+        snapshot.add(players.id(slot), players.x(slot), players.y(slot), players.lastSeq(slot));
+    }
+
+    // --- ACCESSEURS ---
+    int id() { return id; }
+    String name() { return name; }
+    int size() { return size; }
+    int playerCount() { return players.size(); }
+    MazeData maze() { return maze; }
+    InputQueue inputs() { return inputs; }
+}
@@ -0,0 +1,106 @@
+package server;
+
+import common.Constants;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Gestion des salles : création à la demande (login), recherche par nom (RMI) ou par identifiant
+// (en-tête UDP, simple lecture de tableau). Tous les ticks tournent sur un pool borné de workers.
+// Derrière un lobby, les identifiants commencent à idBase (numéro du nœud * MAX_ROOMS) : ils sont
+// uniques sur tous les nœuds, le lobby retrouve le nœud d'une salle par simple division.
+// Une salle vide depuis ROOM_IDLE_SECONDS est fermée (sauf DEFAULT_ROOM) et son identifiant
+// local réattribué : créer des salles à la chaîne n'épuise plus MAX_ROOMS. Elle disparaît aussi
+// du rapport de charge suivant, et le lobby oublie sa route.
+class RoomManager {
+
+    static final String DEFAULT_ROOM = "main";
+
+    private final AtomicReferenceArray<Room> byId = new AtomicReferenceArray<>(Constants.MAX_ROOMS);
+    private final ConcurrentHashMap<String, Room> byName = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService workers = Executors.newScheduledThreadPool(Constants.ROOM_WORKERS);
+    private final UdpPipeline udp;
+    private final ServerMetrics metrics;
+    private final ReplayWriter replays; // null : pas d'enregistrement
+    private final MazePool mazes;
+    private final int defaultSize;
+    private final int idBase;
+    private int nextRoomId = 0;
+    private final int[] freeIds = new int[Constants.MAX_ROOMS]; // identifiants locaux des salles fermées
+    private int freeCount;
+
+    RoomManager(UdpPipeline udp, int defaultSize, ServerMetrics metrics, ReplayWriter replays, MazePool mazes) {
+        this(udp, defaultSize, metrics, replays, mazes, 0);
+        getOrCreate(DEFAULT_ROOM); // salle 0 : celle des anciens clients et du bot Python
+    }
+
+    // Nœud de jeu : salles créées uniquement à la demande du lobby
+    RoomManager(UdpPipeline udp, int defaultSize, ServerMetrics metrics, ReplayWriter replays, MazePool mazes, int idBase) {
+        this.udp = udp;
+        this.mazes = mazes;
+        this.defaultSize = defaultSize;
+        this.metrics = metrics;
+        this.replays = replays;
+        this.idBase = idBase;
+    }
+
+    // Renvoie la salle existante ou en crée une nouvelle ; null si la limite de salles est atteinte
+    synchronized Room getOrCreate(String name) {
+        Room room = byName.get(name);
+        if (room != null) return room;
+        int local;
+        if (freeCount > 0) local = freeIds[--freeCount];
+        else if (nextRoomId < Constants.MAX_ROOMS) local = nextRoomId++;
+        else return null;
+
+        room = new Room(idBase + local, name, defaultSize, udp, metrics, replays, mazes);
+        byId.set(local, room); // publiée après construction complète
+        byName.put(name, room);
+        room.start(workers, this);
+        System.out.println("[SALLES] Salle \"" + name + "\" créée (ID " + room.id() + ")");
+        return room;
+    }
+
+    // Appelé par le tick d'une salle vide depuis ROOM_IDLE_SECONDS ; false si un joueur vient
+    // d'arriver (la salle continue) ou si c'est la salle par défaut
+    synchronized boolean reclaim(Room room) {
+        if (room.name().equals(DEFAULT_ROOM) || !room.closeIfEmpty()) return false;
+        int local = room.id() - idBase;
+        byName.remove(room.name(), room);
+        byId.compareAndSet(local, room, null);
+        freeIds[freeCount++] = local;
+        System.out.println("[SALLES] Salle \"" + room.name() + "\" fermée après " + Constants.ROOM_IDLE_SECONDS + " s sans joueur (ID " + room.id() + ")");
+        return true;
+    }
+
+    Room get(int roomId) {
+        int local = roomId - idBase;
+        return local >= 0 && local < Constants.MAX_ROOMS ? byId.get(local) : null;
+    }
+
+    Room get(String name) {
+        return name == null ? null : byName.get(name);
+    }
+
+    // null seulement si la limite de salles est atteinte (nœud dont "main" n'a pas encore été demandée)
+    Room defaultRoom() {
+        Room room = byName.get(DEFAULT_ROOM);
+        return room != null ? room : getOrCreate(DEFAULT_ROOM);
+    }
+
+    int playerCount() {
+        int count = 0;
+        for (Room room : byName.values()) count += room.playerCount();
+        return count;
+    }
+
+    Collection<Room> rooms() { return byName.values(); }
+
+    ScheduledExecutorService workers() { return workers; }
+
+    static boolean isValidName(String name) {
+        return name != null && name.matches("[\\w-]{1,32}");
+    }
+}
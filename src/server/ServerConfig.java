@@ -0,0 +1,102 @@
+package server;
+
+import common.Constants;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+// Configuration d'un processus serveur : arguments --clé=valeur, éventuellement complétés par
+// un fichier (--config=noeud1.properties, mêmes clés ; les arguments l'emportent).
+//   role       standalone (défaut : un seul processus), lobby ou node
+//   size       taille des labyrinthes (impaire)
+//   rmiPort    registre RMI du processus            udpPort      port de jeu (standalone, node)
+//   host       adresse du nœud donnée aux clients (défaut : celle du lobby)
+//   lobby      hôte:port du lobby (node)            nodeIndex    numéro de nœud imposé (node)
+//   capacity   joueurs acceptés par le nœud (node)  metricsPort  métriques HTTP, 0 = désactivé
+// Exemple sur une seule machine :
+//   java server.MazeServer --role=lobby
+//   java server.MazeServer --role=node --rmiPort=1100 --udpPort=9877 --metricsPort=9101
+//   java server.MazeServer --role=node --rmiPort=1101 --udpPort=9878 --metricsPort=9102
+final class ServerConfig {
+
+    static final String STANDALONE = "standalone";
+    static final String LOBBY = "lobby";
+    static final String NODE = "node";
+
+    private static final List<String> KEYS = Arrays.asList(
+            "role", "size", "rmiPort", "udpPort", "host", "lobby", "nodeIndex", "capacity", "metricsPort");
+
+    final String role;
+    final int size;
+    final int rmiPort;
+    final int udpPort;
+    final String host; // null : les clients gardent l'adresse du lobby
+    final String lobbyHost;
+    final int lobbyPort;
+    final int nodeIndex; // -1 : attribué par le lobby
+    final int capacity;
+    final int metricsPort;
+
+    private ServerConfig(Properties p) {
+        role = p.getProperty("role", STANDALONE);
+        if (!role.equals(STANDALONE) && !role.equals(LOBBY) && !role.equals(NODE)) {
+            throw new IllegalArgumentException("role inconnu : " + role + " (standalone, lobby, node)");
+        }
+        size = intOf(p, "size", Constants.MAZE_SIZE);
+        if (size % 2 == 0) throw new IllegalArgumentException("size doit être impair : " + size);
+        rmiPort = intOf(p, "rmiPort", Constants.RMI_PORT);
+        udpPort = intOf(p, "udpPort", Constants.UDP_PORT);
+        host = p.getProperty("host");
+        String lobby = p.getProperty("lobby", "127.0.0.1:" + Constants.RMI_PORT);
+        int colon = lobby.lastIndexOf(':');
+        lobbyHost = colon < 0 ? lobby : lobby.substring(0, colon);
+        lobbyPort = colon < 0 ? Constants.RMI_PORT : Integer.parseInt(lobby.substring(colon + 1));
+        nodeIndex = intOf(p, "nodeIndex", -1);
+        capacity = intOf(p, "capacity", Constants.MAX_ROOMS * Constants.MAX_PLAYERS);
+        metricsPort = intOf(p, "metricsPort", Constants.METRICS_PORT);
+    }
+
+    // Configuration du serveur autonome d'origine (menu interactif, serveur embarqué du test de charge)
+    static ServerConfig standalone(int size) {
+        Properties p = new Properties();
+        p.setProperty("size", String.valueOf(size));
+        return new ServerConfig(p);
+    }
+
+    static ServerConfig parse(String[] args) throws IOException {
+        Properties p = new Properties();
+        Properties fromArgs = new Properties();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) throw new IllegalArgumentException("Argument attendu : --clé=valeur (" + arg + ")");
+            String key = arg.substring(2, eq);
+            if (key.equals("config")) {
+                try (InputStream in = Files.newInputStream(Paths.get(arg.substring(eq + 1)))) {
+                    p.load(in);
+                }
+            } else {
+                fromArgs.setProperty(key, arg.substring(eq + 1));
+            }
+        }
+        p.putAll(fromArgs);
+        for (String key : p.stringPropertyNames()) {
+            if (!KEYS.contains(key)) throw new IllegalArgumentException("Clé inconnue : " + key + " " + KEYS);
+        }
+        return new ServerConfig(p);
+    }
+
+    private static int intOf(Properties p, String key, int fallback) {
+        String value = p.getProperty(key);
+        return value == null ? fallback : Integer.parseInt(value.trim());
+    }
+
+    @Override
+    public String toString() {
+        return role + " rmi=" + rmiPort + (role.equals(LOBBY) ? "" : " udp=" + udpPort + " " + size + "x" + size)
+                + (role.equals(NODE) ? " lobby=" + lobbyHost + ":" + lobbyPort : "");
+    }
+}
@@ -0,0 +1,230 @@
+package server;
+
+import com.sun.net.httpserver.HttpServer;
+
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Mesures du serveur, assez légères pour rester actives en pleine charge :
+// - compteurs LongAdder (une cellule par thread en cas de contention, pas de CAS disputé) ;
+// - histogrammes de durées à cases fixes (ConcurrentHistogram), sans allocation par mesure ;
+// - les compteurs UDP et les files restent dans UdpPipeline / InputQueue et sont lus à la demande.
+// Exposition : JMX (maze:type=ServerMetrics) et texte brut au format Prometheus sur
+// http://127.0.0.1:<maze.metricsPort>/metrics (local uniquement, 0 = désactivé).
+final class ServerMetrics implements ServerMetricsMBean {
+
+    // --- COMPTEURS ---
+    final LongAdder parseFailures = new LongAdder();  // paquet illisible, trop long ou texte refusé
+    final LongAdder unknownSenders = new LongAdder(); // salle ou joueur inconnu
+    final LongAdder badTokens = new LongAdder();      // jeton de session absent ou faux (usurpation d'identifiant)
+    final LongAdder rateLimited = new LongAdder();    // au-delà du débit autorisé pour ce joueur
+    final LongAdder rejectedMoves = new LongAdder();  // mur, bord, manche terminée ou MOVE périmé
+    final LongAdder tickErrors = new LongAdder();     // exception dans la boucle de tick
+    final LongAdder reliableResends = new LongAdder(); // message fiable renvoyé faute d'acquittement
+    final LongAdder eventsDropped = new LongAdder();   // événement non publié (file du bus pleine, erreur JMS)
+    final LongAdder reliableDropped = new LongAdder(); // message fiable abandonné (fenêtre pleine, client parti)
+    final LongAdder leaves = new LongAdder();          // départs demandés (leave RMI)
+    final LongAdder idleTimeouts = new LongAdder();    // joueurs retirés après IDLE_TIMEOUT_SECONDS sans paquet
+    final LongAdder replayDropped = new LongAdder();   // enregistrement de replay perdu (écriture trop lente)
+    final LongAdder replayBytes = new LongAdder();     // octets de replay écrits sur disque
+    final LongAdder spectatorsRefused = new LongAdder(); // SPECTATE_JOIN refusé : SPECTATOR_SLOTS déjà pris
+    final LongAdder chatRejected = new LongAdder();      // chat illisible, joueur inconnu ou jeton faux
+    final LongAdder chatRateLimited = new LongAdder();   // chat au-delà de CHAT_PER_SECOND pour ce joueur
+    final LongAdder mazesGenerated = new LongAdder();    // labyrinthes générés (fond ou sur place)
+    final LongAdder mazeCacheHits = new LongAdder();     // labyrinthes relus depuis le cache disque
+    final LongAdder mazePoolMisses = new LongAdder();    // file vide : labyrinthe préparé sur place
+
+    // --- DURÉES (µs) ---
+    final ConcurrentHistogram tickMicros = new ConcurrentHistogram();       // tick complet d'une salle
+    final ConcurrentHistogram fanoutMicros = new ConcurrentHistogram();     // encodage + mise en file des snapshots
+    final ConcurrentHistogram loginMicros = new ConcurrentHistogram();      // appel RMI login
+    final ConcurrentHistogram jmsPublishMicros = new ConcurrentHistogram(); // envoi d'un lot d'événements JMS
+    final ConcurrentHistogram mazeGenerationMicros = new ConcurrentHistogram(); // génération + préparation d'un labyrinthe
+
+    private UdpPipeline udp;
+    private RoomManager rooms;
+    private EventBus events;
+    private HttpServer http;
+
+    // Débits calculés une fois par seconde
+    private volatile long packetsInPerSecond;
+    private volatile long packetsOutPerSecond;
+    private long lastIn;
+    private long lastOut;
+
+    // Les sources ne sont connues qu'après leur création (MazeServer)
+    void bind(UdpPipeline udp, RoomManager rooms, EventBus events) {
+        this.udp = udp;
+        this.rooms = rooms;
+        this.events = events;
+    }
+
+    void start(ScheduledExecutorService scheduler, int httpPort) {
+        scheduler.scheduleAtFixedRate(this::sampleRates, 1, 1, TimeUnit.SECONDS);
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(
+                    new StandardMBean(this, ServerMetricsMBean.class), new ObjectName("maze:type=ServerMetrics"));
+        } catch (Exception e) {
+            System.out.println("[METRIQUES] JMX indisponible : " + e);
+        }
+        if (httpPort <= 0) return;
+        try {
+            http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), httpPort), 0);
+            http.createContext("/metrics", exchange -> {
+                byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            http.start(); // un seul thread de service : une lecture toutes les quelques secondes
+            System.out.println("[METRIQUES] http://127.0.0.1:" + httpPort + "/metrics");
+        } catch (IOException e) {
+            System.out.println("[METRIQUES] Port " + httpPort + " indisponible : " + e.getMessage());
+        }
+    }
+
+    void stop() {
+        if (http != null) http.stop(0);
+    }
+
+    private void sampleRates() {
+        long in = udp.packetsIn(), out = udp.packetsOut();
+        packetsInPerSecond = in - lastIn;
+        packetsOutPerSecond = out - lastOut;
+        lastIn = in;
+        lastOut = out;
+    }
+
+    // --- FORMAT TEXTE (Prometheus) ---
+    String scrape() {
+        StringBuilder sb = new StringBuilder(4096);
+        counter(sb, "maze_packets_in_total", "Paquets UDP reçus", getPacketsIn());
+        counter(sb, "maze_packets_out_total", "Paquets UDP envoyés", getPacketsOut());
+        counter(sb, "maze_parse_failures_total", "Paquets illisibles", getParseFailures());
+        counter(sb, "maze_unknown_senders_total", "Paquets pour une salle ou un joueur inconnu", getUnknownSenders());
+        counter(sb, "maze_bad_tokens_total", "Paquets refusés : jeton de session faux", getBadTokens());
+        counter(sb, "maze_rate_limited_total", "Paquets refusés : débit du joueur dépassé", getRateLimited());
+        counter(sb, "maze_rejected_moves_total", "Coups refusés (mur, bord, manche terminée, périmé)", getRejectedMoves());
+        counter(sb, "maze_dropped_inputs_total", "Entrées perdues (file de la salle pleine)", getDroppedInputs());
+        counter(sb, "maze_dropped_sends_total", "Envois perdus (file d'envoi pleine)", getDroppedSends());
+        counter(sb, "maze_send_errors_total", "Erreurs d'envoi vers un joueur", getSendErrors());
+        counter(sb, "maze_tick_errors_total", "Exceptions dans la boucle de tick", getTickErrors());
+        counter(sb, "maze_events_dropped_total", "Événements non publiés (file pleine, erreur JMS)", getEventsDropped());
+        counter(sb, "maze_reliable_resends_total", "Messages fiables renvoyés", getReliableResends());
+        counter(sb, "maze_reliable_dropped_total", "Messages fiables abandonnés", getReliableDropped());
+        counter(sb, "maze_leaves_total", "Départs demandés par le client", getLeaves());
+        counter(sb, "maze_idle_timeouts_total", "Joueurs retirés pour inactivité", getIdleTimeouts());
+        counter(sb, "maze_replay_dropped_total", "Enregistrements de replay perdus", getReplayDropped());
+        counter(sb, "maze_replay_bytes_total", "Octets de replay écrits", getReplayBytes());
+        counter(sb, "maze_spectators_refused_total", "Abonnements spectateur refusés (places directes prises)", getSpectatorsRefused());
+        counter(sb, "maze_chat_rejected_total", "Messages de chat refusés (expéditeur ou jeton invalide)", getChatRejected());
+        counter(sb, "maze_chat_rate_limited_total", "Messages de chat refusés : débit du joueur dépassé", getChatRateLimited());
+        counter(sb, "maze_mazes_generated_total", "Labyrinthes générés", getMazesGenerated());
+        counter(sb, "maze_maze_cache_hits_total", "Labyrinthes relus depuis le cache disque", getMazeCacheHits());
+        counter(sb, "maze_maze_pool_misses_total", "Labyrinthes préparés sur place (file vide)", getMazePoolMisses());
+        gauge(sb, "maze_packets_in_per_second", "Débit entrant (dernière seconde)", getPacketsInPerSecond());
+        gauge(sb, "maze_packets_out_per_second", "Débit sortant (dernière seconde)", getPacketsOutPerSecond());
+        gauge(sb, "maze_send_queue_depth", "Paquets en attente d'envoi", getSendQueueDepth());
+        gauge(sb, "maze_event_queue_depth", "Événements en attente de publication", getEventQueueDepth());
+        gauge(sb, "maze_players", "Joueurs connectés (toutes salles)", getLivePlayers());
+        gauge(sb, "maze_rooms", "Salles ouvertes", getRooms());
+        histogram(sb, "maze_tick_duration_micros", "Durée d'un tick de salle", tickMicros);
+        histogram(sb, "maze_fanout_duration_micros", "Encodage et mise en file des snapshots d'un tick", fanoutMicros);
+        histogram(sb, "maze_login_duration_micros", "Durée d'un login RMI", loginMicros);
+        histogram(sb, "maze_jms_publish_duration_micros", "Envoi d'un lot d'événements JMS (thread d'écriture)", jmsPublishMicros);
+        histogram(sb, "maze_generation_duration_micros", "Génération et préparation d'un labyrinthe", mazeGenerationMicros);
+        return sb.toString();
+    }
+
+    private static void counter(StringBuilder sb, String name, String help, long value) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" counter\n");
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void gauge(StringBuilder sb, String name, String help, long value) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" gauge\n");
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    // Une borne "le" par puissance de 2, jusqu'à la plus grande valeur observée
+    private static void histogram(StringBuilder sb, String name, String help, ConcurrentHistogram h) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" histogram\n");
+        long[] counts = h.snapshot();
+        int last = counts.length - 1;
+        while (last > 0 && counts[last] == 0) last--;
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (ConcurrentHistogram.BUCKETS.isOctaveEnd(i) && i <= last + 4) {
+                sb.append(name).append("_bucket{le=\"").append(ConcurrentHistogram.BUCKETS.highestValueAt(i)).append("\"} ")
+                        .append(cumulative).append('\n');
+            }
+        }
+        sb.append(name).append("_bucket{le=\"+Inf\"} ").append(cumulative).append('\n');
+        sb.append(name).append("_sum ").append(h.sum()).append('\n');
+        sb.append(name).append("_count ").append(cumulative).append('\n');
+    }
+
+    // --- JMX ---
+    @Override public long getPacketsIn() { return udp.packetsIn(); }
+    @Override public long getPacketsOut() { return udp.packetsOut(); }
+    @Override public long getPacketsInPerSecond() { return packetsInPerSecond; }
+    @Override public long getPacketsOutPerSecond() { return packetsOutPerSecond; }
+    @Override public long getParseFailures() { return parseFailures.sum(); }
+    @Override public long getUnknownSenders() { return unknownSenders.sum(); }
+    @Override public long getBadTokens() { return badTokens.sum(); }
+    @Override public long getRateLimited() { return rateLimited.sum(); }
+    @Override public long getRejectedMoves() { return rejectedMoves.sum(); }
+    @Override public long getDroppedSends() { return udp.droppedSends(); }
+    @Override public long getSendErrors() { return udp.sendErrors(); }
+    @Override public long getTickErrors() { return tickErrors.sum(); }
+    @Override public long getEventsDropped() { return eventsDropped.sum(); }
+    @Override public int getEventQueueDepth() { return events == null ? 0 : events.pending(); }
+    @Override public long getReliableResends() { return reliableResends.sum(); }
+    @Override public long getReliableDropped() { return reliableDropped.sum(); }
+    @Override public long getLeaves() { return leaves.sum(); }
+    @Override public long getIdleTimeouts() { return idleTimeouts.sum(); }
+    @Override public long getReplayDropped() { return replayDropped.sum(); }
+    @Override public long getReplayBytes() { return replayBytes.sum(); }
+    @Override public long getSpectatorsRefused() { return spectatorsRefused.sum(); }
+    @Override public long getChatRejected() { return chatRejected.sum(); }
+    @Override public long getChatRateLimited() { return chatRateLimited.sum(); }
+    @Override public long getMazesGenerated() { return mazesGenerated.sum(); }
+    @Override public long getMazeCacheHits() { return mazeCacheHits.sum(); }
+    @Override public long getMazePoolMisses() { return mazePoolMisses.sum(); }
+    @Override public int getSendQueueDepth() { return udp.sendQueueDepth(); }
+    @Override public int getRooms() { return rooms.rooms().size(); }
+
+    @Override
+    public long getDroppedInputs() {
+        long dropped = 0;
+        for (Room room : rooms.rooms()) dropped += room.inputs().dropped();
+        return dropped;
+    }
+
+    @Override
+    public int getLivePlayers() {
+        int players = 0;
+        for (Room room : rooms.rooms()) players += room.playerCount();
+        return players;
+    }
+
+    @Override public long getTickP99Micros() { return tickMicros.percentile(99); }
+    @Override public long getFanoutP99Micros() { return fanoutMicros.percentile(99); }
+    @Override public long getLoginP99Micros() { return loginMicros.percentile(99); }
+    @Override public long getJmsPublishP99Micros() { return jmsPublishMicros.percentile(99); }
+}
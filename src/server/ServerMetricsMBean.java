@@ -0,0 +1,39 @@
+package server;
+
+// Vue JMX de ServerMetrics (jconsole / VisualVM : MBean "maze:type=ServerMetrics")
+public interface ServerMetricsMBean {
+    long getPacketsIn();
+    long getPacketsOut();
+    long getPacketsInPerSecond();
+    long getPacketsOutPerSecond();
+    long getParseFailures();
+    long getUnknownSenders();
+    long getBadTokens();
+    long getRateLimited();
+    long getRejectedMoves();
+    long getDroppedInputs();
+    long getDroppedSends();
+    long getSendErrors();
+    long getTickErrors();
+    long getEventsDropped();
+    int getEventQueueDepth();
+    long getReliableResends();
+    long getReliableDropped();
+    long getLeaves();
+    long getIdleTimeouts();
+    long getReplayDropped();
+    long getReplayBytes();
+    long getSpectatorsRefused();
+    long getChatRejected();
+    long getChatRateLimited();
+    long getMazesGenerated();
+    long getMazeCacheHits();
+    long getMazePoolMisses();
+    int getSendQueueDepth();
+    int getLivePlayers();
+    int getRooms();
+    long getTickP99Micros();
+    long getFanoutP99Micros();
+    long getLoginP99Micros();
+    long getJmsPublishP99Micros();
+}
@@ -0,0 +1,85 @@
+package server;
+
+import java.util.Arrays;
+
+// Délais d'inactivité des joueurs d'une salle : roue temporelle indexée par le numéro de tick.
+// - touch() (chaque paquet accepté) n'écrit qu'un entier : le tick de la dernière activité.
+//   Un joueur n'est rangé dans une case de la roue qu'une fois, à sa première activité.
+// - expire() ne parcourt que la case du tick courant. Un joueur qui y est rangé mais qui a été
+//   actif depuis est simplement re-rangé à sa nouvelle échéance (déplacement dans des listes
+//   chaînées en tableaux, comme SpatialGrid) : chaque joueur est examiné environ une fois par délai,
+//   qu'il soit actif ou non. 100 000 sessions inactives = quelques tableaux d'entiers, pas de thread.
+// La roue fait au moins "timeout" cases, donc une échéance n'est jamais plus d'un tour en avance.
+// Thread de tick uniquement ; expire() doit être appelé à chaque tick, sans en sauter.
+final class SessionTimers {
+
+    private static final int NONE = -1;
+
+    private final int timeout; // en ticks
+    private final int mask;
+    private final int[] head;     // premier slot de chaque case
+    private final int[] next;
+    private final int[] prev;
+    private final int[] bucketOf; // case de chaque slot (NONE = pas suivi)
+    private final int[] lastSeen;
+
+    SessionTimers(int capacity, int timeoutTicks) {
+        timeout = Math.max(1, timeoutTicks);
+        int wheel = Integer.highestOneBit(timeout) << 1; // puissance de 2 > timeout
+        mask = wheel - 1;
+        head = new int[wheel];
+        next = new int[capacity];
+        prev = new int[capacity];
+        bucketOf = new int[capacity];
+        lastSeen = new int[capacity];
+        Arrays.fill(head, NONE);
+        Arrays.fill(bucketOf, NONE);
+    }
+
+    // Activité du joueur : repousse son échéance
+    void touch(int slot, int tick) {
+        lastSeen[slot] = tick;
+        if (bucketOf[slot] == NONE) link(slot, tick + timeout);
+    }
+
+    // Joueur parti : plus suivi
+    void cancel(int slot) {
+        int bucket = bucketOf[slot];
+        if (bucket == NONE) return;
+        if (prev[slot] != NONE) next[prev[slot]] = next[slot];
+        else head[bucket] = next[slot];
+        if (next[slot] != NONE) prev[next[slot]] = prev[slot];
+        bucketOf[slot] = NONE;
+    }
+
+    // Remplit "out" avec au plus "max" slots inactifs depuis "timeout" ticks (retirés de la roue) ;
+    // renvoie leur nombre. Les suivants sont reportés au tick d'après (départs massifs étalés).
+    int expire(int tick, int[] out, int max) {
+        int bucket = tick & mask;
+        int count = 0;
+        for (int slot = head[bucket], following; slot != NONE; slot = following) {
+            following = next[slot];
+            int deadline = lastSeen[slot] + timeout;
+            if (deadline - tick <= 0) {
+                cancel(slot);
+                if (count < max) out[count++] = slot;
+                else link(slot, tick + 1);
+            } else if ((deadline & mask) != bucket) {
+                cancel(slot);
+                link(slot, deadline);
+            }
+        }
+        return count;
+    }
+
+    int timeoutTicks() { return timeout; }
+
+    private void link(int slot, int deadline) {
+        int bucket = deadline & mask;
+        next[slot] = head[bucket];
+        prev[slot] = NONE;
+        if (head[bucket] != NONE) prev[head[bucket]] = slot;
+        head[bucket] = slot;
+        bucketOf[slot] = bucket;
+    }
+}
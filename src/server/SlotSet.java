@@ -0,0 +1,31 @@
+package server;
+
+// Ensemble de slots sans allocation : drapeaux + liste des slots présents (ordre d'insertion).
+// Utilisé par le thread de tick pour suivre les joueurs modifiés.
+final class SlotSet {
+
+    private final boolean[] present;
+    private final int[] slots;
+    private int count;
+
+    SlotSet(int capacity) {
+        present = new boolean[capacity];
+        slots = new int[capacity];
+    }
+
+    void add(int slot) {
+        if (!present[slot]) {
+            present[slot] = true;
+            slots[count++] = slot;
+        }
+    }
+
+    boolean contains(int slot) { return present[slot]; }
+    int size() { return count; }
+    int get(int i) { return slots[i]; }
+
+    void clear() {
+        for (int i = 0; i < count; i++) present[slots[i]] = false;
+        count = 0;
+    }
+}
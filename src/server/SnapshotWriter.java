@@ -0,0 +1,69 @@
+package server;
+
+import common.Protocol;
+import java.nio.ByteBuffer;
+
+// Encode un snapshot de tick une seule fois, découpé en paquets de MAX_PACKET_SIZE.
+// Les paquets sont stockés bout à bout dans un tableau réutilisé d'un tick à l'autre.
+class SnapshotWriter {
+
+    private byte[] arena = new byte[Protocol.MAX_PACKET_SIZE * 4];
+    private int[] lengths = new int[4];
+    private ByteBuffer buf = ByteBuffer.wrap(arena);
+    private int roomId;
+    private int tick;
+    private int round;
+    private int packetCount;
+    private int entries; // entrées dans le paquet courant
+
+    void begin(int roomId, int tick, int round) {
+        this.roomId = roomId;
+        this.tick = tick;
+        this.round = round;
+        packetCount = 0;
+        entries = 0;
+    }
+
+    void add(int playerId, int x, int y, int seq) {
+        if (packetCount == 0 || entries == Protocol.MAX_SNAPSHOT_ENTRIES) startPacket();
+        Protocol.writeSnapshotEntry(buf, playerId, x, y, seq);
+        entries++;
+    }
+
+    // Termine le paquet courant et renvoie le nombre de paquets à envoyer
+    int finish() {
+        if (packetCount > 0) closePacket();
+        return packetCount;
+    }
+
+    byte[] data() { return arena; }
+    int offset(int packet) { return packet * Protocol.MAX_PACKET_SIZE; }
+    int length(int packet) { return lengths[packet]; }
+
+    private void startPacket() {
+        if (packetCount > 0) closePacket();
+        if (offset(packetCount + 1) > arena.length) grow();
+        buf.position(offset(packetCount));
+        Protocol.writeSnapshotHeader(buf, roomId, tick, round, 0);
+        packetCount++;
+        entries = 0;
+    }
+
+    private void closePacket() {
+        int start = offset(packetCount - 1);
+        Protocol.setSnapshotCount(buf, start, entries);
+        lengths[packetCount - 1] = buf.position() - start;
+    }
+
+    private void grow() {
+        byte[] bigger = new byte[arena.length * 2];
+        System.arraycopy(arena, 0, bigger, 0, arena.length);
+        int[] biggerLengths = new int[lengths.length * 2];
+        System.arraycopy(lengths, 0, biggerLengths, 0, lengths.length);
+        int pos = buf.position();
+        arena = bigger;
+        lengths = biggerLengths;
+        buf = ByteBuffer.wrap(arena);
+        buf.position(pos);
+    }
+}
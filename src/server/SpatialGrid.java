@@ -0,0 +1,74 @@
+package server;
+
+import java.util.Arrays;
+
+// Index spatial du labyrinthe pour l'"area of interest" : la grille est découpée en cases
+// de cellSize x cellSize, chaque case garde la liste chaînée (dans des tableaux) de ses joueurs.
+// Une requête de rayon r ne parcourt que les cases qui recoupent le carré [x-r, x+r] x [y-r, y+r].
+// Thread de tick uniquement.
+final class SpatialGrid {
+
+    private static final int NONE = -1;
+
+    private final int cellSize;
+    private final int cols;
+    private final int[] head;   // premier slot de chaque case
+    private final int[] next;   // slot suivant dans la même case
+    private final int[] prev;   // slot précédent dans la même case
+    private final int[] cellOf; // case actuelle de chaque slot (NONE = absent)
+
+    SpatialGrid(int mazeSize, int cellSize, int capacity) {
+        this.cellSize = cellSize;
+        this.cols = (mazeSize + cellSize - 1) / cellSize;
+        head = new int[cols * cols];
+        next = new int[capacity];
+        prev = new int[capacity];
+        cellOf = new int[capacity];
+        Arrays.fill(head, NONE);
+        Arrays.fill(cellOf, NONE);
+    }
+
+    // Insère le joueur ou le déplace si sa case a changé
+    void update(int slot, int x, int y) {
+        int cell = cellIndex(x, y);
+        if (cellOf[slot] == cell) return;
+        remove(slot);
+        next[slot] = head[cell];
+        prev[slot] = NONE;
+        if (head[cell] != NONE) prev[head[cell]] = slot;
+        head[cell] = slot;
+        cellOf[slot] = cell;
+    }
+
+    void remove(int slot) {
+        int cell = cellOf[slot];
+        if (cell == NONE) return;
+        if (prev[slot] != NONE) next[prev[slot]] = next[slot];
+        else head[cell] = next[slot];
+        if (next[slot] != NONE) prev[next[slot]] = prev[slot];
+        cellOf[slot] = NONE;
+    }
+
+    // Remplit 'out' avec les slots à distance <= radius (distance de Chebyshev) ; renvoie leur nombre
+    int query(int x, int y, int radius, PlayerTable players, int[] out) {
+        int minCol = Math.max(0, (x - radius) / cellSize);
+        int maxCol = Math.min(cols - 1, (x + radius) / cellSize);
+        int minRow = Math.max(0, (y - radius) / cellSize);
+        int maxRow = Math.min(cols - 1, (y + radius) / cellSize);
+        int count = 0;
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                for (int s = head[row * cols + col]; s != NONE; s = next[s]) {
+                    if (Math.abs(players.x(s) - x) <= radius && Math.abs(players.y(s) - y) <= radius) {
+                        out[count++] = s;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private int cellIndex(int x, int y) {
+        return (y / cellSize) * cols + (x / cellSize);
+    }
+}
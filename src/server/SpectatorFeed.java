@@ -0,0 +1,187 @@
+package server;
+
+import common.Constants;
+import common.Protocol;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Flux SPECTATE d'une salle : encodé une fois par tick (tick de la salle) puis envoyé au groupe
+// multicast et à quelques abonnés directs, en pratique des SpectatorRelay qui le redistribuent.
+// Les spectateurs ne sont pas des joueurs : ni slot, ni AOI, ni canal fiable, ni adresse dans
+// PlayerTable. Le coût par tick est donc celui d'un seul client, plus SPECTATOR_SLOTS copies.
+//   KEYFRAME : tous les joueurs, toutes les SPECTATOR_KEYFRAME_TICKS et à chaque nouvelle manche
+//   DELTA    : joueurs modifiés pendant le tick      LEFT : joueurs partis pendant le tick
+// Un nouvel arrivant part de la prochaine image complète puis applique les deltas (le relais,
+// lui, garde la dernière image complète et la lui envoie tout de suite).
+final class SpectatorFeed {
+
+    private static final long SUBSCRIBER_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(3L * Constants.HEARTBEAT_SECONDS);
+    // -Dmaze.spectatorGroup=239.255.77.1:9950, null si absent
+    static final InetSocketAddress GROUP = parseGroup(Constants.SPECTATOR_GROUP);
+
+    private final int roomId;
+    private final UdpPipeline.Outbox outbox;
+    private final InetSocketAddress group; // null : pas de multicast
+
+    // Abonnés directs : écrits par le thread UDP (SPECTATE_JOIN), lus par le tick
+    private final AtomicReferenceArray<InetSocketAddress> subscribers = new AtomicReferenceArray<>(Constants.SPECTATOR_SLOTS);
+    private final AtomicLongArray lastSeen = new AtomicLongArray(Constants.SPECTATOR_SLOTS);
+    private volatile int subscriberCount;
+
+    // Paquets du tick, bout à bout comme SnapshotWriter
+    private byte[] arena = new byte[Protocol.MAX_PACKET_SIZE * 4];
+    private int[] lengths = new int[4];
+    private ByteBuffer buf = ByteBuffer.wrap(arena);
+    private int packetCount;
+    private int firstPart; // premier paquet du message en cours (KEYFRAME sur plusieurs paquets)
+    private int entries;
+    private int kind;
+    private int tick;
+    private int round;
+
+    private int lastKeyframeTick = Integer.MIN_VALUE / 2;
+    private int lastRound = -1;
+    private long nextExpiry;
+
+    SpectatorFeed(int roomId, UdpPipeline.Outbox outbox, InetSocketAddress group) {
+        this.roomId = roomId;
+        this.outbox = outbox;
+        this.group = group;
+    }
+
+    // Thread UDP : nouvel abonné ou renouvellement ; false si toutes les places sont prises
+    synchronized boolean subscribe(InetSocketAddress from) {
+        long now = System.nanoTime();
+        int free = -1;
+        for (int i = 0; i < subscribers.length(); i++) {
+            InetSocketAddress current = subscribers.get(i);
+            if (from.equals(current)) {
+                lastSeen.set(i, now);
+                return true;
+            }
+            if (free < 0 && (current == null || now - lastSeen.get(i) > SUBSCRIBER_TIMEOUT_NANOS)) free = i;
+        }
+        if (free < 0) return false;
+        lastSeen.set(free, now);
+        if (subscribers.getAndSet(free, from) == null) subscriberCount++;
+        return true;
+    }
+
+    // Tick de la salle : un message par tick, rien du tout sans groupe ni abonné
+    void publish(int tick, int round, PlayerTable players, SlotSet dirty, int[] departed, int departedCount) {
+        if (group == null && subscriberCount == 0) return;
+        this.tick = tick;
+        this.round = round;
+        packetCount = 0;
+        // Départs d'abord : un identifiant libéré puis réattribué dans le même tick reste affiché
+        if (departedCount > 0) {
+            begin(Protocol.SPECTATE_LEFT);
+            for (int i = 0; i < departedCount; i++) {
+                if (entries == Protocol.MAX_SPECTATE_LEFT_ENTRIES) startPacket();
+                buf.putShort((short) departed[i]);
+                entries++;
+            }
+            end();
+        }
+        if (round != lastRound || tick - lastKeyframeTick >= Constants.SPECTATOR_KEYFRAME_TICKS) {
+            lastRound = round;
+            lastKeyframeTick = tick;
+            begin(Protocol.SPECTATE_KEYFRAME);
+            for (int slot = 0, n = players.highWater(); slot < n; slot++) {
+                if (players.isActive(slot)) addPosition(players, slot);
+            }
+            end();
+        } else if (dirty.size() > 0) {
+            begin(Protocol.SPECTATE_DELTA);
+            for (int i = 0; i < dirty.size(); i++) {
+                int slot = dirty.get(i);
+                if (players.isActive(slot)) addPosition(players, slot);
+            }
+            end();
+        }
+        for (int p = 0; p < packetCount; p++) {
+            int offset = p * Protocol.MAX_PACKET_SIZE;
+            if (group != null) outbox.send(arena, offset, lengths[p], group);
+            for (int i = 0; i < subscribers.length(); i++) {
+                InetSocketAddress target = subscribers.get(i);
+                if (target != null) outbox.send(arena, offset, lengths[p], target);
+            }
+        }
+        if (tick >= nextExpiry) expire(tick);
+    }
+
+    // Abonnés muets depuis 3 HEARTBEAT_SECONDS retirés, vérifié une fois par seconde de jeu
+    private synchronized void expire(int tick) {
+        nextExpiry = tick + Constants.TICK_RATE;
+        long now = System.nanoTime();
+        for (int i = 0; i < subscribers.length(); i++) {
+            if (subscribers.get(i) != null && now - lastSeen.get(i) > SUBSCRIBER_TIMEOUT_NANOS) {
+                subscribers.set(i, null);
+                subscriberCount--;
+            }
+        }
+    }
+
+    private void begin(int kind) {
+        this.kind = kind;
+        firstPart = packetCount;
+        startPacket();
+    }
+
+    private void addPosition(PlayerTable players, int slot) {
+        if (entries == Protocol.MAX_SPECTATE_ENTRIES) startPacket();
+        buf.putShort((short) players.id(slot));
+        buf.putShort((short) players.x(slot));
+        buf.putShort((short) players.y(slot));
+        entries++;
+    }
+
+    private void startPacket() {
+        if (packetCount > firstPart) closePacket();
+        if ((packetCount + 1) * Protocol.MAX_PACKET_SIZE > arena.length) grow();
+        buf.position(packetCount * Protocol.MAX_PACKET_SIZE);
+        Protocol.writeSpectateHeader(buf, roomId, tick, round, kind);
+        packetCount++;
+        entries = 0;
+    }
+
+    private void closePacket() {
+        lengths[packetCount - 1] = buf.position() - (packetCount - 1) * Protocol.MAX_PACKET_SIZE;
+        Protocol.setSpectateParts(buf, (packetCount - 1) * Protocol.MAX_PACKET_SIZE, 0, 0, entries);
+    }
+
+    // Ferme le message : chaque paquet reçoit son numéro et le total (image complète = toutes les parties)
+    private void end() {
+        closePacket();
+        int parts = packetCount - firstPart;
+        for (int p = firstPart; p < packetCount; p++) {
+            int start = p * Protocol.MAX_PACKET_SIZE;
+            int count = buf.getShort(start + Protocol.HEADER_SIZE + 11) & 0xFFFF;
+            Protocol.setSpectateParts(buf, start, p - firstPart, parts, count);
+        }
+    }
+
+    private void grow() {
+        byte[] bigger = new byte[arena.length * 2];
+        System.arraycopy(arena, 0, bigger, 0, arena.length);
+        int[] biggerLengths = new int[lengths.length * 2];
+        System.arraycopy(lengths, 0, biggerLengths, 0, lengths.length);
+        int pos = buf.position();
+        arena = bigger;
+        lengths = biggerLengths;
+        buf = ByteBuffer.wrap(arena);
+        buf.position(pos);
+    }
+
+    int subscribers() { return subscriberCount; }
+
+    private static InetSocketAddress parseGroup(String value) {
+        if (value == null || value.isEmpty()) return null;
+        int colon = value.lastIndexOf(':');
+        if (colon < 0) throw new IllegalArgumentException("maze.spectatorGroup attendu : adresse:port (" + value + ")");
+        return new InetSocketAddress(value.substring(0, colon), Integer.parseInt(value.substring(colon + 1)));
+    }
+}
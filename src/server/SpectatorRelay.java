@@ -0,0 +1,190 @@
+package server;
+
+import common.Constants;
+import common.Protocol;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Relais de spectateurs : s'abonne au flux SPECTATE d'un serveur (ou d'un autre relais, d'où un
+// arbre) et le recopie à ses propres abonnés. Le serveur n'envoie qu'à SPECTATOR_SLOTS relais ;
+// chaque relais sert "fanout" abonnés, spectateurs ou relais du niveau suivant.
+// Il garde la dernière image complète et les deltas qui l'ont suivie : un nouvel abonné les reçoit
+// aussitôt au lieu d'attendre la prochaine image complète.
+//
+//   java server.SpectatorRelay --upstream=127.0.0.1:9876 [--port=9960] [--fanout=64]
+//
+// Un seul thread, un seul socket, pas d'allocation par paquet (tampons du cache réutilisés).
+public final class SpectatorRelay {
+
+    private static final long SUBSCRIBER_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(3L * Constants.HEARTBEAT_SECONDS);
+    private static final long RENEW_NANOS = TimeUnit.SECONDS.toNanos(Constants.HEARTBEAT_SECONDS);
+    private static final int CACHE_PACKETS = 256; // image complète + deltas suivants, par salle
+
+    // Une salle relayée : ses abonnés et de quoi mettre un nouveau venu à jour
+    private static final class Feed {
+        final int roomId;
+        final InetSocketAddress[] subscribers;
+        final long[] lastSeen;
+        int count;
+        long renewAt; // prochain SPECTATE_JOIN vers l'amont
+
+        final byte[][] cache = new byte[CACHE_PACKETS][Protocol.MAX_PACKET_SIZE];
+        final int[] cacheLengths = new int[CACHE_PACKETS];
+        int cached;
+        int keyframeTick = -1;
+        boolean complete; // le cache commence par une image complète entière
+
+        Feed(int roomId, int fanout) {
+            this.roomId = roomId;
+            subscribers = new InetSocketAddress[fanout];
+            lastSeen = new long[fanout];
+        }
+    }
+
+    private final DatagramChannel channel;
+    private final InetSocketAddress upstream;
+    private final int fanout;
+    private final Map<Integer, Feed> feeds = new HashMap<>();
+    private final ByteBuffer in = ByteBuffer.allocateDirect(64 * 1024);
+    private final ByteBuffer out = ByteBuffer.allocateDirect(Protocol.MAX_PACKET_SIZE);
+    private int subscriberTotal;
+    private long packetsIn, packetsOut, dropped, refused;
+
+    SpectatorRelay(int port, InetSocketAddress upstream, int fanout) throws IOException {
+        this.upstream = upstream;
+        this.fanout = fanout;
+        channel = DatagramChannel.open();
+        channel.bind(new InetSocketAddress(port));
+    }
+
+    void run() throws IOException {
+        long nextStats = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        // receive() bloquant : tout est fait à l'arrivée d'un paquet (flux amont à TICK_RATE,
+        // renouvellements des abonnés), il n'y a rien à faire entre deux
+        while (true) {
+            in.clear();
+            SocketAddress from = channel.receive(in);
+            in.flip();
+            long now = System.nanoTime();
+            if (from.equals(upstream)) onUpstream(now);
+            else if (Protocol.readSpectateJoin(in)) onJoin((InetSocketAddress) from, Protocol.roomId(in), now);
+            if (now >= nextStats) {
+                System.out.println("[RELAIS] abonnés=" + subscriberTotal + " salles=" + feeds.size()
+                        + " reçus=" + packetsIn + " envoyés=" + packetsOut + " perdus=" + dropped + " refusés=" + refused);
+                nextStats = now + TimeUnit.SECONDS.toNanos(10);
+            }
+        }
+    }
+
+    private void onUpstream(long now) throws IOException {
+        int count = Protocol.readSpectate(in);
+        Feed feed = count < 0 ? null : feeds.get(Protocol.roomId(in));
+        if (feed == null) return;
+        packetsIn++;
+        remember(feed);
+        for (int i = 0; i < feed.subscribers.length; i++) {
+            InetSocketAddress target = feed.subscribers[i];
+            if (target == null) continue;
+            if (now - feed.lastSeen[i] > SUBSCRIBER_TIMEOUT_NANOS) {
+                feed.subscribers[i] = null;
+                feed.count--;
+                subscriberTotal--;
+                continue;
+            }
+            in.rewind();
+            if (channel.send(in, target) == 0) dropped++;
+            else packetsOut++;
+        }
+        if (now >= feed.renewAt) {
+            if (feed.count > 0) requestUpstream(feed, now);
+            else feeds.remove(feed.roomId); // plus personne : l'amont nous oubliera de lui-même
+        }
+    }
+
+    // Cache de rattrapage : remis à zéro à chaque nouvelle image complète
+    private void remember(Feed feed) {
+        int kind = Protocol.spectateKind(in);
+        if (kind == Protocol.SPECTATE_KEYFRAME && Protocol.spectateTick(in) != feed.keyframeTick) {
+            feed.keyframeTick = Protocol.spectateTick(in);
+            feed.cached = 0;
+            feed.complete = Protocol.spectatePart(in) == 0;
+        } else if (kind == Protocol.SPECTATE_KEYFRAME && Protocol.spectatePart(in) != feed.cached) {
+            feed.complete = false; // partie perdue ou désordonnée : on attend l'image suivante
+        }
+        if (feed.cached == CACHE_PACKETS) {
+            feed.complete = false;
+            return;
+        }
+        int length = in.remaining();
+        in.get(feed.cache[feed.cached], 0, length);
+        feed.cacheLengths[feed.cached++] = length;
+    }
+
+    private void onJoin(InetSocketAddress from, int roomId, long now) throws IOException {
+        Feed feed = feeds.get(roomId);
+        if (feed == null) {
+            feed = new Feed(roomId, fanout);
+            feeds.put(roomId, feed);
+        }
+        // Abonnement amont perdu (ou jamais arrivé) : renouvelé au rythme des abonnés
+        if (feed.count > 0 && now >= feed.renewAt) requestUpstream(feed, now);
+        int free = -1;
+        for (int i = 0; i < feed.subscribers.length; i++) {
+            if (from.equals(feed.subscribers[i])) {
+                feed.lastSeen[i] = now;
+                return;
+            }
+            if (free < 0 && feed.subscribers[i] == null) free = i;
+        }
+        if (free < 0 || subscriberTotal >= fanout) {
+            refused++;
+            return;
+        }
+        feed.subscribers[free] = from;
+        feed.lastSeen[free] = now;
+        feed.count++;
+        subscriberTotal++;
+        if (feed.count == 1) requestUpstream(feed, now);
+        // Rattrapage : dernière image complète et deltas depuis
+        for (int i = 0; feed.complete && i < feed.cached; i++) {
+            out.clear();
+            out.put(feed.cache[i], 0, feed.cacheLengths[i]).flip();
+            if (channel.send(out, from) == 0) dropped++;
+            else packetsOut++;
+        }
+    }
+
+    private void requestUpstream(Feed feed, long now) throws IOException {
+        out.clear();
+        Protocol.writeSpectateJoin(out, feed.roomId);
+        out.flip();
+        channel.send(out, upstream);
+        feed.renewAt = now + RENEW_NANOS;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String upstream = null;
+        int port = 9960;
+        int fanout = 64;
+        for (String arg : args) {
+            if (arg.startsWith("--upstream=")) upstream = arg.substring("--upstream=".length());
+            else if (arg.startsWith("--port=")) port = Integer.parseInt(arg.substring("--port=".length()));
+            else if (arg.startsWith("--fanout=")) fanout = Integer.parseInt(arg.substring("--fanout=".length()));
+            else throw new IllegalArgumentException("Argument inconnu : " + arg);
+        }
+        if (upstream == null) {
+            System.out.println("Usage : java server.SpectatorRelay --upstream=hôte:port [--port=9960] [--fanout=64]");
+            return;
+        }
+        int colon = upstream.lastIndexOf(':');
+        InetSocketAddress source = new InetSocketAddress(upstream.substring(0, colon), Integer.parseInt(upstream.substring(colon + 1)));
+        System.out.println("[RELAIS] Port " + port + ", amont " + source + ", " + fanout + " abonnés max");
+        new SpectatorRelay(port, source, fanout).run();
+    }
+}
@@ -0,0 +1,40 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Anneau borné sans verrou, un seul producteur et un seul consommateur.
+// Sert de file d'envoi (tick -> thread d'envoi) et de pool de buffers (envoi -> tick).
+class SpscRing<T> {
+
+    private final int mask;
+    private final AtomicReferenceArray<T> slots;
+    private final AtomicLong head = new AtomicLong(); // écrit par le consommateur
+    private final AtomicLong tail = new AtomicLong(); // écrit par le producteur
+
+    SpscRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        mask = size - 1;
+        slots = new AtomicReferenceArray<>(size);
+    }
+
+    boolean offer(T item) {
+        long t = tail.get();
+        if (t - head.get() > mask) return false; // plein
+        slots.lazySet((int) t & mask, item);
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    T poll() {
+        long h = head.get();
+        if (h == tail.get()) return null;
+        int index = (int) h & mask;
+        T item = slots.get(index);
+        slots.lazySet(index, null);
+        head.lazySet(h + 1);
+        return item;
+    }
+
+    int size() { return (int) (tail.get() - head.get()); }
+}
@@ -0,0 +1,235 @@
+package server;
+
+import common.Protocol;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.InetSocketAddress;
+import java.net.SocketOption;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+// Pipeline UDP en trois étages, pour qu'un envoi lent ne bloque plus la réception :
+//   1. Réception : un thread par DatagramChannel (plusieurs avec SO_REUSEPORT), buffer direct réutilisé,
+//      décodage puis remise sans verrou à la simulation (InputQueue de la salle).
+//   2. Simulation : la boucle de tick de chaque salle (Room).
+//   3. Envoi : un thread dédié qui vide les Outbox des salles et fait le fan-out vers les clients.
+class UdpPipeline {
+
+    // Traite un paquet reçu ; une instance par thread de réception (état de décodage non partagé)
+    interface PacketHandler {
+        void onPacket(ByteBuffer in, InetSocketAddress from);
+    }
+
+    // Paquet à envoyer : buffer direct du pool + destinataire (null = tous les clients de la salle)
+    private static final class Outgoing {
+        final ByteBuffer buf = ByteBuffer.allocateDirect(Protocol.MAX_PACKET_SIZE);
+        InetSocketAddress target;
+    }
+
+    // File d'envoi d'une salle : un seul producteur (le tick de la salle) et un seul consommateur
+    // (le thread d'envoi), donc deux SpscRing suffisent (paquets à envoyer + buffers libres).
+    // Les buffers directs sont alloués à la demande, jusqu'à maxBuffers.
+    final class Outbox {
+        private final PlayerTable audience;
+        private final SpscRing<Outgoing> queue;
+        private final SpscRing<Outgoing> pool;
+        private final int maxBuffers;
+        private int allocated;
+
+        private Outbox(PlayerTable audience, int maxBuffers) {
+            this.audience = audience;
+            this.maxBuffers = maxBuffers;
+            this.queue = new SpscRing<>(maxBuffers);
+            this.pool = new SpscRing<>(maxBuffers);
+        }
+
+        // Copie le paquet dans un buffer du pool et le met en file ; false si l'étage d'envoi est saturé
+        boolean send(byte[] data, int offset, int length, InetSocketAddress target) {
+            Outgoing out = pool.poll();
+            if (out == null && allocated < maxBuffers) {
+                out = new Outgoing();
+                allocated++;
+            }
+            if (out == null) {
+                droppedSends.increment();
+                return false;
+            }
+            out.buf.clear();
+            out.buf.put(data, offset, length).flip();
+            out.target = target;
+            queue.offer(out); // ne peut pas échouer : au plus maxBuffers paquets en circulation
+            LockSupport.unpark(sender);
+            return true;
+        }
+
+        boolean broadcast(byte[] data, int offset, int length) {
+            return send(data, offset, length, null);
+        }
+
+        int depth() { return queue.size(); }
+    }
+
+    private final DatagramChannel[] channels;
+    private volatile Outbox[] outboxes = new Outbox[0]; // copie à l'écriture (création de salle, rare)
+    private Thread sender;
+
+    // LongAdder : incrémentés par plusieurs threads à chaque paquet, lus rarement (métriques)
+    private final LongAdder packetsIn = new LongAdder();
+    private final LongAdder packetsOut = new LongAdder();
+    private final LongAdder droppedSends = new LongAdder();
+    private final LongAdder sendErrors = new LongAdder();
+
+    UdpPipeline(int port, int shards) throws IOException {
+        SocketOption<Boolean> reusePort = shards > 1 ? reusePortOption() : null;
+        if (shards > 1 && reusePort == null) {
+            System.out.println("[UDP] SO_REUSEPORT indisponible sur cette JVM : un seul thread de réception.");
+            shards = 1;
+        }
+        channels = new DatagramChannel[shards];
+        for (int i = 0; i < shards; i++) {
+            DatagramChannel ch = DatagramChannel.open(StandardProtocolFamily.INET);
+            if (reusePort != null) ch.setOption(reusePort, true);
+            ch.bind(new InetSocketAddress(port));
+            channels[i] = ch;
+        }
+    }
+
+    void start(Supplier<PacketHandler> handlers) {
+        for (int i = 0; i < channels.length; i++) {
+            DatagramChannel ch = channels[i];
+            PacketHandler handler = handlers.get();
+            String name = "udp-recv-" + i;
+            Thread t = new Thread(() -> receiveLoop(ch, handler), name);
+            t.setDaemon(true);
+            t.start();
+        }
+        sender = new Thread(this::sendLoop, "udp-send");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    synchronized Outbox openOutbox(PlayerTable audience, int maxBuffers) {
+        Outbox box = new Outbox(audience, maxBuffers);
+        Outbox[] copy = Arrays.copyOf(outboxes, outboxes.length + 1);
+        copy[copy.length - 1] = box;
+        outboxes = copy;
+        return box;
+    }
+
+    // Salle fermée : ses paquets encore en file sont abandonnés avec elle
+    synchronized void closeOutbox(Outbox box) {
+        Outbox[] current = outboxes;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] != box) continue;
+            Outbox[] copy = new Outbox[current.length - 1];
+            System.arraycopy(current, 0, copy, 0, i);
+            System.arraycopy(current, i + 1, copy, i, copy.length - i);
+            outboxes = copy;
+            return;
+        }
+    }
+
+    // --- ÉTAGE 1 : RÉCEPTION ---
+    private void receiveLoop(DatagramChannel ch, PacketHandler handler) {
+        ByteBuffer in = ByteBuffer.allocateDirect(Protocol.MAX_PACKET_SIZE);
+        while (ch.isOpen()) {
+            try {
+                in.clear();
+                InetSocketAddress from = (InetSocketAddress) ch.receive(in);
+                in.flip();
+                packetsIn.increment();
+                handler.onPacket(in, from);
+            } catch (IOException e) {
+                if (ch.isOpen()) e.printStackTrace();
+            } catch (RuntimeException e) {
+                e.printStackTrace(); // Un paquet invalide ne doit pas tuer le thread
+            }
+        }
+    }
+
+    // --- ÉTAGE 3 : ENVOI ---
+    private static final int BATCH = 64; // paquets par salle et par passage (équité entre salles)
+
+    private void sendLoop() {
+        DatagramChannel ch = channels[0]; // Tous les canaux partagent le même port
+        while (ch.isOpen()) {
+            boolean idle = true;
+            for (Outbox box : outboxes) {
+                for (int i = 0; i < BATCH; i++) {
+                    Outgoing out = box.queue.poll();
+                    if (out == null) break;
+                    idle = false;
+                    deliver(ch, box, out);
+                }
+            }
+            if (idle) LockSupport.park(this);
+        }
+    }
+
+    private void deliver(DatagramChannel ch, Outbox box, Outgoing out) {
+        if (out.target != null) {
+            sendTo(ch, out.buf, out.target);
+        } else {
+            PlayerTable players = box.audience;
+            for (int slot = 0, n = players.highWater(); slot < n; slot++) {
+                InetSocketAddress target = players.endpoint(slot);
+                if (target != null) sendTo(ch, out.buf, target);
+            }
+        }
+        out.target = null;
+        box.pool.offer(out); // retour au pool (le thread d'envoi est l'unique producteur du pool)
+    }
+
+    private void sendTo(DatagramChannel ch, ByteBuffer buf, InetSocketAddress target) {
+        try {
+            buf.position(0);
+            ch.send(buf, target);
+            packetsOut.increment();
+        } catch (IOException e) {
+            sendErrors.increment();
+            long errors = sendErrors.sum();
+            if (Long.bitCount(errors) == 1) { // 1re, 2e, 4e, 8e... : visible sans inonder la console
+                System.out.println("[UDP] Erreur d'envoi vers " + target + " (" + errors + " au total) : " + e);
+            }
+        }
+    }
+
+    // --- COMPTEURS (profondeur des files = contre-pression) ---
+    int sendQueueDepth() {
+        int depth = 0;
+        for (Outbox box : outboxes) depth += box.depth();
+        return depth;
+    }
+
+    long packetsIn() { return packetsIn.sum(); }
+    long packetsOut() { return packetsOut.sum(); }
+    long droppedSends() { return droppedSends.sum(); }
+    long sendErrors() { return sendErrors.sum(); }
+
+    void close() {
+        for (DatagramChannel ch : channels) {
+            try { ch.close(); } catch (IOException ignored) {}
+        }
+        LockSupport.unpark(sender);
+    }
+
+    // StandardSocketOptions.SO_REUSEPORT n'existe qu'à partir de Java 9 (et pas sur tous les OS)
+    @SuppressWarnings("unchecked")
+    private static SocketOption<Boolean> reusePortOption() {
+        try {
+            Field f = StandardSocketOptions.class.getField("SO_REUSEPORT");
+            SocketOption<Boolean> option = (SocketOption<Boolean>) f.get(null);
+            try (DatagramChannel probe = DatagramChannel.open()) {
+                return probe.supportedOptions().contains(option) ? option : null;
+            }
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
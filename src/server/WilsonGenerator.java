@@ -0,0 +1,54 @@
+package server;
+
+import java.util.SplittableRandom;
+
+// Algorithme de Wilson : marches aléatoires à effacement de boucles.
+// Produit un arbre couvrant uniforme (pas de biais vers les longs couloirs comme le DFS).
+class WilsonGenerator implements MazeGenerator {
+
+    private static final int[] DX = {0, 0, -1, 1};
+    private static final int[] DY = {-1, 1, 0, 0};
+
+    @Override
+    public void carve(byte[] cells, int size, SplittableRandom random) {
+        int n = Mazes.cellsPerSide(size);
+        boolean[] inMaze = new boolean[n * n];
+        byte[] dir = new byte[n * n]; // dernière direction prise depuis chaque cellule pendant la marche
+
+        int root = random.nextInt(n * n);
+        inMaze[root] = true;
+        Mazes.open(cells, size, root / n, root % n);
+
+        for (int start = 0; start < n * n; start++) {
+            if (inMaze[start]) continue;
+
+            // 1. Marche aléatoire jusqu'à toucher l'arbre ; réécrire dir[] efface les boucles
+            int cur = start;
+            while (!inMaze[cur]) {
+                int cx = cur / n, cy = cur % n;
+                int d;
+                int nx, ny;
+                do {
+                    d = random.nextInt(4);
+                    nx = cx + DX[d];
+                    ny = cy + DY[d];
+                } while (nx < 0 || ny < 0 || nx >= n || ny >= n);
+                dir[cur] = (byte) d;
+                cur = nx * n + ny;
+            }
+
+            // 2. On creuse le chemin sans boucle
+            cur = start;
+            while (!inMaze[cur]) {
+                int cx = cur / n, cy = cur % n;
+                int d = dir[cur];
+                Mazes.openBetween(cells, size, cx, cy, cx + DX[d], cy + DY[d]);
+                inMaze[cur] = true;
+                cur = (cx + DX[d]) * n + (cy + DY[d]);
+            }
+        }
+    }
+
+    @Override
+    public String name() { return "wilson"; }
+}